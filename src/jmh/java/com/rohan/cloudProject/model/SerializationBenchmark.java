@@ -0,0 +1,96 @@
+package com.rohan.cloudProject.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the Jackson serialization of the Bill and User responses, using an ObjectMapper configured the way
+ * Spring Boot configures the one used by the controllers.
+ *
+ * @author rohan_bharti
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+
+    private User user;
+
+    private Bill bill;
+
+    private BillPage billPage;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        user = new User("Rohan", "Bharti", "rohan.bharti@example.com", "$2a$10$abcdefghijklmnopqrstuv");
+        user.setId(UUID.randomUUID().toString());
+        user.setAccountCreated(new Date());
+        user.setAccountUpdated(new Date());
+
+        bill = newBill(0);
+
+        //A full page of bills, as returned by the paginated listing
+        List<Bill> bills = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            bills.add(newBill(i));
+        }
+        billPage = new BillPage(bills, "MTU4NDU2NzAwMDAwMDo3ZjNkYjE4Ni1hZWQ0LTRlMWQtOGI3Zi0xYjc4ZjQ1MmQ2YzE");
+    }
+
+    @Benchmark
+    public byte[] serializeUser() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] serializeBill() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bill);
+    }
+
+    @Benchmark
+    public byte[] serializeBillPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(billPage);
+    }
+
+    private Bill newBill(int i) {
+        File file = new File();
+        file.setFileId(UUID.randomUUID().toString());
+        file.setFileName("receipt-" + i + ".pdf");
+        file.setStorageUrl("https://bills-bucket.s3.amazonaws.com/receipt-" + i + ".pdf");
+        file.setUploadDate(new Date());
+        file.setFileSize(734003L);
+        file.setMd5Hash("9e107d9d372bb6826bd81d3542a419d6");
+        file.setStatus(FileStatus.stored);
+
+        Bill newBill = new Bill();
+        newBill.setBillId(UUID.randomUUID().toString());
+        newBill.setUser(user);
+        newBill.setBillCreated(new Date());
+        newBill.setBillUpdated(new Date());
+        newBill.setVendor("Northeastern University");
+        newBill.setBillDate(new Date());
+        newBill.setDueDate(new Date());
+        newBill.setAmountDue(7000.51 + i);
+        newBill.setCategories(new HashSet<>(Arrays.asList("college", "tuition", "spring2020")));
+        newBill.setPayStatus(PayStatus.due);
+        newBill.setBillFile(file);
+        return newBill;
+    }
+}
@@ -0,0 +1,54 @@
+package com.rohan.cloudProject.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the Basic Authentication done on every authenticated request: decoding the Authorization header
+ * and matching the password against its BCrypt hash.
+ *
+ * @author rohan_bharti
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BasicAuthenticationBenchmark {
+
+    private BasicAuthentication basicAuthentication;
+
+    private String authHeader;
+
+    private String plainPassword;
+
+    private String encryptedPassword;
+
+    @Setup
+    public void setup() {
+        basicAuthentication = new BasicAuthentication();
+        plainPassword = "Qwertyuiop1234@";
+        //Same strength as the passwords stored by the UserService
+        encryptedPassword = BCrypt.hashpw(plainPassword, BCrypt.gensalt(10));
+        authHeader = "Basic " + Base64.getEncoder().encodeToString(
+                ("rohan.bharti.billing@example.com:" + plainPassword).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Map<String, String> getCredentials() {
+        return basicAuthentication.getCredentials(authHeader);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean passwordMatch() {
+        return basicAuthentication.passwordMatch(plainPassword, encryptedPassword);
+    }
+}
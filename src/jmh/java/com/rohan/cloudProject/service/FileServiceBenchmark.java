@@ -0,0 +1,69 @@
+package com.rohan.cloudProject.service;
+
+import com.rohan.cloudProject.model.File;
+import com.timgroup.statsd.NoOpStatsDClient;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark for storing an uploaded receipt on the local FileSystem, hashing it with MD5 while it is copied, over
+ * the usual receipt sizes.
+ *
+ * @author rohan_bharti
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FileServiceBenchmark {
+
+    @Param({"65536", "1048576", "8388608"})
+    private int fileSize;
+
+    private FileService fileService;
+
+    private MockMultipartFile receipt;
+
+    private Path storageRoot;
+
+    private String userHome;
+
+    @Setup
+    public void setup() throws IOException {
+        storageRoot = Files.createTempDirectory("file-service-benchmark");
+        userHome = System.getProperty("user.home");
+        System.setProperty("user.home", storageRoot.toString());
+
+        fileService = new FileService();
+        ReflectionTestUtils.setField(fileService, "activeProfile", "dev");
+        ReflectionTestUtils.setField(fileService, "statsDClient", new NoOpStatsDClient());
+
+        byte[] content = new byte[fileSize];
+        new Random(42).nextBytes(content);
+        receipt = new MockMultipartFile("file", "receipt.pdf", "application/pdf", content);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        System.setProperty("user.home", userHome);
+        try (Stream<Path> paths = Files.walk(storageRoot)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public File createNewFile() {
+        return fileService.createNewFile(receipt, "bill-1");
+    }
+}
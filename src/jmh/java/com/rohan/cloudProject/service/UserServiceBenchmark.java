@@ -0,0 +1,53 @@
+package com.rohan.cloudProject.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the email and password validations done on every signup and password update, over a mix of valid
+ * and invalid inputs.
+ *
+ * @author rohan_bharti
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UserServiceBenchmark {
+
+    private static final String[] EMAILS = {
+            "rohan@xyz.com", "rohan.bharti+billing@northeastern.edu", "rohan_bharti", "jane.doe@example.co.uk",
+            "not an email", "a@b"
+    };
+
+    private static final String[] PASSWORDS = {
+            "Qwertyuiop1234@", "Abcdert1234#", "password1234", "ROHAN24@", "Kndno243LK", "   "
+    };
+
+    private UserService userService;
+
+    @Setup
+    public void setup() {
+        userService = new UserService();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(6)
+    public void checkEmailValidity(Blackhole blackhole) {
+        for (String email : EMAILS) {
+            blackhole.consume(userService.checkEmailValidity(email));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(6)
+    public void checkPasswordValidity(Blackhole blackhole) {
+        for (String password : PASSWORDS) {
+            blackhole.consume(userService.checkPasswordValidity(password));
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.rohan.cloudProject.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.rohan.cloudProject.configuration.MetricsConstants;
+import com.timgroup.statsd.StatsDClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the serialized JSON of the Users' bills, a single bill or the list of all of them, kept off the heap.
+ * <p>
+ * Every entry is stamped with the version read before the bills were loaded. A write to a User's bills takes a new
+ * version once committed, the User's entries stamped before it are then outdated and dropped when looked up. The
+ * entries also expire after a while, as the writes made through the other instances aren't seen by this one.
+ *
+ * @author rohan_bharti
+ */
+@Component
+public class BillResponseCache {
+
+    /**
+     * Bill id under which the list of all the User's bills is stored
+     */
+    public static final String ALL_BILLS = "*";
+
+    /**
+     * Autowired statsDClient.
+     */
+    @Autowired
+    private StatsDClient statsDClient;
+
+    @Value("${bills.responseCache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${bills.responseCache.capacityBytes:67108864}")
+    private long capacityBytes;
+
+    @Value("${bills.responseCache.blockBytes:4096}")
+    private int blockBytes;
+
+    @Value("${bills.responseCache.maximumEntryBytes:1048576}")
+    private int maximumEntryBytes;
+
+    @Value("${bills.responseCache.expireAfterWriteMillis:60000}")
+    private long expireAfterWriteMillis;
+
+    @Value("${bills.responseCache.maximumTrackedUsers:100000}")
+    private long maximumTrackedUsers;
+
+    private OffHeapResponseStore store;
+
+    private final AtomicLong currentVersion = new AtomicLong();
+
+    /**
+     * Version taken by each User's last write
+     */
+    private Cache<String, Long> writeVersions;
+
+    /**
+     * Version taken by the last write no longer tracked, every entry stamped before it is outdated
+     */
+    private final AtomicLong untrackedWriteVersion = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            store = new OffHeapResponseStore(capacityBytes, blockBytes);
+        }
+        writeVersions = CacheBuilder.newBuilder()
+                .maximumSize(maximumTrackedUsers)
+                .removalListener(this::onWriteVersionRemoved)
+                .build();
+    }
+
+    /**
+     * Returns the version to stamp the entry of the bills about to be loaded with.
+     *
+     * @return long
+     */
+    public long currentVersion() {
+        return currentVersion.get();
+    }
+
+    /**
+     * Returns the cached response of the User's bill, or of all their bills for {@link #ALL_BILLS}, null if it isn't
+     * cached or outdated.
+     *
+     * @param userId
+     * @param billId
+     * @return CachedResponse
+     */
+    public CachedResponse get(String userId, String billId) {
+        if (store == null) {
+            return null;
+        }
+
+        Long writeVersion = writeVersions.getIfPresent(userId);
+        long minimumVersion = Math.max(untrackedWriteVersion.get(), writeVersion == null ? 0 : writeVersion);
+        OffHeapResponseStore.Entry entry = store.acquire(key(userId, billId), minimumVersion,
+                System.currentTimeMillis() - expireAfterWriteMillis);
+        if (entry == null) {
+            statsDClient.incrementCounter(MetricsConstants.BILL_RESPONSE_CACHE_MISS);
+            return null;
+        }
+
+        statsDClient.incrementCounter(MetricsConstants.BILL_RESPONSE_CACHE_HIT);
+        CachedResponse response = new CachedResponse(store, entry);
+        //Released once written, or at the latest when the request completes if the response is never written
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null) {
+            String callbackName = CachedResponse.class.getName() + "." + System.identityHashCode(response);
+            requestAttributes.registerDestructionCallback(callbackName, response::release, RequestAttributes.SCOPE_REQUEST);
+        }
+        return response;
+    }
+
+    /**
+     * Stores the serialized response of the User's bill, or of all their bills for {@link #ALL_BILLS}.
+     *
+     * @param userId
+     * @param billId
+     * @param version taken by {@link #currentVersion()} before the bills were loaded
+     * @param json
+     */
+    public void put(String userId, String billId, long version, byte[] json) {
+        put(userId, billId, version, null, json);
+    }
+
+    /**
+     * Stores the serialized response along with its ETag, which has to be read after {@link #currentVersion()}.
+     *
+     * @param userId
+     * @param billId
+     * @param version taken by {@link #currentVersion()} before the bills were loaded
+     * @param eTag
+     * @param json
+     */
+    public void put(String userId, String billId, long version, String eTag, byte[] json) {
+        if (store == null || json.length > maximumEntryBytes) {
+            return;
+        }
+        store.put(key(userId, billId), version, eTag, json);
+    }
+
+    /**
+     * Outdates all the User's cached responses. Called after each write to the User's bills or files, and deferred
+     * until the commit if a transaction is active.
+     *
+     * @param userId
+     */
+    public void invalidateUser(String userId) {
+        if (userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    writeVersions.put(userId, currentVersion.incrementAndGet());
+                }
+            });
+        } else {
+            writeVersions.put(userId, currentVersion.incrementAndGet());
+        }
+    }
+
+    /**
+     * Raises the untracked write version when a User's write version is evicted, to keep their entries outdated.
+     *
+     * @param notification
+     */
+    private void onWriteVersionRemoved(RemovalNotification<String, Long> notification) {
+        if (notification.wasEvicted()) {
+            untrackedWriteVersion.accumulateAndGet(notification.getValue(), Math::max);
+        }
+    }
+
+    private static String key(String userId, String billId) {
+        return userId + "/" + billId;
+    }
+}
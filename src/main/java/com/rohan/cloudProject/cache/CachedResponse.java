@@ -0,0 +1,65 @@
+package com.rohan.cloudProject.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Response body served from the off heap store. Its entry stays pinned until it has been written, or until the
+ * request completes if it never is.
+ *
+ * @author rohan_bharti
+ */
+public class CachedResponse {
+
+    private final OffHeapResponseStore store;
+
+    private final OffHeapResponseStore.Entry entry;
+
+    private boolean released;
+
+    CachedResponse(OffHeapResponseStore store, OffHeapResponseStore.Entry entry) {
+        this.store = store;
+        this.entry = entry;
+    }
+
+    public long getVersion() {
+        return entry.getVersion();
+    }
+
+    /**
+     * Returns the ETag the response was stored with, null if it has none.
+     *
+     * @return String
+     */
+    public String getETag() {
+        return entry.getTag();
+    }
+
+    public int getLength() {
+        return entry.getLength();
+    }
+
+    /**
+     * Writes the serialized body to the OutputStream, releasing the entry afterwards.
+     *
+     * @param outputStream
+     * @throws IOException
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        try {
+            store.writeTo(entry, outputStream);
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Releases the entry, only the first call has an effect.
+     */
+    public synchronized void release() {
+        if (!released) {
+            released = true;
+            store.release(entry);
+        }
+    }
+}
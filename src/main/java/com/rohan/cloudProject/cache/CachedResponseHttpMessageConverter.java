@@ -0,0 +1,46 @@
+package com.rohan.cloudProject.cache;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * Message Converter writing the cached responses' JSON straight from the off heap store, skipping Jackson.
+ *
+ * @author rohan_bharti
+ */
+public class CachedResponseHttpMessageConverter extends AbstractHttpMessageConverter<CachedResponse> {
+
+    public CachedResponseHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return CachedResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected CachedResponse readInternal(Class<? extends CachedResponse> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Cached responses can't be read", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(CachedResponse cachedResponse, MediaType contentType) {
+        return (long) cachedResponse.getLength();
+    }
+
+    @Override
+    protected void writeInternal(CachedResponse cachedResponse, HttpOutputMessage outputMessage) throws IOException {
+        cachedResponse.writeTo(outputMessage.getBody());
+    }
+}
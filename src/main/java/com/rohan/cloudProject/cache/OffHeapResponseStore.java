@@ -0,0 +1,232 @@
+package com.rohan.cloudProject.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Size bounded LRU store of serialized responses, kept outside of the heap. A single direct ByteBuffer is allocated
+ * up front and split into fixed size blocks, every entry takes as many blocks as its bytes need. When there aren't
+ * enough free blocks for a new entry, the least recently used entries are evicted.
+ * <p>
+ * An entry read is pinned until it has been written out, its blocks are only reused once the last reader is done.
+ *
+ * @author rohan_bharti
+ */
+public class OffHeapResponseStore {
+
+    private final ByteBuffer arena;
+
+    private final int blockSize;
+
+    private final int[] freeBlocks;
+
+    private int freeBlockCount;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(1024, 0.75f, true);
+
+    private long evictionCount;
+
+    /**
+     * Copy buffer per thread, the blocks are written out through it as OutputStreams only take byte arrays.
+     */
+    private final ThreadLocal<byte[]> writeBuffer;
+
+    public OffHeapResponseStore(long capacityBytes, int blockSize) {
+        if (blockSize <= 0 || capacityBytes < blockSize || capacityBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The capacity has to be between one block and 2GB");
+        }
+
+        this.blockSize = blockSize;
+        int blockCount = (int) (capacityBytes / blockSize);
+        arena = ByteBuffer.allocateDirect(blockCount * blockSize);
+        freeBlocks = new int[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            freeBlocks[i] = blockCount - 1 - i;
+        }
+        freeBlockCount = blockCount;
+        writeBuffer = ThreadLocal.withInitial(() -> new byte[blockSize]);
+    }
+
+    /**
+     * Stores the bytes for the key, along with a tag kept on the heap, replacing any entry of an older version. Returns
+     * false if the entry couldn't be stored, when a newer version is already stored or when the blocks still free
+     * after evicting every entry not being read aren't enough.
+     *
+     * @param key
+     * @param version
+     * @param tag
+     * @param bytes
+     * @return boolean
+     */
+    public synchronized boolean put(String key, long version, String tag, byte[] bytes) {
+        Entry existing = entries.get(key);
+        if (existing != null) {
+            if (existing.version > version) {
+                return false;
+            }
+            remove(existing);
+        }
+
+        int blocksNeeded = (bytes.length + blockSize - 1) / blockSize;
+        Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+        while (freeBlockCount < blocksNeeded && leastRecentlyUsed.hasNext()) {
+            Entry evicted = leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            evicted.removed = true;
+            release(evicted, false);
+            evictionCount++;
+        }
+        if (freeBlockCount < blocksNeeded) {
+            return false;
+        }
+
+        int[] blocks = new int[blocksNeeded];
+        for (int i = 0; i < blocksNeeded; i++) {
+            int block = freeBlocks[--freeBlockCount];
+            blocks[i] = block;
+            int offset = i * blockSize;
+            arena.clear().position(block * blockSize);
+            arena.put(bytes, offset, Math.min(blockSize, bytes.length - offset));
+        }
+        entries.put(key, new Entry(key, version, tag, System.currentTimeMillis(), bytes.length, blocks));
+        return true;
+    }
+
+    /**
+     * Returns the key's entry if it is at least of the version supplied and was stored after the time supplied,
+     * pinned until {@link #release(Entry)} is called. Returns null otherwise, dropping the outdated entry.
+     *
+     * @param key
+     * @param minimumVersion
+     * @param storedAfterMillis
+     * @return Entry
+     */
+    public synchronized Entry acquire(String key, long minimumVersion, long storedAfterMillis) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.version < minimumVersion || entry.storedAt < storedAfterMillis) {
+            remove(entry);
+            return null;
+        }
+        entry.readers++;
+        return entry;
+    }
+
+    /**
+     * Unpins the entry, freeing its blocks if it was removed while being read.
+     *
+     * @param entry
+     */
+    public synchronized void release(Entry entry) {
+        release(entry, true);
+    }
+
+    /**
+     * Removes the key's entry.
+     *
+     * @param key
+     */
+    public synchronized void remove(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            remove(entry);
+        }
+    }
+
+    /**
+     * Writes the bytes of the pinned entry to the OutputStream.
+     *
+     * @param entry
+     * @param outputStream
+     * @throws IOException
+     */
+    public void writeTo(Entry entry, OutputStream outputStream) throws IOException {
+        byte[] buffer = writeBuffer.get();
+        ByteBuffer view = arena.duplicate();
+        int remaining = entry.length;
+        for (int block : entry.blocks) {
+            int length = Math.min(blockSize, remaining);
+            view.clear().position(block * blockSize);
+            view.get(buffer, 0, length);
+            outputStream.write(buffer, 0, length);
+            remaining -= length;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getUsedBytes() {
+        return (long) (freeBlocks.length - freeBlockCount) * blockSize;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.key);
+        entry.removed = true;
+        release(entry, false);
+    }
+
+    private void release(Entry entry, boolean reader) {
+        if (reader) {
+            entry.readers--;
+        }
+        if (entry.removed && entry.readers == 0) {
+            for (int block : entry.blocks) {
+                freeBlocks[freeBlockCount++] = block;
+            }
+        }
+    }
+
+    /**
+     * Stored response, its bytes are spread over the arena's blocks.
+     */
+    public static final class Entry {
+
+        private final String key;
+
+        private final long version;
+
+        private final String tag;
+
+        private final long storedAt;
+
+        private final int length;
+
+        private final int[] blocks;
+
+        private int readers;
+
+        private boolean removed;
+
+        private Entry(String key, long version, String tag, long storedAt, int length, int[] blocks) {
+            this.key = key;
+            this.version = version;
+            this.tag = tag;
+            this.storedAt = storedAt;
+            this.length = length;
+            this.blocks = blocks;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+        public int getLength() {
+            return length;
+        }
+    }
+}
@@ -1,38 +1,55 @@
 package com.rohan.cloudProject.component;
 
-import com.amazonaws.services.sns.AmazonSNS;
-import com.amazonaws.services.sns.model.PublishRequest;
-import com.amazonaws.services.sns.model.PublishResult;
-import com.amazonaws.services.sns.model.Topic;
 import com.amazonaws.services.sqs.AmazonSQS;
-import com.amazonaws.services.sqs.model.DeleteMessageRequest;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
 import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.MessageSystemAttributeName;
 import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
+import com.google.common.base.Stopwatch;
+import com.rohan.cloudProject.configuration.MetricsConstants;
+import com.rohan.cloudProject.filter.CorrelationIdFilter;
 import com.rohan.cloudProject.model.Bill;
 import com.rohan.cloudProject.model.User;
 import com.rohan.cloudProject.service.BillService;
+import com.rohan.cloudProject.service.SnsService;
 import com.rohan.cloudProject.service.UserService;
+import com.rohan.cloudProject.trace.FlightEvents;
+import com.rohan.cloudProject.trace.QueueMessageEvent;
+import com.timgroup.statsd.StatsDClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.context.annotation.Profile;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
-import java.text.ParseException;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
- * SQS Queue Component Listener
+ * SQS Queue Component Listener. The queue is long polled on a thread of its own, started and stopped with the
+ * application context, so the blocking receive never holds the shared scheduler's thread.
  *
  * @author rohan_bharti
  */
 @Component
 @Profile("aws")
-public class SqsPollingComponentListener {
+public class SqsPollingComponentListener implements SmartLifecycle {
 
     private final static Logger logger = LoggerFactory.getLogger(SqsPollingComponentListener.class);
 
@@ -43,10 +60,10 @@ public class SqsPollingComponentListener {
     private AmazonSQS amazonSqsClient;
 
     /**
-     * Autowired amazonSNSClient
+     * Autowired snsService
      */
-    @Autowired(required = false)
-    private AmazonSNS amazonSNSClient;
+    @Autowired
+    private SnsService snsService;
 
     /**
      * Autowired UserService.
@@ -59,6 +76,12 @@ public class SqsPollingComponentListener {
     @Autowired
     private UserService userService;
 
+    /**
+     * Autowired statsDClient.
+     */
+    @Autowired
+    private StatsDClient statsDClient;
+
     /**
      * Value of the SQS's Url
      */
@@ -66,96 +89,240 @@ public class SqsPollingComponentListener {
     private String amazonSqsUrl;
 
     /**
-     * Value of the SNS Topic
+     * Maximum number of messages received per poll, SQS allows at most 10
      */
-    @Value("${amazon.sns.topic}")
-    private String amazonSnsTopic;
+    @Value("${amazon.sqs.maxMessages:10}")
+    private int maxMessages;
 
     /**
-     * Every second polls the SQS Queue to check if there's a message. Once it gets the message, it takes out the user's email and the List of
-     * Due Bills, attach both of them to the SNS message and publishes on the SNS topic.
-     *
-     * @throws IOException
+     * Long polling wait time, SQS allows at most 20 seconds
      */
-    @Scheduled(fixedRate = 5000)
-    public void getMessageFromQueue() throws IOException, ParseException {
+    @Value("${amazon.sqs.waitTimeSeconds:20}")
+    private int waitTimeSeconds;
 
-        final ReceiveMessageRequest receiveMessageRequest = new ReceiveMessageRequest(amazonSqsUrl).withMaxNumberOfMessages(1).withWaitTimeSeconds(3);
+    /**
+     * Number of worker threads processing the received messages
+     */
+    @Value("${amazon.sqs.workers:10}")
+    private int workers;
 
-        final List<Message> messages = amazonSqsClient.receiveMessage(receiveMessageRequest).getMessages();
-        String billsDueInfoString = "";
-        String billsDueUrlsAndEmailString = "";
+    /**
+     * Delay between two polls, and before polling again after a failed poll
+     */
+    @Value("${amazon.sqs.pollDelayMillis:100}")
+    private long pollDelayMillis;
 
-        for (final Message message : messages) {
-            logger.debug("Message");
-            logger.debug("MessageId: " + message.getMessageId());
-            logger.debug("ReceiptHandle: " + message.getReceiptHandle());
-            logger.debug("Body: " + message.getBody());
-            if (!"".equals(message.getBody())) {
-                logger.info("POLLING: Fetching the Due Bills Json From the Message Received");
-
-                billsDueInfoString = message.getBody();
-                logger.info("Queue Message: " + billsDueInfoString);
-                if (!billsDueInfoString.isEmpty()) {
-                    logger.info("POLLING: User's ID and due Bills information successfully fetched from the SQS Queue");
-                } else {
-                    logger.error("POLLING: No User Info and Bills due found in the SQS message");
-                    return;
-                }
+    private ThreadPoolExecutor messageWorkers;
 
-                logger.info("AFTER POLLING: Started processing to fetch the bills due as per the user's request");
+    private ExecutorService poller;
 
-                String[] info = billsDueInfoString.split(",");
-                String userId = info[0];
-                String daysNum = info[1];
+    private volatile boolean running;
 
-                List<Bill> billsDue;
-                String userEmail;
+    @PostConstruct
+    public void init() {
+        messageWorkers = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxMessages), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
 
-                Long daysNumDue = Long.parseLong(daysNum);
-                billsDue = billService.getAllBillsDueByUserId(userId, daysNumDue);
-                User user = userService.getUserDetails(userId);
-                userEmail = user.getEmail();
+    @PreDestroy
+    public void shutdown() {
+        messageWorkers.shutdown();
+    }
 
-                logger.info("User email: " + userEmail);
-                List<String> billsDueEmailJsonList = new ArrayList<>();
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        poller = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "sqs-poller"));
+        poller.execute(this::pollUntilStopped);
+    }
 
-                billsDueEmailJsonList.add(userEmail);
+    /**
+     * Stops polling, interrupting the receive or the batch in progress. The messages not deleted yet are redelivered.
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        poller.shutdownNow();
+        try {
+            poller.awaitTermination(waitTimeSeconds + 5L, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
 
-                for (Bill bill : billsDue) {
-                    String billAccessUrl = billService.getAccessUrl(bill);
-                    logger.info("Bill Url: " + billAccessUrl);
-                    billsDueEmailJsonList.add(billAccessUrl);
+    /**
+     * Polls the queue one batch after the other until stopped. A failed poll is logged and retried after the poll delay.
+     */
+    private void pollUntilStopped() {
+        while (running) {
+            try {
+                getMessageFromQueue();
+            } catch (RuntimeException ex) {
+                if (!running) {
+                    return;
                 }
+                logger.error("POLLING: The SQS Queue couldn't be polled", ex);
+            }
+            try {
+                Thread.sleep(pollDelayMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
 
-                billsDueUrlsAndEmailString = String.join(",", billsDueEmailJsonList);
+    /**
+     * Long polls the SQS Queue for a batch of messages. Every message is handed to the worker pool, which takes out the
+     * user's id and the number of days, attaches the user's email and the List of Due Bills to the SNS message and
+     * publishes it asynchronously on the SNS topic. The successfully processed messages are deleted from the queue in one batch, the
+     * failed ones are left on the queue to be redelivered.
+     */
+    public void getMessageFromQueue() {
 
-                final String messageReceiptHandle = messages.get(0).getReceiptHandle();
-                amazonSqsClient.deleteMessage(new DeleteMessageRequest(amazonSqsUrl, messageReceiptHandle));
+        final ReceiveMessageRequest receiveMessageRequest = new ReceiveMessageRequest(amazonSqsUrl)
+                .withMaxNumberOfMessages(maxMessages)
+                .withWaitTimeSeconds(waitTimeSeconds)
+                .withAttributeNames(MessageSystemAttributeName.SentTimestamp.toString());
+
+        final List<Message> messages = amazonSqsClient.receiveMessage(receiveMessageRequest).getMessages();
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        statsDClient.count(MetricsConstants.SQS_MESSAGES_RECEIVED, messages.size());
+        Stopwatch stopwatch = Stopwatch.createStarted();
+
+        List<Future<Boolean>> results = new ArrayList<>(messages.size());
+        for (final Message message : messages) {
+            recordQueueLag(message);
+            results.add(CompletableFuture.supplyAsync(() -> processMessage(message), messageWorkers)
+                    .thenCompose(publishFuture -> publishFuture));
+        }
+
+        List<DeleteMessageBatchRequestEntry> processedEntries = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            boolean processed = false;
+            try {
+                processed = results.get(i).get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                logger.error("POLLING: Message {} couldn't be processed", message.getMessageId(), ex.getCause());
+            }
+
+            if (processed) {
+                processedEntries.add(new DeleteMessageBatchRequestEntry(String.valueOf(i), message.getReceiptHandle()));
+            } else {
+                statsDClient.incrementCounter(MetricsConstants.SQS_MESSAGES_FAILED);
             }
         }
 
-        if (!billsDueUrlsAndEmailString.isEmpty()) {
-            List<Topic> topics = amazonSNSClient.listTopics().getTopics();
-
-            PublishRequest snsPublishRequest = new PublishRequest();
-            snsPublishRequest.withMessage(billsDueUrlsAndEmailString);
-
-            for (Topic topic : topics) {
-                if (topic.getTopicArn().endsWith(amazonSnsTopic)) {
-                    logger.info("SNS Topic: " + amazonSnsTopic);
-                    logger.info("SNS Topic ARN: " + topic.getTopicArn());
-                    snsPublishRequest.withTopicArn(topic.getTopicArn());
-                    PublishResult publishResponse = amazonSNSClient.publish(snsPublishRequest);
-                    logger.info("SNS Message to be published: " + billsDueUrlsAndEmailString);
-                    logger.info("SNS: Published message successfully to the SNS Topic with the User's Email and the List of Due Bills");
-                    logger.info("Publish Response ID: " + publishResponse.getMessageId());
-                    break;
-                }
+        if (!processedEntries.isEmpty()) {
+            DeleteMessageBatchResult deleteResult = amazonSqsClient.deleteMessageBatch(
+                    new DeleteMessageBatchRequest(amazonSqsUrl, processedEntries));
+            for (BatchResultErrorEntry failedEntry : deleteResult.getFailed()) {
+                logger.error("POLLING: Message couldn't be deleted from the queue: {}", failedEntry.getMessage());
+            }
+            statsDClient.count(MetricsConstants.SQS_MESSAGES_PROCESSED, deleteResult.getSuccessful().size());
+        }
+
+        stopwatch.stop();
+        statsDClient.recordExecutionTime(MetricsConstants.TIMER_SQS_BATCH_PROCESS, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        logger.info("POLLING: Processed {} of {} messages received", processedEntries.size(), messages.size());
+    }
+
+    /**
+     * Handles a single message from the queue. The returned future completes with true once the message has been
+     * processed and published, and can be deleted. The handling is recorded as a Queue Message Flight Recorder event,
+     * and is logged with the message's id as its correlation id.
+     *
+     * @param message
+     * @return CompletableFuture<Boolean>
+     */
+    private CompletableFuture<Boolean> processMessage(Message message) {
+        QueueMessageEvent event = FlightEvents.queueMessage();
+        event.begin();
+        event.setMessageId(message.getMessageId());
+        MDC.put(CorrelationIdFilter.CORRELATION_ID_KEY, message.getMessageId());
+        CompletableFuture<Boolean> processed;
+        try {
+            processed = processMessage(message, event);
+        } catch (RuntimeException ex) {
+            event.commit();
+            throw ex;
+        } finally {
+            MDC.remove(CorrelationIdFilter.CORRELATION_ID_KEY);
+        }
+        return processed.whenComplete((result, exception) -> event.commit());
+    }
+
+    private CompletableFuture<Boolean> processMessage(Message message, QueueMessageEvent event) {
+        String billsDueInfoString = message.getBody();
+        logger.debug("POLLING: Message {} Body: {}", message.getMessageId(), billsDueInfoString);
+
+        String[] info = billsDueInfoString == null ? new String[0] : billsDueInfoString.split(",");
+        String userId;
+        Long daysNumDue;
+        try {
+            userId = info[0];
+            daysNumDue = Long.parseLong(info[1].trim());
+            if (daysNumDue < 0) {
+                throw new NumberFormatException("Negative number of days: " + daysNumDue);
             }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException ex) {
+            //A malformed message would never succeed, so it is dropped instead of being redelivered
+            logger.error("POLLING: No User Info and Bills due found in the SQS message {}", message.getMessageId());
+            event.setOutcome(FlightEvents.OUTCOME_DROPPED);
+            return CompletableFuture.completedFuture(true);
+        }
+        event.setUserId(userId);
+
+        List<Bill> billsDue = billService.getAllBillsDueByUserId(userId, daysNumDue);
+        User user = userService.getUserDetails(userId);
+        if (user == null) {
+            logger.error("POLLING: The User in the SQS message {} doesn't exist", message.getMessageId());
+            event.setOutcome(FlightEvents.OUTCOME_DROPPED);
+            return CompletableFuture.completedFuture(true);
+        }
 
+        List<String> billsDueEmailJsonList = new ArrayList<>(billsDue.size() + 1);
+        billsDueEmailJsonList.add(user.getEmail());
+        for (Bill bill : billsDue) {
+            billsDueEmailJsonList.add(billService.getAccessUrl(bill));
         }
+
+        String billsDueMessage = String.join(",", billsDueEmailJsonList);
+        event.setBillsDue(billsDue.size());
+        event.setBytes(billsDueMessage.length());
+        return snsService.publishBillsDue(billsDueMessage).thenApply(publishResult -> {
+            event.setOutcome(FlightEvents.OUTCOME_SUCCESS);
+            return true;
+        });
     }
 
-}
+    /**
+     * Reports how long the message waited on the queue before being received.
+     *
+     * @param message
+     */
+    private void recordQueueLag(Message message) {
+        String sentTimestamp = message.getAttributes().get(MessageSystemAttributeName.SentTimestamp.toString());
+        if (sentTimestamp != null) {
+            long queueLag = System.currentTimeMillis() - Long.parseLong(sentTimestamp);
+            statsDClient.recordExecutionTime(MetricsConstants.TIMER_SQS_MESSAGE_LAG, Math.max(queueLag, 0));
+        }
+    }
 
+}
@@ -1,7 +1,9 @@
 package com.rohan.cloudProject.configuration;
 
+import com.rohan.cloudProject.metrics.AggregatingStatsDClient;
+import com.rohan.cloudProject.metrics.LatencyHistograms;
+import com.rohan.cloudProject.metrics.LatencyRecordingStatsDClient;
 import com.timgroup.statsd.NoOpStatsDClient;
-import com.timgroup.statsd.NonBlockingStatsDClient;
 import com.timgroup.statsd.StatsDClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -24,20 +26,26 @@ public class MetricsClientBean {
     @Value("${metrics.server.port}")
     private int metricsServerPort;
 
+    @Value("${metrics.flushIntervalMillis:10000}")
+    private long flushIntervalMillis;
+
     @Value("csye6225")
     private String prefix;
 
     /**
-     * Creates the Bean for the StatsDClient by taking in the properties from the application.properties file
+     * Creates the Bean for the StatsDClient by taking in the properties from the application.properties file. The
+     * metrics are aggregated in the process and flushed to the server on an interval. Every execution time is also
+     * recorded in the instance's latency histograms, even when metrics aren't published.
      *
+     * @param latencyHistograms
      * @return StatsDClient
      */
-    @Bean
-    public StatsDClient statsDClient() {
-        if (publishMetrics) {
-            return new NonBlockingStatsDClient(prefix, metricsServerHost, metricsServerPort);
-        }
-        return new NoOpStatsDClient();
+    @Bean(destroyMethod = "stop")
+    public StatsDClient statsDClient(LatencyHistograms latencyHistograms) {
+        StatsDClient statsDClient = publishMetrics
+                ? new AggregatingStatsDClient(prefix, metricsServerHost, metricsServerPort, flushIntervalMillis)
+                : new NoOpStatsDClient();
+        return new LatencyRecordingStatsDClient(statsDClient, latencyHistograms);
     }
 
 }
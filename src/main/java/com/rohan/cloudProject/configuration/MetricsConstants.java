@@ -19,6 +19,10 @@ public class MetricsConstants {
     public static final String ENDPOINT_USER_HTTP_POST = "endpoint.user.http.post";
     public static final String ENDPOINT_USER_HTTP_PUT = "endpoint.user.http.put";
     public static final String ENDPOINT_BILLS_DUE_HTTP_GET = "endpoint.bills.due.http.get";
+    public static final String ENDPOINT_BILLS_PAGE_HTTP_GET = "endpoint.bills.page.http.get";
+    public static final String ENDPOINT_BILLS_CHANGES_HTTP_GET = "endpoint.bills.changes.http.get";
+    public static final String ENDPOINT_BILLS_STREAM_HTTP_GET = "endpoint.bills.stream.http.get";
+    public static final String ENDPOINT_UNMAPPED_HTTP = "endpoint.unmapped.http";
     public static final String TIMER_BILL_HTTP_POST = "timer.bill.http.post";
     public static final String TIMER_BILLS_HTTP_GET = "timer.bills.http.get";
     public static final String TIMER_BILL_HTTP_DELETE = "timer.bill.http.delete";
@@ -41,6 +45,25 @@ public class MetricsConstants {
     public static final String TIMER_DATABASE_FILE_DELETE = "timer.database.file.delete";
     public static final String TIMER_S3_FILE_UPLOAD = "timer.s3.file.upload";
     public static final String TIMER_S3_FILE_DELETE = "timer.s3.file.delete";
+    public static final String TIMER_FILE_STORAGE_ASYNC = "timer.file.storage.async";
+    public static final String FILE_STORAGE_FAILED = "file.storage.failed";
     public static final String TIMER_BILLS_DUE_HTTP_GET = "timer.bills.due.http.get";
+    public static final String TIMER_BILLS_PAGE_HTTP_GET = "timer.bills.page.http.get";
+    public static final String TIMER_BILLS_CHANGES_HTTP_GET = "timer.bills.changes.http.get";
+    public static final String TIMER_BILLS_STREAM_HTTP_GET = "timer.bills.stream.http.get";
+    public static final String TIMER_UNMAPPED_HTTP = "timer.unmapped.http";
+    public static final String SQS_MESSAGES_RECEIVED = "sqs.messages.received";
+    public static final String SQS_MESSAGES_PROCESSED = "sqs.messages.processed";
+    public static final String SQS_MESSAGES_FAILED = "sqs.messages.failed";
+    public static final String TIMER_SQS_MESSAGE_LAG = "timer.sqs.message.lag";
+    public static final String TIMER_SQS_BATCH_PROCESS = "timer.sqs.batch.process";
+    public static final String TIMER_SNS_PUBLISH = "timer.sns.publish";
+    public static final String AUTH_CACHE_HIT = "auth.cache.hit";
+    public static final String AUTH_CACHE_MISS = "auth.cache.miss";
+    public static final String DATABASE_READS_REPLICA = "database.reads.replica";
+    public static final String DATABASE_READS_AFTER_WRITE = "database.reads.afterWrite";
+    public static final String DATABASE_CACHE = "database.cache";
+    public static final String BILL_RESPONSE_CACHE_HIT = "bill.responseCache.hit";
+    public static final String BILL_RESPONSE_CACHE_MISS = "bill.responseCache.miss";
 
 }
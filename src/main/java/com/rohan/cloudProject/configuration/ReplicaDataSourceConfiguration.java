@@ -0,0 +1,78 @@
+package com.rohan.cloudProject.configuration;
+
+import com.rohan.cloudProject.datasource.ReadAfterWriteTracker;
+import com.rohan.cloudProject.datasource.ReplicaRoutingDataSource;
+import com.timgroup.statsd.StatsDClient;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Configuration class for the read replica. Only active when spring.datasource.replica.url is set, otherwise the
+ * single DataSource auto-configured from spring.datasource is used. The primary and the replica get a connection pool
+ * each, the DataSource handed to JPA routes every connection to one of them.
+ *
+ * @author rohan_bharti
+ */
+@Configuration
+@ConditionalOnExpression("!'${spring.datasource.replica.url:}'.isEmpty()")
+public class ReplicaDataSourceConfiguration {
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties primaryDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.replica")
+    public DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(
+            @Qualifier("primaryDataSourceProperties") DataSourceProperties primaryDataSourceProperties) {
+        return primaryDataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Qualifier("replicaDataSourceProperties") DataSourceProperties replicaDataSourceProperties) {
+        return replicaDataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Initializing a pool triggers the DataSource initializer, which looks this DataSource up. The pools are injected
+     * lazily and the proxy is initialized by the container, so they are only created once this DataSource has been
+     * instantiated and can be handed to the initializer.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Lazy @Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Lazy @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReadAfterWriteTracker readAfterWriteTracker, StatsDClient statsDClient) {
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource,
+                readAfterWriteTracker, statsDClient);
+        routingDataSource.afterPropertiesSet();
+
+        //The connection is only fetched from the routing DataSource on the first statement, once the transaction's
+        //read only flag has been set
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy();
+        dataSource.setTargetDataSource(routingDataSource);
+        dataSource.setDefaultAutoCommit(true);
+        return dataSource;
+    }
+}
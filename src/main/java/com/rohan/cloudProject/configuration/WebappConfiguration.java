@@ -4,10 +4,14 @@ import com.amazonaws.auth.InstanceProfileCredentialsProvider;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
-import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import com.amazonaws.services.sns.AmazonSNSAsync;
 import com.amazonaws.services.sns.AmazonSNSAsyncClientBuilder;
 import com.amazonaws.services.sqs.AmazonSQS;
 import com.amazonaws.services.sqs.AmazonSQSClientBuilder;
+import com.rohan.cloudProject.cache.CachedResponseHttpMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -16,8 +20,11 @@ import springfox.documentation.builders.RequestHandlerSelectors;
 import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
 
+import java.util.concurrent.Executors;
+
 /**
- * Configuration class for all the beans required by the Application
+ * Configuration class for all the beans required by the Application. The "perf" profile replaces the AWS clients with
+ * local stand-ins.
  *
  * @author rohan_bharti
  */
@@ -30,8 +37,18 @@ public class WebappConfiguration {
                 apis(RequestHandlerSelectors.basePackage("com.rohan.cloudProject")).build();
     }
 
+    /**
+     * Picked up by Spring Boot ahead of the default converters, for the responses served from the BillResponseCache.
+     *
+     * @return CachedResponseHttpMessageConverter
+     */
     @Bean
-    @Profile("aws")
+    public CachedResponseHttpMessageConverter cachedResponseHttpMessageConverter() {
+        return new CachedResponseHttpMessageConverter();
+    }
+
+    @Bean
+    @Profile("aws & !perf")
     public AmazonS3 amazonS3Client() {
         AmazonS3 amazonS3Client = AmazonS3ClientBuilder.standard()
                 .withCredentials(new InstanceProfileCredentialsProvider(false))
@@ -39,17 +56,32 @@ public class WebappConfiguration {
         return amazonS3Client;
     }
 
-    @Bean
+    @Bean(destroyMethod = "shutdownNow")
     @Profile("aws")
+    public TransferManager transferManager(AmazonS3 amazonS3Client,
+                                           @Value("${amazon.s3.multipart.thresholdBytes:16777216}") long multipartThreshold,
+                                           @Value("${amazon.s3.multipart.partSizeBytes:8388608}") long partSize,
+                                           @Value("${amazon.s3.multipart.parallelism:4}") int parallelism) {
+        TransferManager transferManager = TransferManagerBuilder.standard()
+                .withS3Client(amazonS3Client)
+                .withMultipartUploadThreshold(multipartThreshold)
+                .withMinimumUploadPartSize(partSize)
+                .withExecutorFactory(() -> Executors.newFixedThreadPool(parallelism))
+                .build();
+        return transferManager;
+    }
+
+    @Bean
+    @Profile("aws & !perf")
     public AmazonSQS amazonSqsClient() {
         AmazonSQS sqs = AmazonSQSClientBuilder.defaultClient();
         return sqs;
     }
 
     @Bean
-    @Profile("aws")
-    public AmazonSNS amazonSNSClient() {
-        AmazonSNS snsClient = AmazonSNSAsyncClientBuilder.standard()
+    @Profile("aws & !perf")
+    public AmazonSNSAsync amazonSNSClient() {
+        AmazonSNSAsync snsClient = AmazonSNSAsyncClientBuilder.standard()
                 .withCredentials(new InstanceProfileCredentialsProvider(false))
                 .withRegion(Regions.US_EAST_1)
                 .build();
@@ -1,8 +1,13 @@
 package com.rohan.cloudProject.controller;
 
-import com.google.common.base.Stopwatch;
-import com.rohan.cloudProject.configuration.MetricsConstants;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.rohan.cloudProject.cache.BillResponseCache;
+import com.rohan.cloudProject.cache.CachedResponse;
 import com.rohan.cloudProject.model.Bill;
+import com.rohan.cloudProject.model.BillChanges;
+import com.rohan.cloudProject.model.BillPage;
 import com.rohan.cloudProject.model.File;
 import com.rohan.cloudProject.model.User;
 import com.rohan.cloudProject.model.exception.StorageException;
@@ -10,22 +15,26 @@ import com.rohan.cloudProject.security.BasicAuthentication;
 import com.rohan.cloudProject.service.BillService;
 import com.rohan.cloudProject.service.SqsService;
 import com.rohan.cloudProject.service.UserService;
-import com.timgroup.statsd.StatsDClient;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
-import java.text.ParseException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Bill Controller class for the Spring Boot Application. Defines all the REST APIs.
@@ -55,16 +64,22 @@ public class BillController {
     private BasicAuthentication basicAuthentication;
 
     /**
-     * Autowired statsDClient.
+     * Autowired sqsService.
+     */
+    @Autowired(required = false)
+    private SqsService sqsService;
+
+    /**
+     * Autowired objectMapper.
      */
     @Autowired
-    private StatsDClient statsDClient;
+    private ObjectMapper objectMapper;
 
     /**
-     * Autowired sqsService.
+     * Autowired billResponseCache.
      */
-    @Autowired(required = false)
-    private SqsService sqsService;
+    @Autowired
+    private BillResponseCache billResponseCache;
 
     /**
      * Current Profile in use
@@ -82,40 +97,28 @@ public class BillController {
     @PostMapping("/v1/bill/")
     @ApiOperation("Stores a new Bill")
     public ResponseEntity createBill(@RequestHeader(value = HttpHeaders.AUTHORIZATION) String authHeader, @Valid @RequestBody Bill billToBeSaved) {
-        statsDClient.incrementCounter(MetricsConstants.ENDPOINT_BILL_HTTP_POST);
-        Stopwatch stopwatch = Stopwatch.createStarted();
         if (authHeader != null && authHeader.toLowerCase().startsWith("basic")) {
             String userId = null;
             User user = null;
             try {
                 userId = basicAuthentication.authorize(authHeader);
             } catch (IllegalArgumentException illegalArgumentException) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILL_HTTP_POST, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(illegalArgumentException.getMessage(), HttpStatus.BAD_REQUEST);
             }
 
             user = userService.getUserDetails(userId);
             if (user == null) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILL_HTTP_POST, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity("User doesn't exist", HttpStatus.BAD_REQUEST);
             }
 
             billToBeSaved.setUser(user);
             try {
                 Bill bill = billService.createNewBill(billToBeSaved);
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILL_HTTP_POST, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(bill, HttpStatus.CREATED);
             } catch (Exception e) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILL_HTTP_POST, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(e.getMessage(), HttpStatus.BAD_REQUEST);
             }
         } else {
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILL_HTTP_POST, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             return new ResponseEntity("Please provide a valid username and password for authentication!", HttpStatus.FORBIDDEN);
         }
     }
@@ -123,43 +126,165 @@ public class BillController {
     /**
      * GET API to fetch all the bills for the supplied User Information.
      * Each Bill is mapped to its respective User. Basic Auth is done before the bills are fetched for that user.
+     * The JSON is served from the BillResponseCache until the User's bills change. A request whose If-None-Match
+     * matches the bills' ETag gets a 304 Not Modified, without the bills being loaded.
      *
      * @param authHeader
+     * @param webRequest
      * @return ResponseEntity
      */
     @GetMapping("/v1/bills")
     @ApiOperation("Gets all the bills for the user")
-    public ResponseEntity getBillsByUserId(@RequestHeader(value = HttpHeaders.AUTHORIZATION) String authHeader) {
-        statsDClient.incrementCounter(MetricsConstants.ENDPOINT_BILLS_HTTP_GET);
-        Stopwatch stopwatch = Stopwatch.createStarted();
+    public ResponseEntity getBillsByUserId(@RequestHeader(value = HttpHeaders.AUTHORIZATION) String authHeader,
+                                           WebRequest webRequest) throws JsonProcessingException {
         if (authHeader != null && authHeader.toLowerCase().startsWith("basic")) {
             String userId = null;
             try {
                 userId = basicAuthentication.authorize(authHeader);
             } catch (IllegalArgumentException illegalArgumentException) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILLS_HTTP_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(illegalArgumentException.getMessage(), HttpStatus.UNAUTHORIZED);
             }
 
+            CachedResponse cachedResponse = billResponseCache.get(userId, BillResponseCache.ALL_BILLS);
+            if (cachedResponse != null) {
+                String eTag = cachedResponse.getETag();
+                if (eTag != null && webRequest.checkNotModified(eTag)) {
+                    cachedResponse.release();
+                    return null;
+                }
+                return new ResponseEntity(cachedResponse, HttpStatus.OK);
+            }
+
+            long version = billResponseCache.currentVersion();
+            String eTag = billService.getBillsETag(userId);
+            if (eTag != null && webRequest.checkNotModified(eTag)) {
+                return null;
+            }
+
             List<Bill> bills;
             try {
                 bills = billService.getAllBillsByUserId(userId);
             } catch (Exception ex) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILLS_HTTP_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(ex.getMessage(), HttpStatus.BAD_REQUEST);
             }
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILLS_HTTP_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
-            return new ResponseEntity(bills, HttpStatus.OK);
+            return cacheResponse(userId, BillResponseCache.ALL_BILLS, version, eTag, bills);
+        } else {
+            return new ResponseEntity("Please provide a valid username and password for authentication!", HttpStatus.UNAUTHORIZED);
+        }
+    }
+
+    /**
+     * GET API to fetch one page of the bills for the supplied User Information. Pages are ordered by creation time, the
+     * next_cursor of the response has to be passed as the cursor to fetch the next page.
+     *
+     * @param authHeader
+     * @param cursor
+     * @param limit
+     * @return ResponseEntity
+     */
+    @GetMapping("/v1/bills/page")
+    @ApiOperation("Gets one page of the bills for the user")
+    public ResponseEntity getBillsPageByUserId(@RequestHeader(value = HttpHeaders.AUTHORIZATION) String authHeader,
+                                               @RequestParam(value = "cursor", required = false) String cursor,
+                                               @RequestParam(value = "limit", required = false) Integer limit) {
+        if (authHeader != null && authHeader.toLowerCase().startsWith("basic")) {
+            String userId = null;
+            try {
+                userId = basicAuthentication.authorize(authHeader);
+            } catch (IllegalArgumentException illegalArgumentException) {
+                return new ResponseEntity(illegalArgumentException.getMessage(), HttpStatus.UNAUTHORIZED);
+            }
+
+            BillPage billPage;
+            try {
+                billPage = billService.getBillsPageByUserId(userId, cursor, limit);
+            } catch (Exception ex) {
+                return new ResponseEntity(ex.getMessage(), HttpStatus.BAD_REQUEST);
+            }
+            return new ResponseEntity(billPage, HttpStatus.OK);
+        } else {
+            return new ResponseEntity("Please provide a valid username and password for authentication!", HttpStatus.UNAUTHORIZED);
+        }
+    }
+
+    /**
+     * GET API to fetch the bills created, updated or deleted for the supplied User Information since the token passed,
+     * or all the bills if none is. The next_since of the response has to be passed as the token of the next call, a
+     * 410 means the token has expired and all the bills have to be fetched again.
+     *
+     * @param authHeader
+     * @param since
+     * @return ResponseEntity
+     */
+    @GetMapping("/v1/bills/changes")
+    @ApiOperation("Gets the bills changed for the user since the token supplied")
+    public ResponseEntity getBillChangesByUserId(@RequestHeader(value = HttpHeaders.AUTHORIZATION) String authHeader,
+                                                 @RequestParam(value = "since", required = false) String since) {
+        if (authHeader != null && authHeader.toLowerCase().startsWith("basic")) {
+            String userId = null;
+            try {
+                userId = basicAuthentication.authorize(authHeader);
+            } catch (IllegalArgumentException illegalArgumentException) {
+                return new ResponseEntity(illegalArgumentException.getMessage(), HttpStatus.UNAUTHORIZED);
+            }
+
+            BillChanges billChanges;
+            try {
+                billChanges = billService.getBillChangesByUserId(userId, since);
+            } catch (IllegalStateException ex) {
+                return new ResponseEntity(ex.getMessage(), HttpStatus.GONE);
+            } catch (Exception ex) {
+                return new ResponseEntity(ex.getMessage(), HttpStatus.BAD_REQUEST);
+            }
+            return new ResponseEntity(billChanges, HttpStatus.OK);
         } else {
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILLS_HTTP_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             return new ResponseEntity("Please provide a valid username and password for authentication!", HttpStatus.UNAUTHORIZED);
         }
     }
 
+    /**
+     * GET API to stream all the bills for the supplied User Information as newline delimited JSON. Every bill is written
+     * to the response as soon as it is read from the database.
+     *
+     * @param authHeader
+     * @param response
+     * @throws IOException
+     */
+    @GetMapping("/v1/bills/stream")
+    @ApiOperation("Streams all the bills for the user as newline delimited JSON")
+    public void streamBillsByUserId(@RequestHeader(value = HttpHeaders.AUTHORIZATION) String authHeader,
+                                    HttpServletResponse response) throws IOException {
+        if (authHeader != null && authHeader.toLowerCase().startsWith("basic")) {
+            String userId = null;
+            try {
+                userId = basicAuthentication.authorize(authHeader);
+            } catch (IllegalArgumentException illegalArgumentException) {
+                response.sendError(HttpStatus.UNAUTHORIZED.value(), illegalArgumentException.getMessage());
+                return;
+            }
+
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType("application/x-ndjson");
+            OutputStream outputStream = response.getOutputStream();
+            ObjectWriter billWriter = objectMapper.writerFor(Bill.class);
+            try {
+                billService.streamAllBillsByUserId(userId, bill -> {
+                    try {
+                        outputStream.write(billWriter.writeValueAsBytes(bill));
+                        outputStream.write('\n');
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            outputStream.flush();
+        } else {
+            response.sendError(HttpStatus.UNAUTHORIZED.value(), "Please provide a valid username and password for authentication!");
+        }
+    }
+
     /**
      * DELETE API to delete the bill for the billId supplied for. Each Bill is mapped to its respective User.
      * Basic Auth is done before the bills are fetched for that user.
@@ -171,35 +296,25 @@ public class BillController {
     @DeleteMapping("/v1/bill/{id}")
     @ApiOperation("Deletes the bill for the User once he/she is authenticated")
     public ResponseEntity deleteBillById(@RequestHeader(value = HttpHeaders.AUTHORIZATION) String authHeader, @PathVariable(value = "id") String billId) {
-        statsDClient.incrementCounter(MetricsConstants.ENDPOINT_BILL_HTTP_DELETE);
-        Stopwatch stopwatch = Stopwatch.createStarted();
         if (authHeader != null && authHeader.toLowerCase().startsWith("basic")) {
             String userId = null;
             try {
                 userId = basicAuthentication.authorize(authHeader);
             } catch (IllegalArgumentException illegalArgumentException) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILL_HTTP_DELETE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(illegalArgumentException.getMessage(), HttpStatus.UNAUTHORIZED);
             }
 
             try {
                 billService.deleteById(billId, userId);
             } catch (IllegalArgumentException illegalArgumentException) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILL_HTTP_DELETE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(illegalArgumentException.getMessage(), HttpStatus.UNAUTHORIZED);
+            } catch (OptimisticLockingFailureException conflict) {
+                return new ResponseEntity("The Bill was changed by another request, please try again.", HttpStatus.CONFLICT);
             } catch (Exception ex) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILL_HTTP_DELETE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity("The Bill for the ID provided doesn't exist", HttpStatus.NOT_FOUND);
             }
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILL_HTTP_DELETE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             return new ResponseEntity(HttpStatus.NO_CONTENT);
         } else {
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILL_HTTP_DELETE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             return new ResponseEntity("Please provide a valid username and password for authentication!", HttpStatus.UNAUTHORIZED);
         }
     }
@@ -207,6 +322,7 @@ public class BillController {
     /**
      * GET API to fetch the bill by its id. Each Bill is mapped to its respective User.
      * Basic Auth is done before the bills are fetched for that user.
+     * The JSON is served from the BillResponseCache until the User's bills change.
      *
      * @param authHeader
      * @param billId
@@ -214,37 +330,32 @@ public class BillController {
      */
     @GetMapping("/v1/bill/{id}")
     @ApiOperation("Fetches the Bill by its bill id.")
-    public ResponseEntity getBillById(@RequestHeader(value = HttpHeaders.AUTHORIZATION) String authHeader, @PathVariable(value = "id") String billId) {
-        statsDClient.incrementCounter(MetricsConstants.ENDPOINT_BILL_HTTP_GET);
-        Stopwatch stopwatch = Stopwatch.createStarted();
+    public ResponseEntity getBillById(@RequestHeader(value = HttpHeaders.AUTHORIZATION) String authHeader, @PathVariable(value = "id") String billId)
+            throws JsonProcessingException {
         if (authHeader != null && authHeader.toLowerCase().startsWith("basic")) {
             String userId = null;
             try {
                 userId = basicAuthentication.authorize(authHeader);
             } catch (IllegalArgumentException illegalArgumentException) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILL_HTTP_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(illegalArgumentException.getMessage(), HttpStatus.UNAUTHORIZED);
             }
 
+            CachedResponse cachedResponse = billResponseCache.get(userId, billId);
+            if (cachedResponse != null) {
+                return new ResponseEntity(cachedResponse, HttpStatus.OK);
+            }
+
+            long version = billResponseCache.currentVersion();
             Bill bill;
             try {
                 bill = billService.getBillByBillId(billId, userId);
             } catch (IllegalArgumentException illegalArgumentException) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILL_HTTP_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(illegalArgumentException.getMessage(), HttpStatus.UNAUTHORIZED);
             } catch (Exception ex) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILL_HTTP_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity("The Bill for the ID provided doesn't exist", HttpStatus.NOT_FOUND);
             }
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILL_HTTP_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
-            return new ResponseEntity(bill, HttpStatus.OK);
+            return cacheResponse(userId, billId, version, null, bill);
         } else {
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILL_HTTP_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             return new ResponseEntity("Please provide a valid username and password for authentication!", HttpStatus.UNAUTHORIZED);
         }
     }
@@ -262,15 +373,11 @@ public class BillController {
     @ApiOperation("Updates the Bill by its bill id.")
     public ResponseEntity updateBillById(@RequestHeader(value = HttpHeaders.AUTHORIZATION) String authHeader,
                                          @PathVariable(value = "id") String billId, @Valid @RequestBody Bill bill) {
-        statsDClient.incrementCounter(MetricsConstants.ENDPOINT_BILL_HTTP_PUT);
-        Stopwatch stopwatch = Stopwatch.createStarted();
         if (authHeader != null && authHeader.toLowerCase().startsWith("basic")) {
             String userId = null;
             try {
                 userId = basicAuthentication.authorize(authHeader);
             } catch (IllegalArgumentException illegalArgumentException) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILL_HTTP_PUT, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(illegalArgumentException.getMessage(), HttpStatus.UNAUTHORIZED);
             }
 
@@ -278,74 +385,67 @@ public class BillController {
             try {
                 updatedBill = billService.updateBillByBillId(bill, billId, userId);
             } catch (IllegalArgumentException illegalArgumentException) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILL_HTTP_PUT, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(illegalArgumentException.getMessage(), HttpStatus.UNAUTHORIZED);
             } catch (IllegalStateException illegalState) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILL_HTTP_PUT, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(illegalState.getMessage(), HttpStatus.BAD_REQUEST);
+            } catch (OptimisticLockingFailureException conflict) {
+                return new ResponseEntity("The Bill was changed by another request, please try again.", HttpStatus.CONFLICT);
             } catch (Exception ex) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILL_HTTP_PUT, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(ex.getMessage(), HttpStatus.NOT_FOUND);
             }
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILL_HTTP_PUT, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             return new ResponseEntity(updatedBill, HttpStatus.OK);
         } else {
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILL_HTTP_PUT, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             return new ResponseEntity("Please provide a valid username and password for authentication!", HttpStatus.UNAUTHORIZED);
         }
     }
 
     /**
      * Upon successful authentication, takes in the Multipart File supplied and stores it with its respective bill.
+     * In the async mode the file is only spooled before answering with 202 Accepted, its status can then be polled
+     * through the File's GET API.
      *
      * @param authHeader
      * @param billId
      * @param file
+     * @param async
      * @return
      */
     @PostMapping("/v1/bill/{id}/file")
     @ApiOperation("Stores a new File for the Bill information supplied")
     public ResponseEntity storeNewFile(@RequestHeader(value = HttpHeaders.AUTHORIZATION) String authHeader,
-                                       @PathVariable(value = "id") String billId, @RequestParam("file") MultipartFile file) {
-        statsDClient.incrementCounter(MetricsConstants.ENDPOINT_FILE_HTTP_POST);
-        Stopwatch stopwatch = Stopwatch.createStarted();
+                                       @PathVariable(value = "id") String billId, @RequestParam("file") MultipartFile file,
+                                       @RequestParam(value = "async", defaultValue = "false") boolean async) {
         if (authHeader != null && authHeader.toLowerCase().startsWith("basic")) {
             String userId = null;
             try {
                 userId = basicAuthentication.authorize(authHeader);
             } catch (IllegalArgumentException illegalArgumentException) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_FILE_HTTP_POST, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(illegalArgumentException.getMessage(), HttpStatus.UNAUTHORIZED);
             }
 
             File toBeSavedFile;
             try {
-                toBeSavedFile = billService.createFileForBill(billId, userId, file);
+                if (async) {
+                    toBeSavedFile = billService.createFileForBillAsync(billId, userId, file);
+                } else {
+                    toBeSavedFile = billService.createFileForBill(billId, userId, file);
+                }
             } catch (IllegalArgumentException illegalArgumentException) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_FILE_HTTP_POST, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(illegalArgumentException.getMessage(), HttpStatus.UNAUTHORIZED);
             } catch (StorageException storageException) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_FILE_HTTP_POST, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(storageException.getMessage(), HttpStatus.BAD_REQUEST);
+            } catch (OptimisticLockingFailureException conflict) {
+                return new ResponseEntity("The Bill was changed by another request, please try again.", HttpStatus.CONFLICT);
             } catch (Exception ex) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_FILE_HTTP_POST, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(ex.getMessage(), HttpStatus.NOT_FOUND);
             }
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_FILE_HTTP_POST, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+            if (async) {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setLocation(URI.create("/v1/bill/" + billId + "/file/" + toBeSavedFile.getFileId()));
+                return new ResponseEntity(toBeSavedFile, headers, HttpStatus.ACCEPTED);
+            }
             return new ResponseEntity(toBeSavedFile, HttpStatus.OK);
         } else {
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_FILE_HTTP_POST, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             return new ResponseEntity("Please provide a valid username and password for authentication!", HttpStatus.UNAUTHORIZED);
         }
     }
@@ -362,15 +462,11 @@ public class BillController {
     @ApiOperation("Gets the File details for the Bill stored")
     public ResponseEntity getFileByFileId(@RequestHeader(value = HttpHeaders.AUTHORIZATION) String authHeader,
                                           @PathVariable(value = "billId") String billId, @PathVariable(value = "fileId") String fileId) {
-        statsDClient.incrementCounter(MetricsConstants.ENDPOINT_FILE_HTTP_GET);
-        Stopwatch stopwatch = Stopwatch.createStarted();
         if (authHeader != null && authHeader.toLowerCase().startsWith("basic")) {
             String userId = null;
             try {
                 userId = basicAuthentication.authorize(authHeader);
             } catch (IllegalArgumentException illegalArgumentException) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_FILE_HTTP_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(illegalArgumentException.getMessage(), HttpStatus.UNAUTHORIZED);
             }
 
@@ -378,20 +474,12 @@ public class BillController {
             try {
                 file = billService.getFileForBill(billId, userId, fileId);
             } catch (IllegalArgumentException illegalArgumentException) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_FILE_HTTP_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(illegalArgumentException.getMessage(), HttpStatus.UNAUTHORIZED);
             } catch (Exception ex) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_FILE_HTTP_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(ex.getMessage(), HttpStatus.NOT_FOUND);
             }
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_FILE_HTTP_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             return new ResponseEntity(file, HttpStatus.OK);
         } else {
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_FILE_HTTP_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             return new ResponseEntity("Please provide a valid username and password for authentication!", HttpStatus.UNAUTHORIZED);
         }
     }
@@ -409,35 +497,25 @@ public class BillController {
     @ApiOperation("Gets the File details for the Bill stored")
     public ResponseEntity deleteFileByFileId(@RequestHeader(value = HttpHeaders.AUTHORIZATION) String authHeader,
                                              @PathVariable(value = "billId") String billId, @PathVariable(value = "fileId") String fileId) {
-        statsDClient.incrementCounter(MetricsConstants.ENDPOINT_FILE_HTTP_DELETE);
-        Stopwatch stopwatch = Stopwatch.createStarted();
         if (authHeader != null && authHeader.toLowerCase().startsWith("basic")) {
             String userId = null;
             try {
                 userId = basicAuthentication.authorize(authHeader);
             } catch (IllegalArgumentException illegalArgumentException) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_FILE_HTTP_DELETE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(illegalArgumentException.getMessage(), HttpStatus.UNAUTHORIZED);
             }
 
             try {
                 billService.deleteFileForBill(billId, userId, fileId);
             } catch (IllegalArgumentException illegalArgumentException) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_FILE_HTTP_DELETE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(illegalArgumentException.getMessage(), HttpStatus.UNAUTHORIZED);
+            } catch (OptimisticLockingFailureException conflict) {
+                return new ResponseEntity("The Bill was changed by another request, please try again.", HttpStatus.CONFLICT);
             } catch (Exception ex) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_FILE_HTTP_DELETE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity("The File for provided Bill ID doesn't exist", HttpStatus.NOT_FOUND);
             }
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_FILE_HTTP_DELETE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             return new ResponseEntity(HttpStatus.NO_CONTENT);
         } else {
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_FILE_HTTP_DELETE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             return new ResponseEntity("Please provide a valid username and password for authentication!", HttpStatus.UNAUTHORIZED);
         }
     }
@@ -447,25 +525,24 @@ public class BillController {
      * Each Bill is mapped to its respective User. Basic Auth is done before the bills are fetched for that user.
      *
      * @param authHeader
+     * @param daysNum
      * @return ResponseEntity
      */
     @GetMapping("/v1/bills/due/{daysNum}")
     @ApiOperation("Gets all the bills for the user")
-    public ResponseEntity getBillsDueByUserId(@RequestHeader(value = HttpHeaders.AUTHORIZATION) String authHeader, @PathVariable String daysNum) throws ParseException {
-        statsDClient.incrementCounter(MetricsConstants.ENDPOINT_BILLS_DUE_HTTP_GET);
-        Stopwatch stopwatch = Stopwatch.createStarted();
+    public ResponseEntity getBillsDueByUserId(@RequestHeader(value = HttpHeaders.AUTHORIZATION) String authHeader, @PathVariable String daysNum) {
         if (authHeader != null && authHeader.toLowerCase().startsWith("basic")) {
             String userId = null;
             try {
                 userId = basicAuthentication.authorize(authHeader);
             } catch (IllegalArgumentException illegalArgumentException) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILLS_DUE_HTTP_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(illegalArgumentException.getMessage(), HttpStatus.UNAUTHORIZED);
             }
 
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILLS_DUE_HTTP_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+            //Checked before it is queued, the poller would only drop the message
+            if (!daysNum.matches("\\d{1,4}")) {
+                return new ResponseEntity("The number of days has to be a whole number between 0 and 9999", HttpStatus.BAD_REQUEST);
+            }
 
             if (activeProfile.equals("aws")) {
                 sqsService.enqueueBillsDueOnSqs(daysNum, userId);
@@ -473,9 +550,25 @@ public class BillController {
 
             return new ResponseEntity(HttpStatus.OK);
         } else {
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_BILLS_DUE_HTTP_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             return new ResponseEntity("Please provide a valid username and password for authentication!", HttpStatus.UNAUTHORIZED);
         }
     }
+
+    /**
+     * Serializes the body once, storing the JSON and its ETag in the BillResponseCache before sending it.
+     *
+     * @param userId
+     * @param billId
+     * @param version
+     * @param eTag
+     * @param body
+     * @return ResponseEntity
+     * @throws JsonProcessingException
+     */
+    private ResponseEntity cacheResponse(String userId, String billId, long version, String eTag, Object body)
+            throws JsonProcessingException {
+        byte[] json = objectMapper.writeValueAsBytes(body);
+        billResponseCache.put(userId, billId, version, eTag, json);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+    }
 }
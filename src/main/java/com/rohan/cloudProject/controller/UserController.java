@@ -1,23 +1,21 @@
 package com.rohan.cloudProject.controller;
 
-import com.google.common.base.Stopwatch;
-import com.rohan.cloudProject.configuration.MetricsConstants;
 import com.rohan.cloudProject.model.User;
 import com.rohan.cloudProject.security.BasicAuthentication;
 import com.rohan.cloudProject.service.UserService;
-import com.timgroup.statsd.StatsDClient;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 /**
  * User Controller class for the Spring Boot Application. Defines all the REST APIs.
@@ -41,46 +39,38 @@ public class UserController {
     @Autowired
     private BasicAuthentication basicAuthentication;
 
-    /**
-     * Autowired statsDClient.
-     */
-    @Autowired
-    private StatsDClient statsDClient;
-
     /**
      * GET API to fetch the User's information. The User is authenticated by self created Basic Authentication.
-     * Returns the respective status code as well on the basis of User's authentication.
+     * Returns the respective status code as well on the basis of User's authentication. A request whose If-None-Match
+     * matches the User's ETag gets a 304 Not Modified, without the User being loaded.
      *
      * @param authHeader
+     * @param webRequest
      * @return User
      */
     @RequestMapping(path = "/self", method = RequestMethod.GET)
     @ApiOperation("Gets the User's information provided the User has been successfully authenticated")
-    public ResponseEntity<User> getUserDetails(@RequestHeader(value = HttpHeaders.AUTHORIZATION) String authHeader) {
-        statsDClient.incrementCounter(MetricsConstants.ENDPOINT_USER_HTTP_GET);
-        Stopwatch stopwatch = Stopwatch.createStarted();
+    public ResponseEntity<User> getUserDetails(@RequestHeader(value = HttpHeaders.AUTHORIZATION) String authHeader,
+                                               WebRequest webRequest) {
         if (authHeader != null && authHeader.toLowerCase().startsWith("basic")) {
             String userId = null;
             try {
                 userId = basicAuthentication.authorize(authHeader);
             } catch (IllegalArgumentException illegalArgumentException) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_USER_HTTP_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(illegalArgumentException.getMessage(), HttpStatus.BAD_REQUEST);
             }
 
             if (userId == null) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_USER_HTTP_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity("The credentials are incorrect!", HttpStatus.FORBIDDEN);
             }
+            String eTag = userService.getUserETag(userId);
+            if (eTag != null && webRequest.checkNotModified(eTag)) {
+                return null;
+            }
+
             User user = userService.getUserDetails(userId);
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_USER_HTTP_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             return new ResponseEntity<>(user, HttpStatus.OK);
         } else {
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_USER_HTTP_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             return new ResponseEntity("Please provide a valid username and password for authentication!", HttpStatus.UNAUTHORIZED);
         }
     }
@@ -94,23 +84,15 @@ public class UserController {
     @RequestMapping(method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE)
     @ApiOperation("Stores a new User")
     public ResponseEntity<User> createUser(@Valid @RequestBody User userToBeSaved) {
-        statsDClient.incrementCounter(MetricsConstants.ENDPOINT_USER_HTTP_POST);
-        Stopwatch stopwatch = Stopwatch.createStarted();
         User newUser;
         try {
             newUser = userService.createNewUser(userToBeSaved);
         } catch (IllegalArgumentException ex) {
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_USER_HTTP_POST, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             return new ResponseEntity(ex.getMessage(), HttpStatus.BAD_REQUEST);
         }
         if (newUser == null) {
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_USER_HTTP_POST, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             return new ResponseEntity("The User wasn't stored", HttpStatus.BAD_REQUEST);
         } else {
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_USER_HTTP_POST, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             return new ResponseEntity(newUser, HttpStatus.CREATED);
         }
     }
@@ -124,15 +106,11 @@ public class UserController {
     @RequestMapping(value = "/self", method = RequestMethod.PUT, consumes = MediaType.APPLICATION_JSON_VALUE)
     @ApiOperation("Updates an already existing User")
     public ResponseEntity<User> updateUser(@RequestBody Map<String, Object> fieldsToBeUpdated, @RequestHeader(value = HttpHeaders.AUTHORIZATION) String authHeader) {
-        statsDClient.incrementCounter(MetricsConstants.ENDPOINT_USER_HTTP_PUT);
-        Stopwatch stopwatch = Stopwatch.createStarted();
         if (authHeader != null && authHeader.toLowerCase().startsWith("basic")) {
             String userId = null;
             try {
                 userId = basicAuthentication.authorize(authHeader);
             } catch (IllegalArgumentException illegalArgumentException) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_USER_HTTP_PUT, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(illegalArgumentException.getMessage(), HttpStatus.BAD_REQUEST);
             }
 
@@ -140,26 +118,18 @@ public class UserController {
             try {
                 user = userService.updateUser(fieldsToBeUpdated, userId);
             } catch (IllegalArgumentException e) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_USER_HTTP_PUT, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity(e.getMessage(), HttpStatus.BAD_REQUEST);
             } catch (NullPointerException nullPointerException) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_USER_HTTP_PUT, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity("Enter all the three fields - first_name, last_name and password!", HttpStatus.BAD_REQUEST);
+            } catch (OptimisticLockingFailureException conflict) {
+                return new ResponseEntity("The User was changed by another request, please try again.", HttpStatus.CONFLICT);
             }
 
             if (user == null) {
-                stopwatch.stop();
-                statsDClient.recordExecutionTime(MetricsConstants.TIMER_USER_HTTP_PUT, stopwatch.elapsed(TimeUnit.MILLISECONDS));
                 return new ResponseEntity("Enter all the three fields - first_name, last_name and password!", HttpStatus.BAD_REQUEST);
             }
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_USER_HTTP_PUT, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             return new ResponseEntity<>(user, HttpStatus.OK);
         } else {
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_USER_HTTP_PUT, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             return new ResponseEntity("Please provide Email and Password for Basic Authentication", HttpStatus.UNAUTHORIZED);
         }
     }
@@ -0,0 +1,39 @@
+package com.rohan.cloudProject.controller.advice;
+
+import com.rohan.cloudProject.trace.RequestTrace;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Response Body Advice marking the start of the response writing in the request's trace, and adding the phases timed
+ * so far as a Server-Timing header while the headers can still be written.
+ *
+ * @author rohan_bharti
+ */
+@ControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        RequestTrace trace = RequestTrace.current();
+        if (trace != null) {
+            response.getHeaders().add(SERVER_TIMING_HEADER, trace.toServerTiming());
+            trace.markResponseStart();
+        }
+        return body;
+    }
+}
@@ -0,0 +1,57 @@
+package com.rohan.cloudProject.datasource;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded, time-expiring record of the Users who wrote to the primary database recently. Their reads are kept on the
+ * primary until the replica has had the time to catch up, so a User always reads back what they just wrote.
+ *
+ * @author rohan_bharti
+ */
+@Component
+public class ReadAfterWriteTracker {
+
+    /**
+     * How long the reads stay on the primary after a write, should be above the replica's usual lag
+     */
+    @Value("${spring.datasource.replica.readAfterWriteMillis:5000}")
+    private long readAfterWriteMillis;
+
+    @Value("${spring.datasource.replica.maximumTrackedUsers:100000}")
+    private long maximumTrackedUsers;
+
+    private Cache<String, Boolean> recentWriters;
+
+    @PostConstruct
+    public void init() {
+        recentWriters = CacheBuilder.newBuilder()
+                .maximumSize(maximumTrackedUsers)
+                .expireAfterWrite(readAfterWriteMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Remembers that the User's write has just been committed on the primary.
+     *
+     * @param userId
+     */
+    public void recordWrite(String userId) {
+        recentWriters.put(userId, Boolean.TRUE);
+    }
+
+    /**
+     * Checks if the User wrote to the primary recently enough for the replica to be behind.
+     *
+     * @param userId
+     * @return boolean
+     */
+    public boolean hasRecentWrite(String userId) {
+        return recentWriters.getIfPresent(userId) != null;
+    }
+}
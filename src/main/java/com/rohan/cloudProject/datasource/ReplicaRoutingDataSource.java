@@ -0,0 +1,92 @@
+package com.rohan.cloudProject.datasource;
+
+import com.rohan.cloudProject.configuration.MetricsConstants;
+import com.rohan.cloudProject.service.BillService;
+import com.rohan.cloudProject.trace.RequestTrace;
+import com.timgroup.statsd.StatsDClient;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * DataSource sending the read only transactions of the services to the replica pool, and everything else to the
+ * primary. The read only transactions the repositories open on their own stay on the primary, they are used by the
+ * write paths and the background workers, which have to see the rows they just wrote.
+ * <p>
+ * The writes committed for an authenticated User are tracked, and that User's reads go to the primary until the
+ * replica has caught up. The lookup key is resolved when the first statement is executed, so this DataSource has to
+ * be wrapped in a LazyConnectionDataSourceProxy for the transaction's read only flag to be known by then.
+ *
+ * @author rohan_bharti
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    public static final String REPLICA = "replica";
+
+    private static final String SERVICE_TRANSACTION_PREFIX = BillService.class.getPackage().getName() + ".";
+
+    private final ReadAfterWriteTracker readAfterWriteTracker;
+
+    private final StatsDClient statsDClient;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReadAfterWriteTracker readAfterWriteTracker,
+                                    StatsDClient statsDClient) {
+        this.readAfterWriteTracker = readAfterWriteTracker;
+        this.statsDClient = statsDClient;
+
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(PRIMARY, primary);
+        targetDataSources.put(REPLICA, replica);
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARY;
+        }
+
+        String userId = RequestTrace.getAuthenticatedUserId();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            recordWriteOnCommit(userId);
+            return PRIMARY;
+        }
+
+        String transactionName = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (transactionName == null || !transactionName.startsWith(SERVICE_TRANSACTION_PREFIX)) {
+            return PRIMARY;
+        }
+
+        if (userId != null && readAfterWriteTracker.hasRecentWrite(userId)) {
+            statsDClient.incrementCounter(MetricsConstants.DATABASE_READS_AFTER_WRITE);
+            return PRIMARY;
+        }
+
+        statsDClient.incrementCounter(MetricsConstants.DATABASE_READS_REPLICA);
+        return REPLICA;
+    }
+
+    /**
+     * Tracks the User's write once the current transaction has been committed on the primary.
+     *
+     * @param userId
+     */
+    private void recordWriteOnCommit(String userId) {
+        if (userId == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                readAfterWriteTracker.recordWrite(userId);
+            }
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package com.rohan.cloudProject.filter;
+
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Servlet Filter tagging every request with a correlation id. The id supplied by the caller or the load balancer in the
+ * X-Request-Id header is reused if it is well formed, otherwise a new one is generated. It is put in the logging
+ * context, so that every log line written for the request carries it, and is sent back in the response's header.
+ *
+ * @author rohan_bharti
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdFilter extends OncePerRequestFilter {
+
+    public static final String CORRELATION_ID_HEADER = "X-Request-Id";
+
+    public static final String CORRELATION_ID_KEY = "correlationId";
+
+    private static final Pattern VALID_CORRELATION_ID = Pattern.compile("[A-Za-z0-9._:-]{1,64}");
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String correlationId = getCorrelationId(request);
+        MDC.put(CORRELATION_ID_KEY, correlationId);
+        response.setHeader(CORRELATION_ID_HEADER, correlationId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(CORRELATION_ID_KEY);
+        }
+    }
+
+    /**
+     * Returns the correlation id supplied with the request, or a new one if it is missing or malformed. Malformed ids
+     * are replaced so that nothing the caller sends can break the structure of the log lines.
+     *
+     * @param request
+     * @return String
+     */
+    static String getCorrelationId(HttpServletRequest request) {
+        String correlationId = request.getHeader(CORRELATION_ID_HEADER);
+        if (correlationId != null && VALID_CORRELATION_ID.matcher(correlationId).matches()) {
+            return correlationId;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong());
+    }
+}
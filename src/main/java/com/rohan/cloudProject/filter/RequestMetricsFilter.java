@@ -0,0 +1,134 @@
+package com.rohan.cloudProject.filter;
+
+import com.rohan.cloudProject.configuration.MetricsConstants;
+import com.rohan.cloudProject.controller.advice.ServerTimingAdvice;
+import com.rohan.cloudProject.trace.RequestTrace;
+import com.rohan.cloudProject.trace.SlowRequestRecorder;
+import com.timgroup.statsd.StatsDClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servlet Filter timing every request from the first to the last byte, including the error paths and the response
+ * serialization. The request is counted on the endpoint's counter and timed on the endpoint's timer suffixed by the
+ * response's status class, e.g. timer.bill.http.get.2xx. The endpoint is resolved from the route template and the
+ * HTTP method of the matched handler, so the path variables don't end up in the metric names.
+ * <p>
+ * Every request is also traced by phase, the trace is handed to the slow request flight recorder and sent back as a
+ * Server-Timing header if no body has been written yet.
+ *
+ * @author rohan_bharti
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private static final Map<String, String[]> ENDPOINT_METRICS = new HashMap<>();
+
+    static {
+        addEndpoint("POST", "/v1/bill/", MetricsConstants.ENDPOINT_BILL_HTTP_POST, MetricsConstants.TIMER_BILL_HTTP_POST);
+        addEndpoint("GET", "/v1/bills", MetricsConstants.ENDPOINT_BILLS_HTTP_GET, MetricsConstants.TIMER_BILLS_HTTP_GET);
+        addEndpoint("GET", "/v1/bills/page", MetricsConstants.ENDPOINT_BILLS_PAGE_HTTP_GET, MetricsConstants.TIMER_BILLS_PAGE_HTTP_GET);
+        addEndpoint("GET", "/v1/bills/changes", MetricsConstants.ENDPOINT_BILLS_CHANGES_HTTP_GET, MetricsConstants.TIMER_BILLS_CHANGES_HTTP_GET);
+        addEndpoint("GET", "/v1/bills/stream", MetricsConstants.ENDPOINT_BILLS_STREAM_HTTP_GET, MetricsConstants.TIMER_BILLS_STREAM_HTTP_GET);
+        addEndpoint("GET", "/v1/bills/due/{daysNum}", MetricsConstants.ENDPOINT_BILLS_DUE_HTTP_GET, MetricsConstants.TIMER_BILLS_DUE_HTTP_GET);
+        addEndpoint("GET", "/v1/bill/{id}", MetricsConstants.ENDPOINT_BILL_HTTP_GET, MetricsConstants.TIMER_BILL_HTTP_GET);
+        addEndpoint("PUT", "/v1/bill/{id}", MetricsConstants.ENDPOINT_BILL_HTTP_PUT, MetricsConstants.TIMER_BILL_HTTP_PUT);
+        addEndpoint("DELETE", "/v1/bill/{id}", MetricsConstants.ENDPOINT_BILL_HTTP_DELETE, MetricsConstants.TIMER_BILL_HTTP_DELETE);
+        addEndpoint("POST", "/v1/bill/{id}/file", MetricsConstants.ENDPOINT_FILE_HTTP_POST, MetricsConstants.TIMER_FILE_HTTP_POST);
+        addEndpoint("GET", "/v1/bill/{billId}/file/{fileId}", MetricsConstants.ENDPOINT_FILE_HTTP_GET, MetricsConstants.TIMER_FILE_HTTP_GET);
+        addEndpoint("DELETE", "/v1/bill/{billId}/file/{fileId}", MetricsConstants.ENDPOINT_FILE_HTTP_DELETE, MetricsConstants.TIMER_FILE_HTTP_DELETE);
+        addEndpoint("GET", "/v1/user/self", MetricsConstants.ENDPOINT_USER_HTTP_GET, MetricsConstants.TIMER_USER_HTTP_GET);
+        addEndpoint("PUT", "/v1/user/self", MetricsConstants.ENDPOINT_USER_HTTP_PUT, MetricsConstants.TIMER_USER_HTTP_PUT);
+        addEndpoint("POST", "/v1/user", MetricsConstants.ENDPOINT_USER_HTTP_POST, MetricsConstants.TIMER_USER_HTTP_POST);
+    }
+
+    /**
+     * Autowired statsDClient.
+     */
+    @Autowired
+    private StatsDClient statsDClient;
+
+    /**
+     * Autowired slowRequestRecorder.
+     */
+    @Autowired
+    private SlowRequestRecorder slowRequestRecorder;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestTrace trace = RequestTrace.begin();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+            if (!trace.isServerTimingSent() && !response.isCommitted()) {
+                response.setHeader(ServerTimingAdvice.SERVER_TIMING_HEADER, trace.toServerTiming());
+            }
+        } finally {
+            RequestTrace.end();
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(trace.getElapsedNanos());
+            //An exception escaping the chain is turned into a 500 by the container after this filter returns
+            int status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+            String[] metrics = getEndpointMetrics(request);
+            statsDClient.incrementCounter(metrics[0]);
+            statsDClient.recordExecutionTime(metrics[1] + "." + getStatusClass(status), elapsed);
+
+            Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            slowRequestRecorder.record(trace, request.getMethod(), route == null ? null : route.toString(), status);
+        }
+    }
+
+    /**
+     * Returns the counter and timer names for the request's route template and HTTP method. Routes without their own
+     * constants, like the actuator's, get names built from the route template.
+     *
+     * @param request
+     * @return String[]
+     */
+    static String[] getEndpointMetrics(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern == null) {
+            return new String[]{MetricsConstants.ENDPOINT_UNMAPPED_HTTP, MetricsConstants.TIMER_UNMAPPED_HTTP};
+        }
+
+        String[] metrics = ENDPOINT_METRICS.get(request.getMethod() + " " + pattern);
+        if (metrics == null) {
+            String route = pattern.toString().replaceAll("[^A-Za-z0-9]+", ".").replaceAll("^\\.|\\.$", "");
+            if (route.isEmpty()) {
+                return new String[]{MetricsConstants.ENDPOINT_UNMAPPED_HTTP, MetricsConstants.TIMER_UNMAPPED_HTTP};
+            }
+            String suffix = route + ".http." + request.getMethod().toLowerCase();
+            metrics = new String[]{"endpoint." + suffix, "timer." + suffix};
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns the status class of the HTTP status code, e.g. 2xx for 201.
+     *
+     * @param status
+     * @return String
+     */
+    static String getStatusClass(int status) {
+        return (status / 100) + "xx";
+    }
+
+    private static void addEndpoint(String method, String pattern, String counter, String timer) {
+        ENDPOINT_METRICS.put(method + " " + pattern, new String[]{counter, timer});
+    }
+}
@@ -0,0 +1,267 @@
+package com.rohan.cloudProject.metrics;
+
+import com.timgroup.statsd.ConvenienceMethodProvidingStatsDClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * StatsDClient aggregating the metrics in the process and flushing them to the StatsD server on an interval, packing
+ * as many metrics as fit in every UDP packet. The number of packets sent depends on the number of metrics, not on the
+ * request rate.
+ * <p>
+ * Counters and timers are accumulated in striped LongAdders, so recording never blocks. They are cumulative and only
+ * the flushing thread tracks what has been sent, so no update is lost to a reset racing with a writer. A timer is sent
+ * as its mean with a sample rate of 1/count, which keeps its count and sum right on the server, and its maximum as a
+ * separate aspect.max gauge.
+ *
+ * @author rohan_bharti
+ */
+public class AggregatingStatsDClient extends ConvenienceMethodProvidingStatsDClient {
+
+    private final static Logger logger = LoggerFactory.getLogger(AggregatingStatsDClient.class);
+
+    /**
+     * Largest payload that fits in one Ethernet frame without fragmentation
+     */
+    static final int MAX_PACKET_BYTES = 1432;
+
+    private final String prefix;
+
+    private final InetSocketAddress address;
+
+    private final DatagramSocket socket;
+
+    private final ScheduledExecutorService flusher;
+
+    private final ConcurrentMap<String, CounterAccumulator> counters = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, TimerAccumulator> timers = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, AtomicLong> gauges = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, CounterAccumulator> gaugeDeltas = new ConcurrentHashMap<>();
+
+    private final Queue<String> setEvents = new ConcurrentLinkedQueue<>();
+
+    public AggregatingStatsDClient(String prefix, String hostname, int port, long flushIntervalMillis) {
+        this.prefix = prefix == null || prefix.isEmpty() ? "" : prefix + ".";
+        this.address = new InetSocketAddress(hostname, port);
+        try {
+            this.socket = new DatagramSocket();
+        } catch (SocketException e) {
+            throw new IllegalStateException("The StatsD client socket couldn't be opened", e);
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "statsd-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleAtFixedRate(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void count(String aspect, long delta, double sampleRate) {
+        accumulator(counters, aspect, CounterAccumulator::new).total.add(scale(delta, sampleRate));
+    }
+
+    @Override
+    public void recordExecutionTime(String aspect, long timeInMs, double sampleRate) {
+        TimerAccumulator timer = accumulator(timers, aspect, TimerAccumulator::new);
+        long count = scale(1, sampleRate);
+        timer.count.add(count);
+        timer.total.add(timeInMs * count);
+        timer.max.accumulate(timeInMs);
+    }
+
+    @Override
+    public void recordGaugeValue(String aspect, long value) {
+        accumulator(gauges, aspect, AtomicLong::new).set(value);
+    }
+
+    @Override
+    public void recordGaugeDelta(String aspect, long delta) {
+        accumulator(gaugeDeltas, aspect, CounterAccumulator::new).total.add(delta);
+    }
+
+    @Override
+    public void recordSetEvent(String aspect, String eventName) {
+        setEvents.add(prefix + aspect + ":" + eventName + "|s");
+    }
+
+    /**
+     * Flushes what is left and closes the socket.
+     */
+    @Override
+    public void stop() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        socket.close();
+    }
+
+    /**
+     * Sends everything recorded since the last flush, packed into as few packets as possible.
+     */
+    synchronized void flush() {
+        PacketWriter packetWriter = new PacketWriter();
+
+        for (Map.Entry<String, CounterAccumulator> counter : counters.entrySet()) {
+            long delta = counter.getValue().takeDelta();
+            if (delta != 0) {
+                packetWriter.write(prefix + counter.getKey() + ":" + delta + "|c");
+            }
+        }
+
+        for (Map.Entry<String, TimerAccumulator> timer : timers.entrySet()) {
+            TimerAccumulator accumulator = timer.getValue();
+            long count = accumulator.count.sum();
+            long total = accumulator.total.sum();
+            long max = accumulator.max.getThenReset();
+            long intervalCount = count - accumulator.flushedCount;
+            long intervalTotal = total - accumulator.flushedTotal;
+            accumulator.flushedCount = count;
+            accumulator.flushedTotal = total;
+            if (intervalCount <= 0) {
+                continue;
+            }
+
+            String aspect = prefix + timer.getKey();
+            if (intervalCount == 1) {
+                packetWriter.write(aspect + ":" + intervalTotal + "|ms");
+            } else {
+                String mean = String.format(Locale.ROOT, "%.3f", (double) intervalTotal / intervalCount);
+                String sampleRate = new BigDecimal(1.0 / intervalCount).round(new MathContext(6)).stripTrailingZeros().toPlainString();
+                packetWriter.write(aspect + ":" + mean + "|ms|@" + sampleRate);
+            }
+            packetWriter.write(aspect + ".max:" + max + "|g");
+        }
+
+        for (Map.Entry<String, AtomicLong> gauge : gauges.entrySet()) {
+            packetWriter.write(prefix + gauge.getKey() + ":" + gauge.getValue().get() + "|g");
+        }
+
+        for (Map.Entry<String, CounterAccumulator> gaugeDelta : gaugeDeltas.entrySet()) {
+            long delta = gaugeDelta.getValue().takeDelta();
+            if (delta != 0) {
+                packetWriter.write(prefix + gaugeDelta.getKey() + ":" + (delta > 0 ? "+" : "") + delta + "|g");
+            }
+        }
+
+        String setEvent;
+        while ((setEvent = setEvents.poll()) != null) {
+            packetWriter.write(setEvent);
+        }
+        packetWriter.send();
+    }
+
+    /**
+     * Scales a sampled value back up to the full population it stands for.
+     */
+    /**
+     * Returns the aspect's accumulator, creating it on its first metric. Looked up with get first, as Java 8's
+     * computeIfAbsent locks the bin even when the aspect is present.
+     *
+     * @param accumulators
+     * @param aspect
+     * @param factory
+     * @return T
+     */
+    private static <T> T accumulator(ConcurrentMap<String, T> accumulators, String aspect, Supplier<T> factory) {
+        T accumulator = accumulators.get(aspect);
+        if (accumulator != null) {
+            return accumulator;
+        }
+        return accumulators.computeIfAbsent(aspect, name -> factory.get());
+    }
+
+    private static long scale(long value, double sampleRate) {
+        return sampleRate > 0 && sampleRate < 1 ? Math.round(value / sampleRate) : value;
+    }
+
+    private static class CounterAccumulator {
+
+        private final LongAdder total = new LongAdder();
+
+        /**
+         * Total sent so far, only touched by the flushing thread
+         */
+        private long flushed;
+
+        private long takeDelta() {
+            long current = total.sum();
+            long delta = current - flushed;
+            flushed = current;
+            return delta;
+        }
+    }
+
+    private static class TimerAccumulator {
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder total = new LongAdder();
+
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        private long flushedCount;
+
+        private long flushedTotal;
+    }
+
+    /**
+     * Packs newline separated metrics into packets of at most MAX_PACKET_BYTES.
+     */
+    private class PacketWriter {
+
+        private final StringBuilder packet = new StringBuilder(MAX_PACKET_BYTES);
+
+        private void write(String metric) {
+            if (packet.length() > 0 && packet.length() + 1 + metric.length() > MAX_PACKET_BYTES) {
+                send();
+            }
+            if (packet.length() > 0) {
+                packet.append('\n');
+            }
+            packet.append(metric);
+        }
+
+        private void send() {
+            if (packet.length() == 0) {
+                return;
+            }
+            byte[] payload = packet.toString().getBytes(StandardCharsets.UTF_8);
+            packet.setLength(0);
+            try {
+                socket.send(new DatagramPacket(payload, payload.length, address));
+            } catch (IOException e) {
+                logger.warn("METRICS: Metrics couldn't be sent to the StatsD server: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.rohan.cloudProject.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator Endpoint exposing this instance's latency percentiles of every timer over the sliding windows, at
+ * /actuator/latency and /actuator/latency/{timer}.
+ *
+ * @author rohan_bharti
+ */
+@Component
+@Endpoint(id = "latency")
+public class LatencyEndpoint {
+
+    /**
+     * Autowired latencyHistograms.
+     */
+    @Autowired
+    private LatencyHistograms latencyHistograms;
+
+    /**
+     * Returns the latency summaries of every timer.
+     *
+     * @return Map<String, Map<String, LatencySummary>>
+     */
+    @ReadOperation
+    public Map<String, Map<String, LatencySummary>> latencies() {
+        Map<String, Map<String, LatencySummary>> latencies = new LinkedHashMap<>();
+        for (String timer : latencyHistograms.getTimerNames()) {
+            latencies.put(timer, latencyHistograms.getSummaries(timer));
+        }
+        return latencies;
+    }
+
+    /**
+     * Returns the latency summaries of the timer supplied, or a 404 if it has never been recorded.
+     *
+     * @param timer
+     * @return Map<String, LatencySummary>
+     */
+    @ReadOperation
+    public Map<String, LatencySummary> latency(@Selector String timer) {
+        return latencyHistograms.getSummaries(timer);
+    }
+}
@@ -0,0 +1,141 @@
+package com.rohan.cloudProject.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps a rolling HdrHistogram of every timer recorded on this instance, so tail latencies can be looked at per box
+ * instead of through the aggregated CloudWatch metrics. The values are recorded lock-free and rotated into fixed slots,
+ * a sliding window is the sum of its most recent slots.
+ *
+ * @author rohan_bharti
+ */
+@Component
+public class LatencyHistograms {
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    /**
+     * Length of one slot of the sliding windows
+     */
+    @Value("${metrics.histograms.slotMillis:15000}")
+    private long slotMillis;
+
+    /**
+     * Lengths of the sliding windows, in minutes
+     */
+    @Value("${metrics.histograms.windowsMinutes:1,5,15}")
+    private int[] windowsMinutes;
+
+    private final ConcurrentMap<String, TimerHistogram> timers = new ConcurrentHashMap<>();
+
+    private int slotCount;
+
+    @PostConstruct
+    public void init() {
+        long longestWindowMillis = Arrays.stream(windowsMinutes).max().orElse(1) * 60000L;
+        slotCount = (int) Math.max(1, longestWindowMillis / slotMillis);
+    }
+
+    /**
+     * Records the execution time of the timer supplied.
+     *
+     * @param timer
+     * @param timeInMs
+     */
+    public void record(String timer, long timeInMs) {
+        //Looked up with get first, as Java 8's computeIfAbsent locks the bin even when the timer is present
+        TimerHistogram timerHistogram = timers.get(timer);
+        if (timerHistogram == null) {
+            timerHistogram = timers.computeIfAbsent(timer, name -> new TimerHistogram(slotCount));
+        }
+        timerHistogram.recorder.recordValue(Math.max(timeInMs, 0));
+    }
+
+    /**
+     * Closes the current slot of every timer and starts a new one, dropping the oldest.
+     */
+    @Scheduled(fixedRateString = "${metrics.histograms.slotMillis:15000}")
+    public void rotate() {
+        for (TimerHistogram timerHistogram : timers.values()) {
+            timerHistogram.rotate();
+        }
+    }
+
+    /**
+     * Returns the names of the timers recorded so far.
+     *
+     * @return Set<String>
+     */
+    public Set<String> getTimerNames() {
+        return new TreeSet<>(timers.keySet());
+    }
+
+    /**
+     * Returns the latency summary of the timer over every sliding window, keyed by the window's length, e.g. "5m".
+     * The slot currently being recorded is not part of the windows. Returns null if the timer has never been recorded.
+     *
+     * @param timer
+     * @return Map<String, LatencySummary>
+     */
+    public Map<String, LatencySummary> getSummaries(String timer) {
+        TimerHistogram timerHistogram = timers.get(timer);
+        if (timerHistogram == null) {
+            return null;
+        }
+
+        Map<String, LatencySummary> summaries = new LinkedHashMap<>();
+        for (int windowMinutes : windowsMinutes) {
+            int windowSlots = (int) Math.max(1, Math.min(slotCount, windowMinutes * 60000L / slotMillis));
+            summaries.put(windowMinutes + "m", new LatencySummary(timerHistogram.getWindow(windowSlots)));
+        }
+        return summaries;
+    }
+
+    private static class TimerHistogram {
+
+        private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+
+        /**
+         * Ring of the closed slots, an empty slot is kept as null
+         */
+        private final Histogram[] slots;
+
+        private int current;
+
+        private TimerHistogram(int slotCount) {
+            slots = new Histogram[slotCount];
+        }
+
+        private void rotate() {
+            Histogram interval = recorder.getIntervalHistogram();
+            synchronized (this) {
+                current = (current + 1) % slots.length;
+                slots[current] = interval.getTotalCount() == 0 ? null : interval;
+            }
+        }
+
+        private synchronized Histogram getWindow(int windowSlots) {
+            Histogram window = new Histogram(SIGNIFICANT_DIGITS);
+            for (int i = 0; i < windowSlots; i++) {
+                Histogram slot = slots[(current - i + slots.length) % slots.length];
+                if (slot != null) {
+                    window.add(slot);
+                }
+            }
+            return window;
+        }
+    }
+}
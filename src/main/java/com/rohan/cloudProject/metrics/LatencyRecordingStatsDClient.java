@@ -0,0 +1,53 @@
+package com.rohan.cloudProject.metrics;
+
+import com.timgroup.statsd.ConvenienceMethodProvidingStatsDClient;
+import com.timgroup.statsd.StatsDClient;
+
+/**
+ * StatsDClient decorator recording every execution time into the instance's LatencyHistograms before handing it to
+ * the StatsDClient it wraps.
+ *
+ * @author rohan_bharti
+ */
+public class LatencyRecordingStatsDClient extends ConvenienceMethodProvidingStatsDClient {
+
+    private final StatsDClient delegate;
+
+    private final LatencyHistograms latencyHistograms;
+
+    public LatencyRecordingStatsDClient(StatsDClient delegate, LatencyHistograms latencyHistograms) {
+        this.delegate = delegate;
+        this.latencyHistograms = latencyHistograms;
+    }
+
+    @Override
+    public void recordExecutionTime(String aspect, long timeInMs, double sampleRate) {
+        latencyHistograms.record(aspect, timeInMs);
+        delegate.recordExecutionTime(aspect, timeInMs, sampleRate);
+    }
+
+    @Override
+    public void count(String aspect, long delta, double sampleRate) {
+        delegate.count(aspect, delta, sampleRate);
+    }
+
+    @Override
+    public void recordGaugeValue(String aspect, long value) {
+        delegate.recordGaugeValue(aspect, value);
+    }
+
+    @Override
+    public void recordGaugeDelta(String aspect, long delta) {
+        delegate.recordGaugeDelta(aspect, delta);
+    }
+
+    @Override
+    public void recordSetEvent(String aspect, String eventName) {
+        delegate.recordSetEvent(aspect, eventName);
+    }
+
+    @Override
+    public void stop() {
+        delegate.stop();
+    }
+}
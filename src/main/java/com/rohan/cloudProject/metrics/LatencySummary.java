@@ -0,0 +1,34 @@
+package com.rohan.cloudProject.metrics;
+
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency percentiles of a timer over one sliding window, in milliseconds.
+ *
+ * @author rohan_bharti
+ */
+@Getter
+public class LatencySummary {
+
+    private final long count;
+
+    private final long p50;
+
+    private final long p90;
+
+    private final long p99;
+
+    private final long p999;
+
+    private final long max;
+
+    public LatencySummary(Histogram histogram) {
+        count = histogram.getTotalCount();
+        p50 = histogram.getValueAtPercentile(50);
+        p90 = histogram.getValueAtPercentile(90);
+        p99 = histogram.getValueAtPercentile(99);
+        p999 = histogram.getValueAtPercentile(99.9);
+        max = histogram.getMaxValue();
+    }
+}
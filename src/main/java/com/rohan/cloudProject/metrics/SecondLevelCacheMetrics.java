@@ -0,0 +1,75 @@
+package com.rohan.cloudProject.metrics;
+
+import com.rohan.cloudProject.configuration.MetricsConstants;
+import com.timgroup.statsd.StatsDClient;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reports the hits and misses of every region of Hibernate's second level cache to StatsD, e.g.
+ * database.cache.users.hit, along with the hit ratio over the last period as a percentage gauge.
+ *
+ * @author rohan_bharti
+ */
+@Component
+public class SecondLevelCacheMetrics {
+
+    /**
+     * Autowired entityManagerFactory.
+     */
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Autowired statsDClient.
+     */
+    @Autowired
+    private StatsDClient statsDClient;
+
+    private Statistics statistics;
+
+    /**
+     * Hit and miss counts of every region at the last report, Hibernate only keeps the running totals
+     */
+    private final Map<String, long[]> reportedCounts = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Sends the hits and misses of every region since the last report.
+     */
+    @Scheduled(fixedRateString = "${metrics.secondLevelCache.reportMillis:10000}")
+    public void report() {
+        if (!statistics.isStatisticsEnabled()) {
+            return;
+        }
+
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+            long[] reported = reportedCounts.computeIfAbsent(region, name -> new long[2]);
+            long hits = regionStatistics.getHitCount() - reported[0];
+            long misses = regionStatistics.getMissCount() - reported[1];
+            reported[0] += hits;
+            reported[1] += misses;
+
+            String aspect = MetricsConstants.DATABASE_CACHE + "." + region;
+            statsDClient.count(aspect + ".hit", hits);
+            statsDClient.count(aspect + ".miss", misses);
+            if (hits + misses > 0) {
+                statsDClient.recordGaugeValue(aspect + ".hitRatio", hits * 100 / (hits + misses));
+            }
+        }
+    }
+}
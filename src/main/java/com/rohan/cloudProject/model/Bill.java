@@ -1,15 +1,18 @@
 package com.rohan.cloudProject.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.hibernate.annotations.*;
+import org.hibernate.annotations.Cache;
 
 import javax.persistence.CascadeType;
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.Table;
 import javax.persistence.*;
 import javax.validation.constraints.DecimalMin;
@@ -30,7 +33,12 @@ import java.util.Set;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "bills")
+@Table(name = "bills", indexes = {
+        @Index(name = "idx_bills_user_id", columnList = "user_id"),
+        @Index(name = "idx_bills_user_created", columnList = "user_id, bill_created, bill_id"),
+        @Index(name = "idx_bills_user_due", columnList = "user_id, due_date"),
+        @Index(name = "idx_bills_user_updated", columnList = "user_id, bill_updated")
+})
 public class Bill {
 
     /**
@@ -40,6 +48,7 @@ public class Bill {
     @GeneratedValue(generator = "uuidGenerator")
     @GenericGenerator(name = "uuidGenerator", strategy = "org.hibernate.id.UUIDGenerator")
     @JsonProperty(value = "id", access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "bill_id")
     private String billId;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
@@ -60,10 +69,12 @@ public class Bill {
 
     @JsonProperty(value = "created_ts", access = JsonProperty.Access.READ_ONLY)
     @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "bill_created")
     private Date billCreated;
 
     @JsonProperty(value = "updated_ts", access = JsonProperty.Access.READ_ONLY)
     @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "bill_updated")
     private Date billUpdated;
 
     @JsonProperty(value = "vendor")
@@ -80,6 +91,7 @@ public class Bill {
     @Temporal(TemporalType.TIMESTAMP)
     @JsonFormat(pattern = "yyyy-MM-dd", timezone = "UTC")
     @NotNull
+    @Column(name = "due_date")
     private Date dueDate;
 
     @JsonProperty(value = "amount_due")
@@ -90,6 +102,8 @@ public class Bill {
     @JsonProperty(value = "categories")
     @NotNull
     @ElementCollection
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "billCategories")
     private Set<String> categories;
 
     @Enumerated(EnumType.STRING)
@@ -97,6 +111,15 @@ public class Bill {
     @NotNull
     private PayStatus payStatus;
 
+    /**
+     * Incremented on every change to the Bill or to its attached File, the ETags of the bills are derived from it.
+     * Existing rows start at 0 when the column is added.
+     */
+    @Version
+    @ColumnDefault("0")
+    @JsonIgnore
+    private Long version;
+
     public void setUserId() {
         userId = user.getId();
     }
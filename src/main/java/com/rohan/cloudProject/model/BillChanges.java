@@ -0,0 +1,31 @@
+package com.rohan.cloudProject.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Helper class for the Bill change feed. Holds the bills created or updated and the ids of the bills deleted since
+ * the token supplied, along with the token to fetch the next changes with.
+ *
+ * @author rohan_bharti
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillChanges {
+
+    @JsonProperty(value = "updated")
+    private List<Bill> updated;
+
+    @JsonProperty(value = "deleted")
+    private List<String> deleted;
+
+    @JsonProperty(value = "next_since")
+    private String nextSince;
+}
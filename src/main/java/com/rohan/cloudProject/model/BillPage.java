@@ -0,0 +1,28 @@
+package com.rohan.cloudProject.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Helper class for the paginated Bill listing. Holds one page of bills and the cursor to fetch the next page with,
+ * which is null on the last page.
+ *
+ * @author rohan_bharti
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillPage {
+
+    @JsonProperty(value = "bills")
+    private List<Bill> bills;
+
+    @JsonProperty(value = "next_cursor")
+    private String nextCursor;
+}
@@ -0,0 +1,44 @@
+package com.rohan.cloudProject.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Bill Tombstone Entity (Model) class for the Spring Boot Application. Records the deletion of a bill so it can be
+ * reported by the change feed. Uses LomBok for getters, setters and constructor initialization.
+ *
+ * @author rohan_bharti
+ */
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "bill_tombstones", indexes = {
+        @Index(name = "idx_bill_tombstones_user_deleted", columnList = "user_id, deleted")
+})
+public class BillTombstone {
+
+    /**
+     * Id of the deleted bill.
+     */
+    @Id
+    @Column(name = "bill_id")
+    private String billId;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    /**
+     * Stores the Java Date Object in the Timestamp form in the database.
+     */
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "deleted", nullable = false)
+    private Date deleted;
+}
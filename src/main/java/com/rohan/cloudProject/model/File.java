@@ -6,6 +6,8 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
@@ -25,6 +27,8 @@ import java.util.Date;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "file")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "files")
 public class File {
 
     /**
@@ -63,4 +67,11 @@ public class File {
 
     @JsonProperty(value = "MD5_Hash", access = JsonProperty.Access.WRITE_ONLY)
     private String md5Hash;
+
+    /**
+     * Pending while an asynchronous upload is being stored, then stored or failed.
+     */
+    @Enumerated(EnumType.STRING)
+    @JsonProperty(value = "status", access = JsonProperty.Access.READ_ONLY)
+    private FileStatus status;
 }
@@ -0,0 +1,10 @@
+package com.rohan.cloudProject.model;
+
+/**
+ * Helper enum for File Model class
+ *
+ * @author rohan_bharti
+ */
+public enum FileStatus {
+    pending, stored, failed
+}
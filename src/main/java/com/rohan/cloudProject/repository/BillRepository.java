@@ -1,8 +1,23 @@
 package com.rohan.cloudProject.repository;
 
 import com.rohan.cloudProject.model.Bill;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Bill Repository interface for the Spring Boot Application.
@@ -11,4 +26,123 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface BillRepository extends JpaRepository<Bill, String> {
+
+    /**
+     * Fetches all the bills owned by the User, with their categories and attached file loaded in the same statement.
+     *
+     * @param userId
+     * @return List<Bill>
+     */
+    @EntityGraph(attributePaths = {"categories", "billFile"})
+    @Query("select distinct b from Bill b where b.user.id = :userId")
+    List<Bill> findAllByUserId(@Param("userId") String userId);
+
+    /**
+     * Fetches the bill with its categories and attached file loaded in the same statement. The owner is left as a
+     * proxy, its id is enough for the callers to tell a bill which doesn't exist apart from one which isn't theirs.
+     *
+     * @param billId
+     * @return Optional<Bill>
+     */
+    @EntityGraph(attributePaths = {"categories", "billFile"})
+    @Query("select b from Bill b where b.billId = :billId")
+    Optional<Bill> findWithFileByBillId(@Param("billId") String billId);
+
+    /**
+     * Fetches the bill and locks its row until the end of the transaction, for the changes made to it. Concurrent
+     * changes to the bill wait for the lock instead of failing on its version.
+     *
+     * @param billId
+     * @return Optional<Bill>
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Bill b where b.billId = :billId")
+    Optional<Bill> findForUpdateByBillId(@Param("billId") String billId);
+
+    /**
+     * Fetches the first page of the User's bills, ordered by creation time and bill id.
+     *
+     * @param userId
+     * @param pageable
+     * @return List<Bill>
+     */
+    @EntityGraph(attributePaths = {"billFile"})
+    @Query("select b from Bill b where b.user.id = :userId order by b.billCreated asc, b.billId asc")
+    List<Bill> findPageByUserId(@Param("userId") String userId, Pageable pageable);
+
+    /**
+     * Fetches the page of the User's bills which come right after the (billCreated, billId) keyset supplied.
+     *
+     * @param userId
+     * @param billCreated
+     * @param billId
+     * @param pageable
+     * @return List<Bill>
+     */
+    @EntityGraph(attributePaths = {"billFile"})
+    @Query("select b from Bill b where b.user.id = :userId and (b.billCreated > :billCreated or " +
+            "(b.billCreated = :billCreated and b.billId > :billId)) order by b.billCreated asc, b.billId asc")
+    List<Bill> findPageByUserIdAfter(@Param("userId") String userId, @Param("billCreated") Date billCreated,
+                                     @Param("billId") String billId, Pageable pageable);
+
+    /**
+     * Fetches the bills owned by the User which are due within the window supplied.
+     *
+     * @param userId
+     * @param dueFrom
+     * @param dueTo
+     * @return List<Bill>
+     */
+    @EntityGraph(attributePaths = {"billFile"})
+    @Query("select b from Bill b where b.user.id = :userId and b.dueDate between :dueFrom and :dueTo")
+    List<Bill> findAllDueByUserId(@Param("userId") String userId, @Param("dueFrom") Date dueFrom,
+                                  @Param("dueTo") Date dueTo);
+
+    /**
+     * Streams all the bills owned by the User, in the same order as the paginated queries. Has to be consumed inside
+     * a transaction and closed afterwards.
+     *
+     * @param userId
+     * @return Stream<Bill>
+     */
+    @QueryHints(value = @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "50"))
+    @Query("select b from Bill b left join fetch b.billFile left join fetch b.categories where b.user.id = :userId " +
+            "order by b.billCreated asc, b.billId asc")
+    Stream<Bill> streamAllByUserId(@Param("userId") String userId);
+
+    /**
+     * Fetches the User's bills updated after the first time supplied and up to the second one, with their categories
+     * and attached file loaded in the same statement. Backed by the (user_id, bill_updated) index.
+     *
+     * @param userId
+     * @param updatedAfter
+     * @param updatedUntil
+     * @return List<Bill>
+     */
+    @EntityGraph(attributePaths = {"categories", "billFile"})
+    @Query("select distinct b from Bill b where b.user.id = :userId and b.billUpdated > :updatedAfter " +
+            "and b.billUpdated <= :updatedUntil")
+    List<Bill> findAllUpdatedByUserId(@Param("userId") String userId, @Param("updatedAfter") Date updatedAfter,
+                                      @Param("updatedUntil") Date updatedUntil);
+
+    /**
+     * Fetches the number of bills owned by the User, the sum of their versions and their latest update time, in a
+     * single aggregate query. Any change to the User's bills changes at least one of them.
+     *
+     * @param userId
+     * @return List<Object[]> holding the single row
+     */
+    @Query("select count(b), coalesce(sum(b.version), 0), max(b.billUpdated) from Bill b where b.user.id = :userId")
+    List<Object[]> findVersionSummaryByUserId(@Param("userId") String userId);
+
+    /**
+     * Increments the bill's version and sets its update time, for the changes made to its attached File only.
+     *
+     * @param billId
+     * @param billUpdated
+     */
+    @Modifying
+    @Transactional
+    @Query("update Bill b set b.version = b.version + 1, b.billUpdated = :billUpdated where b.billId = :billId")
+    void markUpdated(@Param("billId") String billId, @Param("billUpdated") Date billUpdated);
 }
@@ -0,0 +1,46 @@
+package com.rohan.cloudProject.repository;
+
+import com.rohan.cloudProject.model.BillTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Bill Tombstone Repository interface for the Spring Boot Application.
+ *
+ * @author rohan_bharti
+ */
+@Repository
+public interface BillTombstoneRepository extends JpaRepository<BillTombstone, String> {
+
+    /**
+     * Fetches the ids of the User's bills deleted after the first time supplied and up to the second one. Backed by
+     * the (user_id, deleted) index.
+     *
+     * @param userId
+     * @param deletedAfter
+     * @param deletedUntil
+     * @return List<String>
+     */
+    @Query("select t.billId from BillTombstone t where t.userId = :userId and t.deleted > :deletedAfter " +
+            "and t.deleted <= :deletedUntil")
+    List<String> findDeletedBillIds(@Param("userId") String userId, @Param("deletedAfter") Date deletedAfter,
+                                    @Param("deletedUntil") Date deletedUntil);
+
+    /**
+     * Deletes the tombstones older than the time supplied.
+     *
+     * @param deletedBefore
+     * @return int
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from BillTombstone t where t.deleted < :deletedBefore")
+    int deleteAllDeletedBefore(@Param("deletedBefore") Date deletedBefore);
+}
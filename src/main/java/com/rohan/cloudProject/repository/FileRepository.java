@@ -1,8 +1,16 @@
 package com.rohan.cloudProject.repository;
 
 import com.rohan.cloudProject.model.File;
+import com.rohan.cloudProject.model.FileStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
 
 /**
  * File Repository interface for the Spring Boot Application.
@@ -11,4 +19,50 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface FileRepository extends JpaRepository<File, String> {
+
+    /**
+     * Records the details of the stored file and the status supplied on the File, only if it is still pending.
+     *
+     * @param fileId
+     * @param fileName
+     * @param storageUrl
+     * @param md5Hash
+     * @param fileSize
+     * @param uploadDate
+     * @param status
+     * @return int the number of Files updated
+     */
+    @Modifying
+    @Transactional
+    @Query("update File f set f.fileName = :fileName, f.storageUrl = :storageUrl, f.md5Hash = :md5Hash, " +
+            "f.fileSize = :fileSize, f.uploadDate = :uploadDate, f.status = :status " +
+            "where f.fileId = :fileId and f.status = 'pending'")
+    int updatePendingFile(@Param("fileId") String fileId, @Param("fileName") String fileName,
+                          @Param("storageUrl") String storageUrl, @Param("md5Hash") String md5Hash,
+                          @Param("fileSize") Long fileSize, @Param("uploadDate") Date uploadDate,
+                          @Param("status") FileStatus status);
+
+    /**
+     * Sets the File's status, only if it is still pending.
+     *
+     * @param fileId
+     * @param status
+     * @return int the number of Files updated
+     */
+    @Modifying
+    @Transactional
+    @Query("update File f set f.status = :status " +
+            "where f.fileId = :fileId and f.status = 'pending'")
+    int updatePendingFileStatus(@Param("fileId") String fileId, @Param("status") FileStatus status);
+
+    /**
+     * Fetches the pending Files whose bill hasn't been updated since the time supplied. The bill is updated when the
+     * pending File is attached to it.
+     *
+     * @param updatedBefore
+     * @return List<File>
+     */
+    @Query("select f from Bill b join b.billFile f where f.status = 'pending' " +
+            "and b.billUpdated < :updatedBefore")
+    List<File> findAllPendingUpdatedBefore(@Param("updatedBefore") Date updatedBefore);
 }
@@ -2,8 +2,14 @@ package com.rohan.cloudProject.repository;
 
 import com.rohan.cloudProject.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
 /**
  * User Repository interface for the Spring Boot Application.
  *
@@ -11,4 +17,40 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface UserRepository extends JpaRepository<User, String> {
+
+    /**
+     * Fetches the User by its email address. Backed by the unique index on the email column.
+     *
+     * @param email
+     * @return Optional<User>
+     */
+    Optional<User> findByEmail(String email);
+
+    /**
+     * Checks if a User with the email address exists. Backed by the unique index on the email column.
+     *
+     * @param email
+     * @return boolean
+     */
+    boolean existsByEmail(String email);
+
+    /**
+     * Fetches the User from the database, bypassing the second level cache, and locks its row until the end of the
+     * transaction, for the changes made to it.
+     *
+     * @param id
+     * @return Optional<User>
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from User u where u.id = :id")
+    Optional<User> findForUpdateById(@Param("id") String id);
+
+    /**
+     * Fetches the User's version alone, without loading the User.
+     *
+     * @param id
+     * @return Optional<Long>
+     */
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(@Param("id") String id);
 }
@@ -3,6 +3,9 @@ package com.rohan.cloudProject.security;
 import com.rohan.cloudProject.model.User;
 import com.rohan.cloudProject.repository.UserRepository;
 import com.rohan.cloudProject.service.UserService;
+import com.rohan.cloudProject.trace.AuthorizationEvent;
+import com.rohan.cloudProject.trace.FlightEvents;
+import com.rohan.cloudProject.trace.RequestTrace;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,8 +15,8 @@ import org.springframework.stereotype.Service;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Class for Custom Basic Authentication.
@@ -31,6 +34,17 @@ public class BasicAuthentication {
     @Autowired
     private UserRepository userRepository;
 
+    /**
+     * Autowired verifiedCredentialCache.
+     */
+    @Autowired
+    private VerifiedCredentialCache verifiedCredentialCache;
+
+    /**
+     * BCryptPasswordEncoder is thread safe, so a single instance is shared by all the requests.
+     */
+    private final BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder();
+
     /**
      * Checks if the Username and Password values passed in the Authorization header
      * exist in the database or not.
@@ -39,56 +53,74 @@ public class BasicAuthentication {
      * @return userId
      */
     public String authorize(String authHeader) throws IllegalArgumentException {
-        Map<String, String> credentials = getCredentials(authHeader);
-        String email = credentials.get("email");
-        String password = credentials.get("password");
+        AuthorizationEvent event = FlightEvents.authorization();
+        event.begin();
+        try (RequestTrace.Phase phase = RequestTrace.phase(RequestTrace.PHASE_AUTH)) {
+            String verifiedUserId = verifiedCredentialCache.getVerifiedUserId(authHeader);
+            if (verifiedUserId != null) {
+                event.setCached(true);
+                return authorized(event, verifiedUserId);
+            }
 
-        List<User> users = userRepository.findAll();
+            long generation = verifiedCredentialCache.currentGeneration();
+            Map<String, String> credentials = getCredentials(authHeader);
+            String email = credentials.get("email");
+            String password = credentials.get("password");
 
-        boolean userExists = false;
-        for (User user : users) {
-            if (user.getEmail().equals(email)) {
-                userExists = true;
+            Optional<User> existingUser = userRepository.findByEmail(email);
+            if (!existingUser.isPresent()) {
+                event.setOutcome(FlightEvents.OUTCOME_REJECTED);
+                throw new IllegalArgumentException("The Email ID does not exist.");
             }
-        }
+            User user = existingUser.get();
 
-        if (!userExists) {
-            throw new IllegalArgumentException("The Email ID does not exist.");
-        }
-
-        int count = 0;
-        for (User user : users) {
-            if (user.getEmail().equals(email) && passwordMatch(password, user.getPassword())) {
-                return user.getId();
-            } else if (count == users.size() - 1) {
+            if (!passwordMatch(password, user.getPassword())) {
+                event.setUserId(user.getId());
+                event.setOutcome(FlightEvents.OUTCOME_REJECTED);
                 throw new IllegalArgumentException("The password entered is incorrect.");
-            } else {
-                count++;
-                continue;
             }
+
+            verifiedCredentialCache.putVerified(authHeader, user.getId(), generation);
+            return authorized(event, user.getId());
+        } finally {
+            event.commit();
         }
-        return null;
     }
 
     /**
-     * Helper function to check if the plainPassword and encryptedPassword supplied match.
+     * Helper function to record the authorized User on the request's trace and the Authorization event.
+     *
+     * @param event
+     * @param userId
+     * @return userId
+     */
+    private String authorized(AuthorizationEvent event, String userId) {
+        RequestTrace.setAuthenticatedUserId(userId);
+        event.setUserId(userId);
+        event.setOutcome(FlightEvents.OUTCOME_SUCCESS);
+        return userId;
+    }
+
+    /**
+     * Helper function to check if the plainPassword and encryptedPassword supplied match. Package-private for the
+     * benchmarks.
      *
      * @param plainPassword
      * @param encryptedPassword
      * @return Boolean
      */
-    private boolean passwordMatch(String plainPassword, String encryptedPassword) {
-        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder();
+    boolean passwordMatch(String plainPassword, String encryptedPassword) {
         return bcrypt.matches(plainPassword, encryptedPassword);
     }
 
     /**
-     * Takes in the Authorization Header and strips it to get a Map of Username and Password.
+     * Takes in the Authorization Header and strips it to get a Map of Username and Password. Package-private for the
+     * benchmarks.
      *
      * @param authHeader
      * @return Map<String, String>
      */
-    private Map<String, String> getCredentials(String authHeader) {
+    Map<String, String> getCredentials(String authHeader) {
         Map<String, String> credentials = new HashMap<>();
         String base64Token = authHeader.substring("Basic".length()).trim();
         byte[] decodedCredentials = Base64.getDecoder().decode(base64Token);
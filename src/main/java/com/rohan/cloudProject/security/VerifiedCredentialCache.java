@@ -0,0 +1,153 @@
+package com.rohan.cloudProject.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.rohan.cloudProject.configuration.MetricsConstants;
+import com.timgroup.statsd.StatsDClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, time-expiring cache of successfully verified Basic Authentication headers. Saves the BCrypt compare on
+ * repeated requests with the same credentials. The raw header is never stored, only a salted SHA-256 digest of it
+ * mapped to the User's id.
+ * <p>
+ * A credential is only stored if no User was invalidated since its verification began. Otherwise a request which
+ * verified the old password while it was being changed could store it after the invalidation, and keep it working.
+ *
+ * @author rohan_bharti
+ */
+@Component
+public class VerifiedCredentialCache {
+
+    /**
+     * Autowired statsDClient.
+     */
+    @Autowired
+    private StatsDClient statsDClient;
+
+    @Value("${auth.cache.maximumSize:10000}")
+    private long maximumSize;
+
+    @Value("${auth.cache.expireAfterWriteSeconds:300}")
+    private long expireAfterWriteSeconds;
+
+    private Cache<String, String> verifiedCredentials;
+
+    /**
+     * Number of invalidations so far
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Per process salt, so the digests are useless outside this instance.
+     */
+    private final byte[] salt = new byte[16];
+
+    @PostConstruct
+    public void init() {
+        new SecureRandom().nextBytes(salt);
+        verifiedCredentials = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Returns the User's id if the Authorization header supplied has already been verified, null otherwise.
+     *
+     * @param authHeader
+     * @return userId
+     */
+    public String getVerifiedUserId(String authHeader) {
+        String userId = verifiedCredentials.getIfPresent(digest(authHeader));
+        if (userId != null) {
+            statsDClient.incrementCounter(MetricsConstants.AUTH_CACHE_HIT);
+        } else {
+            statsDClient.incrementCounter(MetricsConstants.AUTH_CACHE_MISS);
+        }
+        return userId;
+    }
+
+    /**
+     * Returns the current generation, which has to be read before the User's password is loaded for verification.
+     *
+     * @return long
+     */
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Stores the successfully verified Authorization header against the User's id, unless a User has been invalidated
+     * since the generation supplied was read.
+     *
+     * @param authHeader
+     * @param userId
+     * @param verifiedGeneration taken by {@link #currentGeneration()} before the User's password was loaded
+     */
+    public void putVerified(String authHeader, String userId, long verifiedGeneration) {
+        String digest = digest(authHeader);
+        verifiedCredentials.put(digest, userId);
+        //Checked after storing, an invalidation racing with the put either removes the entry or is seen here
+        if (generation.get() != verifiedGeneration) {
+            verifiedCredentials.invalidate(digest);
+        }
+    }
+
+    /**
+     * Removes every verified header for the User. Has to be called whenever the User's password changes, deferred until
+     * the change is committed if a transaction is active.
+     *
+     * @param userId
+     */
+    public void invalidateUser(String userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    removeUser(userId);
+                }
+            });
+        } else {
+            removeUser(userId);
+        }
+    }
+
+    /**
+     * Removes all the verified headers.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        verifiedCredentials.invalidateAll();
+    }
+
+    private void removeUser(String userId) {
+        generation.incrementAndGet();
+        verifiedCredentials.asMap().values().removeIf(userId::equals);
+    }
+
+    /**
+     * Helper function to compute the salted digest of the Authorization header.
+     *
+     * @param authHeader
+     * @return String
+     */
+    private String digest(String authHeader) {
+        return Hashing.sha256().newHasher()
+                .putBytes(salt)
+                .putString(authHeader, StandardCharsets.UTF_8)
+                .hash()
+                .toString();
+    }
+}
@@ -1,27 +1,49 @@
 package com.rohan.cloudProject.service;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.hash.Hashing;
+import com.rohan.cloudProject.cache.BillResponseCache;
 import com.rohan.cloudProject.configuration.MetricsConstants;
 import com.rohan.cloudProject.model.Bill;
+import com.rohan.cloudProject.model.BillChanges;
+import com.rohan.cloudProject.model.BillPage;
+import com.rohan.cloudProject.model.BillTombstone;
 import com.rohan.cloudProject.model.File;
+import com.rohan.cloudProject.model.FileStatus;
 import com.rohan.cloudProject.model.exception.StorageException;
 import com.rohan.cloudProject.repository.BillRepository;
+import com.rohan.cloudProject.repository.BillTombstoneRepository;
 import com.timgroup.statsd.StatsDClient;
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Bill Service Layer Class for the Spring Boot Application.
@@ -36,21 +58,50 @@ public class BillService {
     @Autowired
     private BillRepository billRepository;
 
+    @Autowired
+    private BillTombstoneRepository billTombstoneRepository;
+
     @Autowired
     private FileService fileService;
 
+    @Autowired
+    private BillResponseCache billResponseCache;
+
     @Value("${spring.profiles.active}")
     private String activeProfile;
 
     @Value("${domain.name}")
     private String domainName;
 
+    @Value("${bills.page.defaultSize:20}")
+    private int defaultPageSize;
+
+    @Value("${bills.page.maxSize:100}")
+    private int maxPageSize;
+
+    @Value("${bills.changes.settleMillis:5000}")
+    private long changesSettleMillis;
+
+    @Value("${bills.changes.tombstoneRetentionDays:30}")
+    private long tombstoneRetentionDays;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     /**
      * Autowired statsDClient.
      */
     @Autowired
     private StatsDClient statsDClient;
 
+    @PostConstruct
+    public void init() {
+        //Reported once here rather than for every Bill Url built for the SQS messages
+        if (domainName.equals("notAvailable")) {
+            logger.error("Domain Name wasn't successfully received by the application");
+        }
+    }
+
     /**
      * Takes in the Bill object, if everything is validated successfully, the user is saved
      * to the database with having Many to One mapping to its User.
@@ -72,9 +123,34 @@ public class BillService {
         Bill bill = billRepository.save(billToBeSaved);
         stopwatch.stop();
         statsDClient.recordExecutionTime(MetricsConstants.TIMER_DATABASE_BILL_SAVE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        billResponseCache.invalidateUser(bill.getUser().getId());
         return bill;
     }
 
+    /**
+     * Returns the ETag of all the User's bills, derived from a single aggregate query over their versions without
+     * loading them. Null if the User has no bills.
+     *
+     * @param userId
+     * @return String
+     */
+    @Transactional(readOnly = true)
+    public String getBillsETag(String userId) {
+        Object[] summary = billRepository.findVersionSummaryByUserId(userId).get(0);
+        long count = ((Number) summary[0]).longValue();
+        if (count == 0) {
+            return null;
+        }
+
+        return Hashing.murmur3_128().newHasher()
+                .putString(userId, StandardCharsets.UTF_8)
+                .putLong(count)
+                .putLong(((Number) summary[1]).longValue())
+                .putLong(((Date) summary[2]).getTime())
+                .hash()
+                .toString();
+    }
+
     /**
      * Takes in User Id, if everything is validated successfully, checks if there are any bills for that User, if not
      * throws an Exception.
@@ -82,47 +158,148 @@ public class BillService {
      * @param userId
      * @return List<Bill></Bill>
      */
+    @Transactional(readOnly = true)
     public List<Bill> getAllBillsByUserId(String userId) {
-        List<Bill> userBills = new ArrayList<>();
-
         Stopwatch stopwatch = Stopwatch.createStarted();
-        List<Bill> allBills = billRepository.findAll();
+        List<Bill> userBills = billRepository.findAllByUserId(userId);
         stopwatch.stop();
         statsDClient.recordExecutionTime(MetricsConstants.TIMER_DATABASE_BILLS_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
 
-        for (Bill bill : allBills) {
-            if (bill.getUser().getId().equals(userId)) {
-                userBills.add(bill);
-            }
-        }
-
         if (userBills.size() == 0) {
             throw new IllegalStateException("No bills exist for this user yet!");
         }
 
-        logger.info("Bills have been successfully retrieved for the User");
+        logger.debug("Bills have been successfully retrieved for the User");
         return userBills;
     }
 
     /**
-     * Delete the bill by the billId supplied.
+     * Takes in User Id and fetches one page of the User's bills, ordered by creation time. The page starts right after
+     * the bill the cursor points to, or at the first bill if no cursor is supplied.
      *
-     * @param billId
-     * @throws Exception
+     * @param userId
+     * @param cursor
+     * @param limit
+     * @return BillPage
      */
-    public void deleteById(String billId, String userId) throws Exception {
-        if (!billRepository.existsById(billId)) {
-            throw new Exception("The Bill ID doesn't exist!");
+    @Transactional(readOnly = true)
+    public BillPage getBillsPageByUserId(String userId, String cursor, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : limit;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new IllegalArgumentException("The limit has to be between 1 and " + maxPageSize);
         }
 
-        if (!billRepository.findById(billId).get().getUser().getId().equals(userId)) {
-            throw new IllegalArgumentException("The Bill ID doesn't belong to the User Credentials supplied.");
+        //Fetching one extra bill to know if there is a next page
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        List<Bill> bills;
+        if (cursor == null || cursor.isEmpty()) {
+            bills = billRepository.findPageByUserId(userId, pageable);
+        } else {
+            String[] keyset = decodeCursor(cursor);
+            bills = billRepository.findPageByUserIdAfter(userId, new Date(Long.parseLong(keyset[0])), keyset[1], pageable);
         }
+        stopwatch.stop();
+        statsDClient.recordExecutionTime(MetricsConstants.TIMER_DATABASE_BILLS_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
 
-        Bill bill = getBillByBillId(billId, userId);
+        String nextCursor = null;
+        if (bills.size() > pageSize) {
+            bills = new ArrayList<>(bills.subList(0, pageSize));
+            nextCursor = encodeCursor(bills.get(pageSize - 1));
+        }
+        initializeCategories(bills);
+
+        logger.debug("Page of {} Bills has been successfully retrieved for the User", bills.size());
+        return new BillPage(bills, nextCursor);
+    }
+
+    /**
+     * Takes in User Id and fetches the User's bills created or updated, and the ids of those deleted, since the time
+     * the token points to, or all the bills if no token is supplied. The changes are read up to a few seconds ago
+     * only, the writes still being committed by then are picked up by the next call.
+     * <p>
+     * Not run in a read only service transaction, so its reads stay on the primary. The replica's lag isn't bounded,
+     * a bill replicated after the token moved past its update time would never be returned.
+     *
+     * @param userId
+     * @param since
+     * @return BillChanges
+     */
+    public BillChanges getBillChangesByUserId(String userId, String since) {
+        long now = System.currentTimeMillis();
+        Date updatedAfter = new Date(0);
+        if (since != null && !since.isEmpty()) {
+            updatedAfter = new Date(decodeSinceToken(since));
+            if (updatedAfter.getTime() < now - TimeUnit.DAYS.toMillis(tombstoneRetentionDays)) {
+                throw new IllegalStateException("The token supplied has expired, all the bills have to be fetched again.");
+            }
+        }
+
+        Date updatedUntil = new Date(now - changesSettleMillis);
+        if (!updatedUntil.after(updatedAfter)) {
+            return new BillChanges(Collections.emptyList(), Collections.emptyList(), since);
+        }
+
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        List<Bill> updatedBills = billRepository.findAllUpdatedByUserId(userId, updatedAfter, updatedUntil);
+        //A full sync has nothing to remove on the client's side
+        List<String> deletedBillIds = updatedAfter.getTime() == 0 ? Collections.emptyList()
+                : billTombstoneRepository.findDeletedBillIds(userId, updatedAfter, updatedUntil);
+        stopwatch.stop();
+        statsDClient.recordExecutionTime(MetricsConstants.TIMER_DATABASE_BILLS_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+
+        logger.debug("{} updated and {} deleted Bills have been successfully retrieved for the User",
+                updatedBills.size(), deletedBillIds.size());
+        return new BillChanges(updatedBills, deletedBillIds, encodeSinceToken(updatedUntil.getTime()));
+    }
+
+    /**
+     * Deletes the tombstones of the bills deleted longer ago than the change feed tokens are accepted for.
+     */
+    @Scheduled(fixedDelayString = "${bills.changes.tombstonePurgeIntervalMillis:3600000}")
+    public void purgeBillTombstones() {
+        Date deletedBefore = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(tombstoneRetentionDays));
+        int purged = billTombstoneRepository.deleteAllDeletedBefore(deletedBefore);
+        logger.debug("{} Bill tombstones have been purged", purged);
+    }
+
+    /**
+     * Takes in User Id and hands every bill of the User to the consumer, one at a time, as it is read from the database.
+     * Each bill is detached once consumed so the memory used stays flat whatever the number of bills.
+     *
+     * @param userId
+     * @param billConsumer
+     */
+    @Transactional(readOnly = true)
+    public void streamAllBillsByUserId(String userId, Consumer<Bill> billConsumer) {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        try (Stream<Bill> bills = billRepository.streamAllByUserId(userId)) {
+            bills.forEach(bill -> {
+                billConsumer.accept(bill);
+                if (bill.getBillFile() != null) {
+                    entityManager.detach(bill.getBillFile());
+                }
+                entityManager.detach(bill);
+            });
+        }
+        stopwatch.stop();
+        statsDClient.recordExecutionTime(MetricsConstants.TIMER_DATABASE_BILLS_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+
+        logger.debug("Bills have been successfully streamed for the User");
+    }
+
+    /**
+     * Delete the bill by the billId supplied, leaving a tombstone for the change feed in the same transaction.
+     *
+     * @param billId
+     * @throws Exception
+     */
+    @Transactional
+    public void deleteById(String billId, String userId) throws Exception {
+        Bill bill = getBillForUpdate(billId, userId);
         if (bill.getBillFile() != null) {
-            String fileId = bill.getBillFile().getFileId();
-            File file = fileService.getFileById(fileId);
+            File file = bill.getBillFile();
             if (activeProfile.equals("dev")) {
                 Files.deleteIfExists(Paths.get(file.getStorageUrl() + "-" + billId));
                 logger.info("File has been successfully deleted physically from the system!");
@@ -136,38 +313,68 @@ public class BillService {
             }
         }
 
-        logger.info("Bill " + billId + " has been successfully deleted with its attached file");
+        logger.info("Bill {} has been successfully deleted with its attached file", billId);
 
         Stopwatch stopwatch = Stopwatch.createStarted();
-        billRepository.deleteById(billId);
+        billRepository.delete(bill);
+        billTombstoneRepository.save(new BillTombstone(billId, userId, new Date()));
         stopwatch.stop();
         statsDClient.recordExecutionTime(MetricsConstants.TIMER_DATABASE_BILL_DELETE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        billResponseCache.invalidateUser(userId);
     }
 
     /**
-     * Fetches the bill by its id.
+     * Fetches the bill by its id, with its attached file, in a single query. Throws if the bill doesn't exist, or an
+     * IllegalArgumentException if it doesn't belong to the user.
      *
      * @param billId
      * @return bill
      * @throws Exception
      */
+    @Transactional(readOnly = true)
     public Bill getBillByBillId(String billId, String userId) throws Exception {
-        if (!billRepository.existsById(billId)) {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        Optional<Bill> foundBill = billRepository.findWithFileByBillId(billId);
+        stopwatch.stop();
+        statsDClient.recordExecutionTime(MetricsConstants.TIMER_DATABASE_BILL_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+
+        if (!foundBill.isPresent()) {
             throw new Exception("The Bill ID doesn't exist!");
         }
 
-        if (!billRepository.findById(billId).get().getUser().getId().equals(userId)) {
+        if (!foundBill.get().getUser().getId().equals(userId)) {
             throw new IllegalArgumentException("The Bill ID doesn't belong to the User Credentials supplied.");
         }
 
+        logger.debug("Retrieved Bill for the User: {}", userId);
+
+        return foundBill.get();
+    }
+
+    /**
+     * Fetches the bill by its id and locks it until the end of the calling transaction. Throws if the bill doesn't
+     * exist, or an IllegalArgumentException if it doesn't belong to the user.
+     *
+     * @param billId
+     * @param userId
+     * @return Bill
+     * @throws Exception
+     */
+    private Bill getBillForUpdate(String billId, String userId) throws Exception {
         Stopwatch stopwatch = Stopwatch.createStarted();
-        Bill foundBill = billRepository.findById(billId).get();
+        Optional<Bill> foundBill = billRepository.findForUpdateByBillId(billId);
         stopwatch.stop();
         statsDClient.recordExecutionTime(MetricsConstants.TIMER_DATABASE_BILL_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
 
-        logger.info("Retrieved Bill for the User: " + userId);
+        if (!foundBill.isPresent()) {
+            throw new Exception("The Bill ID doesn't exist!");
+        }
+
+        if (!foundBill.get().getUser().getId().equals(userId)) {
+            throw new IllegalArgumentException("The Bill ID doesn't belong to the User Credentials supplied.");
+        }
 
-        return foundBill;
+        return foundBill.get();
     }
 
     /**
@@ -178,39 +385,31 @@ public class BillService {
      * @return Bill
      * @throws Exception
      */
+    @Transactional
     public Bill updateBillByBillId(Bill bill, String billId, String userId) throws Exception {
-        if (!billRepository.existsById(billId)) {
-            throw new Exception("The Bill ID doesn't exist!");
-        }
-
-        if (!billRepository.findById(billId).get().getUser().getId().equals(userId)) {
-            throw new IllegalArgumentException("The Bill ID doesn't belong to the User Credentials supplied.");
-        }
+        Bill updatedBill = getBillForUpdate(billId, userId);
 
         Date currentDate = new Date();
-        return billRepository.findById(billId).map(
-                updatedBill -> {
-                    updatedBill.setVendor(bill.getVendor());
-                    updatedBill.setBillDate(bill.getBillDate());
-                    updatedBill.setDueDate(bill.getDueDate());
-                    updatedBill.setAmountDue(bill.getAmountDue());
-                    updatedBill.setCategories(bill.getCategories());
-                    updatedBill.setPayStatus(bill.getPayStatus());
-                    updatedBill.setBillUpdated(currentDate);
-                    logger.info("Successfully updated the Bill with the new information supplied for Bill: " + billId);
-                    Stopwatch stopwatch = Stopwatch.createStarted();
-                    Bill newBill = billRepository.save(updatedBill);
-                    stopwatch.stop();
-                    statsDClient.recordExecutionTime(MetricsConstants.TIMER_DATABASE_BILL_SAVE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
-                    return newBill;
-                }).orElseThrow(() ->
-                new IllegalStateException()
-        );
+        updatedBill.setVendor(bill.getVendor());
+        updatedBill.setBillDate(bill.getBillDate());
+        updatedBill.setDueDate(bill.getDueDate());
+        updatedBill.setAmountDue(bill.getAmountDue());
+        updatedBill.setCategories(bill.getCategories());
+        updatedBill.setPayStatus(bill.getPayStatus());
+        updatedBill.setBillUpdated(currentDate);
+        logger.info("Successfully updated the Bill with the new information supplied for Bill: {}", billId);
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        Bill newBill = billRepository.save(updatedBill);
+        stopwatch.stop();
+        statsDClient.recordExecutionTime(MetricsConstants.TIMER_DATABASE_BILL_SAVE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        billResponseCache.invalidateUser(userId);
+        return newBill;
     }
 
     /**
      * After authenticating the user and checking if the bill exists, it creates a File Model object for the Multipart file and
-     * returns it on successful persistence.
+     * returns it on successful persistence. Not transactional, the bill isn't locked while the file is uploaded, a
+     * concurrent change to it fails the save with an OptimisticLockingFailureException.
      *
      * @param billId
      * @param userId
@@ -233,20 +432,76 @@ public class BillService {
         storedFile.setBillId(billId);
 
         bill.setBillFile(storedFile);
+        bill.setBillUpdated(new Date());
 
         Stopwatch stopwatch = Stopwatch.createStarted();
         billRepository.save(bill);
         stopwatch.stop();
         statsDClient.recordExecutionTime(MetricsConstants.TIMER_DATABASE_FILE_SAVE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        billResponseCache.invalidateUser(userId);
 
         //Fetching the File object after persisting it in the database
         storedFile = bill.getBillFile();
 
-        logger.info("Created a new File successfully for the user: " + userId + " and the bill: " + billId);
+        logger.info("Created a new File successfully for the user: {} and the bill: {}", userId, billId);
 
         return storedFile;
     }
 
+    /**
+     * After authenticating the user and checking if the bill exists, it spools the Multipart file and attaches a pending
+     * File Model object to the bill. The file is then stored by the storage workers, which update the File's status.
+     * Not transactional, the workers must only be handed the File once it is committed, a concurrent change to the bill
+     * fails the save with an OptimisticLockingFailureException.
+     *
+     * @param billId
+     * @param userId
+     * @param file
+     * @return File
+     * @throws Exception
+     */
+    public File createFileForBillAsync(String billId, String userId, MultipartFile file) throws Exception {
+
+        Bill bill = getBillByBillId(billId, userId);
+
+        if (bill.getBillFile() != null) {
+            throw new StorageException("The Bill already has a File attached!");
+        }
+
+        String fileName = fileService.validateFileName(file);
+        Path spooledFile = fileService.spoolFile(file);
+
+        File pendingFile = new File();
+        pendingFile.setFileName(fileName);
+        pendingFile.setUploadDate(new Date());
+        pendingFile.setStatus(FileStatus.pending);
+        pendingFile.setUserId(userId);
+        pendingFile.setBillId(billId);
+
+        bill.setBillFile(pendingFile);
+        bill.setBillUpdated(new Date());
+
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        Bill savedBill;
+        try {
+            savedBill = billRepository.save(bill);
+        } catch (RuntimeException ex) {
+            Files.deleteIfExists(spooledFile);
+            throw ex;
+        }
+        stopwatch.stop();
+        statsDClient.recordExecutionTime(MetricsConstants.TIMER_DATABASE_FILE_SAVE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        billResponseCache.invalidateUser(userId);
+
+        //Fetching the File object after persisting it in the database, its ID is needed by the storage workers
+        pendingFile = savedBill.getBillFile();
+        fileService.storeSpooledFileAsync(pendingFile.getFileId(), billId, fileName, spooledFile);
+
+        logger.info("Accepted a new File for the user: {} and the bill: {}", userId, billId);
+
+        return pendingFile;
+    }
+
     /**
      * After authenticating the user and checking if the bill exists, it checks if the fileId supplied matches the ID of the file
      * associated with the Bill object. If yes, returns the file details.
@@ -257,6 +512,7 @@ public class BillService {
      * @return
      * @throws Exception
      */
+    @Transactional(readOnly = true)
     public File getFileForBill(String billId, String userId, String fileId) throws Exception {
 
         Bill bill = getBillByBillId(billId, userId);
@@ -265,17 +521,17 @@ public class BillService {
             throw new Exception("This Bill has no file attached to it");
         }
 
-        if (fileService.getFileById(fileId) == null) {
-            throw new Exception("The file doesn't exist.");
-        }
-
         if (!bill.getBillFile().getFileId().equals(fileId)) {
+            //Only looked up when the ids don't match, the attached file was already fetched with the bill
+            if (!fileService.existsById(fileId)) {
+                throw new Exception("The file doesn't exist.");
+            }
             throw new IllegalArgumentException("The File ID doesn't belong to the Bill details provided.");
         }
 
-        logger.info("Fetched the file for the Bill: " + billId + " successfully");
+        logger.debug("Fetched the file for the Bill: {} successfully", billId);
 
-        return fileService.getFileById(fileId);
+        return bill.getBillFile();
     }
 
     /**
@@ -286,9 +542,10 @@ public class BillService {
      * @param userId
      * @param fileId
      */
+    @Transactional
     public void deleteFileForBill(String billId, String userId, String fileId) throws Exception {
 
-        Bill bill = getBillByBillId(billId, userId);
+        Bill bill = getBillForUpdate(billId, userId);
 
         if (bill.getBillFile() == null) {
             throw new Exception("This Bill has no file attached to it");
@@ -298,7 +555,7 @@ public class BillService {
             throw new IllegalArgumentException("The File ID doesn't belong to the Bill details provided.");
         }
 
-        File file = fileService.getFileById(fileId);
+        File file = bill.getBillFile();
 
         if (activeProfile.equals("dev")) {
             Files.deleteIfExists(Paths.get(file.getStorageUrl() + "-" + billId));
@@ -314,58 +571,42 @@ public class BillService {
 
         //Setting the File for the bill to null, due to cascading deletes it from the table
         bill.setBillFile(null);
+        bill.setBillUpdated(new Date());
 
-        logger.info("Deleted the Bill: " + billId + " successfully");
+        logger.info("Deleted the Bill: {} successfully", billId);
 
         Stopwatch stopwatch = Stopwatch.createStarted();
         billRepository.save(bill);
         stopwatch.stop();
         statsDClient.recordExecutionTime(MetricsConstants.TIMER_DATABASE_FILE_DELETE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        billResponseCache.invalidateUser(userId);
     }
 
     /**
-     * After authenticating the user, supplies a List of Bills for the user which are due in the next 'daysNumDue' days.
+     * After authenticating the user, supplies a List of Bills for the user which are due in the next 'daysNumDue' days,
+     * from now on. A negative number of days is rejected.
      *
      * @param userId
      * @param daysNumDue
+     * @return List<Bill>
      */
-    public List<Bill> getAllBillsDueByUserId(String userId, Long daysNumDue) throws ParseException {
-        List<Bill> userBills = new ArrayList<>();
-        List<Bill> billsDue = new ArrayList<>();
-        Date currentDate = new Date();
+    @Transactional(readOnly = true)
+    public List<Bill> getAllBillsDueByUserId(String userId, Long daysNumDue) {
+        if (daysNumDue == null || daysNumDue < 0) {
+            throw new IllegalArgumentException("The number of days can't be negative");
+        }
+
+        Instant now = Instant.now();
+        Date dueFrom = Date.from(now);
+        Date dueTo = Date.from(now.plus(daysNumDue, ChronoUnit.DAYS));
 
         Stopwatch stopwatch = Stopwatch.createStarted();
-        List<Bill> allBills = billRepository.findAll();
+        List<Bill> billsDue = billRepository.findAllDueByUserId(userId, dueFrom, dueTo);
         stopwatch.stop();
         statsDClient.recordExecutionTime(MetricsConstants.TIMER_DATABASE_BILLS_GET, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        initializeCategories(billsDue);
 
-        for (Bill bill : allBills) {
-            if (bill.getUser().getId().equals(userId)) {
-                userBills.add(bill);
-            }
-        }
-
-        if (userBills.size() == 0) {
-            throw new IllegalStateException("No bills exist for this user yet!");
-        }
-
-        Long daysDiff;
-
-        for (Bill bill : userBills) {
-            String billDueDate = bill.getDueDate().toString();
-            SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd");
-            Date dueDate = formatter.parse(billDueDate);
-            if (currentDate.compareTo(dueDate) <= 0) {
-                long diff = dueDate.getTime() - currentDate.getTime();
-                daysDiff = TimeUnit.DAYS.convert(diff, TimeUnit.MILLISECONDS);
-                logger.info(String.valueOf(daysDiff));
-                if (daysDiff.intValue() >= 0 && daysDiff.compareTo(daysNumDue) <= 0) {
-                    billsDue.add(bill);
-                }
-            }
-        }
-
-        logger.info(billsDue.size() + " Due Bills have been successfully retrieved for the User");
+        logger.debug("{} Due Bills have been successfully retrieved for the User", billsDue.size());
         return billsDue;
     }
 
@@ -378,12 +619,77 @@ public class BillService {
         StringBuilder sb = new StringBuilder("http://");
         if (!domainName.equals("notAvailable")) {
             sb.append(domainName);
-        } else {
-            logger.error("Domain Name wasn't successfully received by the application");
         }
         sb.append("/v1/bill/");
         sb.append(bill.getBillId());
         return sb.toString();
     }
+
+    /**
+     * Helper function to load the categories of the bills in batches while the read only transaction is still open,
+     * so they are read from the same database as the bills instead of lazily from the primary while being serialized.
+     *
+     * @param bills
+     */
+    private void initializeCategories(List<Bill> bills) {
+        for (Bill bill : bills) {
+            Hibernate.initialize(bill.getCategories());
+        }
+    }
+
+    /**
+     * Helper function to create the opaque cursor pointing to the bill supplied.
+     *
+     * @param bill
+     * @return String
+     */
+    private String encodeCursor(Bill bill) {
+        String keyset = bill.getBillCreated().getTime() + ":" + bill.getBillId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(keyset.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Helper function to create the opaque change feed token pointing to the time supplied.
+     *
+     * @param millis
+     * @return String
+     */
+    private String encodeSinceToken(long millis) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Long.toString(millis).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Helper function to read the time back from the change feed token supplied.
+     *
+     * @param since
+     * @return long
+     */
+    private long decodeSinceToken(String since) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(since), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("The token supplied is not valid.");
+        }
+    }
+
+    /**
+     * Helper function to read the bill creation time and the bill id back from the cursor supplied.
+     *
+     * @param cursor
+     * @return String[]
+     */
+    private String[] decodeCursor(String cursor) {
+        try {
+            String keyset = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] values = keyset.split(":", 2);
+            if (values.length != 2 || values[1].isEmpty()) {
+                throw new IllegalArgumentException();
+            }
+            Long.parseLong(values[0]);
+            return values;
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("The cursor supplied is not valid.");
+        }
+    }
 }
 
@@ -6,31 +6,59 @@ import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.DeleteObjectRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
-import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.Upload;
 import com.google.common.base.Stopwatch;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.rohan.cloudProject.cache.BillResponseCache;
 import com.rohan.cloudProject.configuration.MetricsConstants;
+import com.rohan.cloudProject.model.Bill;
 import com.rohan.cloudProject.model.File;
+import com.rohan.cloudProject.model.FileStatus;
 import com.rohan.cloudProject.model.exception.StorageException;
+import com.rohan.cloudProject.repository.BillRepository;
 import com.rohan.cloudProject.repository.FileRepository;
+import com.rohan.cloudProject.trace.FlightEvents;
+import com.rohan.cloudProject.trace.RequestTrace;
+import com.rohan.cloudProject.trace.StorageEvent;
 import com.timgroup.statsd.StatsDClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigInteger;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -48,6 +76,12 @@ public class FileService {
     @Autowired
     private FileRepository fileRepository;
 
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private BillResponseCache billResponseCache;
+
     @Autowired(required = false)
     private AmazonS3 amazonS3Client;
 
@@ -57,12 +91,121 @@ public class FileService {
     @Value("${amazon.s3.bucketName:#{null}}")
     private String bucketName;
 
+    /**
+     * Autowired transferManager, used for the files at or above the multipart threshold.
+     */
+    @Autowired(required = false)
+    private TransferManager transferManager;
+
+    /**
+     * Size in bytes from which the files are uploaded in parallel parts
+     */
+    @Value("${amazon.s3.multipart.thresholdBytes:16777216}")
+    private long multipartThreshold;
+
     /**
      * Autowired statsDClient.
      */
     @Autowired
     private StatsDClient statsDClient;
 
+    /**
+     * Directory the asynchronous uploads are spooled to before they are stored
+     */
+    @Value("${files.spool.directory:${java.io.tmpdir}/bill-uploads}")
+    private String spoolDirectory;
+
+    /**
+     * Number of worker threads storing the spooled files
+     */
+    @Value("${files.storage.workers:4}")
+    private int workers;
+
+    /**
+     * Number of spooled files waiting for a storage worker before the requests store them themselves. Once the workers
+     * are shut down, the files handed to them are marked as failed instead.
+     */
+    @Value("${files.storage.queueCapacity:100}")
+    private int queueCapacity;
+
+    /**
+     * Time given to the storage workers to finish the queued files on shutdown
+     */
+    @Value("${files.storage.shutdownTimeoutSeconds:30}")
+    private long shutdownTimeoutSeconds;
+
+    /**
+     * Time after which a File still pending is marked as failed, its storage having been lost on a shutdown
+     */
+    @Value("${files.storage.pendingTimeoutMillis:3600000}")
+    private long pendingTimeoutMillis;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private ThreadPoolExecutor storageWorkers;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        storageWorkers = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new ThreadFactoryBuilder().setNameFormat("file-storage-%d").build(),
+                this::storeOnCallerOrReject);
+    }
+
+    /**
+     * Waits for the storage workers to store the files handed to them, before the database and the S3 client are
+     * closed. The files still queued once the timeout has elapsed are marked as failed.
+     */
+    @PreDestroy
+    public void shutdown() {
+        storageWorkers.shutdown();
+        try {
+            if (storageWorkers.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+                return;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<Runnable> queuedTasks = storageWorkers.shutdownNow();
+        logger.warn("The storage workers didn't finish in time, {} queued files are marked as failed", queuedTasks.size());
+        for (Runnable queuedTask : queuedTasks) {
+            ((StorageTask) queuedTask).reject();
+        }
+    }
+
+    /**
+     * Marks the Files left pending for longer than the timeout as failed, and deletes the spooled files left behind.
+     * Runs on startup too, for the files which were still being stored when the application stopped.
+     */
+    @Scheduled(fixedDelayString = "${files.storage.pendingSweepIntervalMillis:600000}")
+    public void failStalePendingFiles() {
+        Date updatedBefore = new Date(System.currentTimeMillis() - pendingTimeoutMillis);
+        for (File staleFile : fileRepository.findAllPendingUpdatedBefore(updatedBefore)) {
+            logger.warn("The File: {} has been pending for too long, marking it as failed", staleFile.getFileId());
+            statsDClient.incrementCounter(MetricsConstants.FILE_STORAGE_FAILED);
+            recordStorageOutcome(staleFile.getFileId(), staleFile.getBillId(), null);
+        }
+
+        Path spoolPath = Paths.get(spoolDirectory);
+        if (!Files.isDirectory(spoolPath)) {
+            return;
+        }
+        try (DirectoryStream<Path> spooledFiles = Files.newDirectoryStream(spoolPath, "upload-*.spool")) {
+            for (Path spooledFile : spooledFiles) {
+                if (Files.getLastModifiedTime(spooledFile).toMillis() < updatedBefore.getTime()) {
+                    deleteSpooledFile(spooledFile);
+                }
+            }
+        } catch (IOException ex) {
+            logger.warn("The spool directory {} could not be swept: {}", spoolPath, ex.getMessage());
+        }
+    }
+
     /**
      * Takes in the Multipart file. Performs all the necessary validations and returns the created File Object to be saved.
      *
@@ -70,7 +213,17 @@ public class FileService {
      * @return
      */
     public File createNewFile(MultipartFile file, String billId) {
+        String fileName = validateFileName(file);
+        return storeFile(file, file.getSize(), fileName, billId);
+    }
 
+    /**
+     * Validates the name and the format of the Multipart file, returning its cleaned up name.
+     *
+     * @param file
+     * @return String
+     */
+    public String validateFileName(MultipartFile file) {
         String fileName = StringUtils.cleanPath(file.getOriginalFilename());
 
         if (fileName.contains("..")) {
@@ -83,14 +236,272 @@ public class FileService {
             throw new StorageException(("The file has to be of the following formats: png, jpeg, jpg, pdf!"));
         }
 
-        File newFile = null;
+        return fileName;
+    }
+
+    /**
+     * Moves the Multipart file to the spool directory so it can be stored once the request has been answered. The
+     * container usually keeps the upload on disk already, in which case this is just a rename.
+     *
+     * @param file
+     * @return Path
+     */
+    public Path spoolFile(MultipartFile file) {
+        try (RequestTrace.Phase phase = RequestTrace.phase(RequestTrace.PHASE_STORAGE)) {
+            Path spooledFile = createSpoolFile();
+            file.transferTo(spooledFile.toFile());
+            return spooledFile;
+        } catch (IOException ex) {
+            throw new StorageException("The file: " + file.getOriginalFilename() + " could not be spooled successfully!", ex);
+        }
+    }
+
+    /**
+     * Creates an empty file in the spool directory, swept for the files left behind.
+     *
+     * @return Path
+     * @throws IOException
+     */
+    private Path createSpoolFile() throws IOException {
+        Files.createDirectories(Paths.get(spoolDirectory));
+        return Files.createTempFile(Paths.get(spoolDirectory), "upload-", ".spool");
+    }
+
+    /**
+     * Hands the spooled file to the storage workers, which store it on S3 or the local FileSystem and then update the
+     * File's status. The spooled file is deleted once it has been handled. The worker logs with the request's logging
+     * context, so its log lines carry the same correlation id.
+     *
+     * @param fileId
+     * @param billId
+     * @param fileName
+     * @param spooledFile
+     */
+    public void storeSpooledFileAsync(String fileId, String billId, String fileName, Path spooledFile) {
+        storageWorkers.execute(new StorageTask(fileId, billId, fileName, spooledFile, MDC.getCopyOfContextMap()));
+    }
+
+    /**
+     * Rejection handler of the storage workers. Stores the file on the caller's thread when the queue is full, and
+     * marks it as failed once the workers are shut down, as it would otherwise stay pending forever.
+     *
+     * @param task
+     * @param executor
+     */
+    private void storeOnCallerOrReject(Runnable task, ThreadPoolExecutor executor) {
+        if (!executor.isShutdown()) {
+            task.run();
+        } else {
+            ((StorageTask) task).reject();
+        }
+    }
+
+    /**
+     * Storage of a spooled file, run with the logging context of the request which spooled it. The task runs on the
+     * caller's thread when the queue is full, so the caller's context is put back after.
+     */
+    private class StorageTask implements Runnable {
+
+        private final String fileId;
+
+        private final String billId;
+
+        private final String fileName;
+
+        private final Path spooledFile;
+
+        private final Map<String, String> loggingContext;
+
+        StorageTask(String fileId, String billId, String fileName, Path spooledFile, Map<String, String> loggingContext) {
+            this.fileId = fileId;
+            this.billId = billId;
+            this.fileName = fileName;
+            this.spooledFile = spooledFile;
+            this.loggingContext = loggingContext;
+        }
+
+        @Override
+        public void run() {
+            Map<String, String> previousContext = MDC.getCopyOfContextMap();
+            setLoggingContext(loggingContext);
+            try {
+                storeSpooledFile(fileId, billId, fileName, spooledFile);
+            } finally {
+                setLoggingContext(previousContext);
+            }
+        }
+
+        /**
+         * Marks the File as failed without storing it, and deletes its spooled file.
+         */
+        void reject() {
+            Map<String, String> previousContext = MDC.getCopyOfContextMap();
+            setLoggingContext(loggingContext);
+            try {
+                logger.warn("The File: {} was rejected as the storage workers are shut down", fileId);
+                statsDClient.incrementCounter(MetricsConstants.FILE_STORAGE_FAILED);
+                deleteSpooledFile(spooledFile);
+                recordStorageOutcome(fileId, billId, null);
+            } finally {
+                setLoggingContext(previousContext);
+            }
+        }
+    }
+
+    /**
+     * Replaces the current thread's logging context, clearing it if the context supplied is empty.
+     *
+     * @param context
+     */
+    private static void setLoggingContext(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+
+    /**
+     * Stores the spooled file and records the outcome on the File's row.
+     *
+     * @param fileId
+     * @param billId
+     * @param fileName
+     * @param spooledFile
+     */
+    private void storeSpooledFile(String fileId, String billId, String fileName, Path spooledFile) {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        File storedFile = null;
+        try {
+            storedFile = storeFile(new FileSystemResource(spooledFile.toFile()), Files.size(spooledFile), fileName, billId);
+        } catch (IOException | RuntimeException ex) {
+            logger.error("The spooled file for the File: {} could not be stored", fileId, ex);
+            statsDClient.incrementCounter(MetricsConstants.FILE_STORAGE_FAILED);
+        } finally {
+            deleteSpooledFile(spooledFile);
+        }
+
+        FileStatus status = recordStorageOutcome(fileId, billId, storedFile);
+        if (status == null) {
+            return;
+        }
+
+        stopwatch.stop();
+        statsDClient.recordExecutionTime(MetricsConstants.TIMER_FILE_STORAGE_ASYNC, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        logger.info("The File: {} was handled by the storage workers with the status: {}", fileId, status);
+    }
+
+    /**
+     * Records the outcome of the storage on the File's row, failed if no stored File is supplied. The bill is locked
+     * first, as by the requests deleting the File, and the File is only updated while it is still pending. If the File
+     * has been deleted or marked as failed meanwhile, the file just stored is deleted as nothing refers to it anymore.
+     *
+     * @param fileId
+     * @param billId
+     * @param storedFile
+     * @return FileStatus, null if the File was no longer pending
+     */
+    private FileStatus recordStorageOutcome(String fileId, String billId, File storedFile) {
+        FileStatus status = storedFile != null ? FileStatus.stored : FileStatus.failed;
+        Boolean recorded = transactionTemplate.execute(transaction -> {
+            Optional<Bill> bill = billRepository.findForUpdateByBillId(billId);
+            if (!bill.isPresent()) {
+                return false;
+            }
+
+            int updated = storedFile != null
+                    ? fileRepository.updatePendingFile(fileId, storedFile.getFileName(), storedFile.getStorageUrl(),
+                    storedFile.getMd5Hash(), storedFile.getFileSize(), storedFile.getUploadDate(), status)
+                    : fileRepository.updatePendingFileStatus(fileId, status);
+            if (updated == 0) {
+                return false;
+            }
+
+            //The Bill's row isn't changed by the File's status, it is marked as updated for its ETag and the change feed
+            billRepository.markUpdated(billId, new Date());
+            billResponseCache.invalidateUser(bill.get().getUser().getId());
+            return true;
+        });
+
+        if (!Boolean.TRUE.equals(recorded)) {
+            logger.warn("The File: {} was deleted or failed before its storage outcome was recorded", fileId);
+            if (storedFile != null) {
+                deleteStoredFile(storedFile, billId);
+            }
+            return null;
+        }
+        return status;
+    }
 
+    /**
+     * Deletes the file stored on S3 or the local FileSystem for the bill.
+     *
+     * @param storedFile
+     * @param billId
+     */
+    private void deleteStoredFile(File storedFile, String billId) {
         if (activeProfile.equals("dev")) {
-            newFile = createNewFileOnLocal(file, billId, fileName);
-        } else if ((activeProfile.equals("aws") && (!bucketName.equals("notAvailable")))) {
-            newFile = createNewFileOnS3Bucket(file, billId, fileName);
+            try {
+                Files.deleteIfExists(Paths.get(storedFile.getStorageUrl() + "-" + billId));
+            } catch (IOException ex) {
+                logger.warn("The stored file {} could not be deleted: {}", storedFile.getStorageUrl(), ex.getMessage());
+            }
+        }
+
+        if (activeProfile.equals("aws")) {
+            deleteFileFromS3Bucket(storedFile.getFileName());
+        }
+    }
+
+    /**
+     * Deletes the spooled file once it has been handled.
+     *
+     * @param spooledFile
+     */
+    private void deleteSpooledFile(Path spooledFile) {
+        try {
+            Files.deleteIfExists(spooledFile);
+        } catch (IOException ex) {
+            logger.warn("The spooled file {} could not be deleted: {}", spooledFile, ex.getMessage());
+        }
+    }
+
+    /**
+     * Stores the file on S3 or the local FileSystem depending on the active profile.
+     *
+     * @param source
+     * @param size
+     * @param fileName
+     * @param billId
+     * @return File
+     */
+    private File storeFile(InputStreamSource source, long size, String fileName, String billId) {
+        File newFile = null;
+
+        StorageEvent event = FlightEvents.storage();
+        event.begin();
+        try (RequestTrace.Phase phase = RequestTrace.phase(RequestTrace.PHASE_STORAGE)) {
+            if (activeProfile.equals("dev")) {
+                event.setTarget("local");
+                newFile = createNewFileOnLocal(source, billId, fileName);
+            } else if ((activeProfile.equals("aws") && (!bucketName.equals("notAvailable")))) {
+                event.setTarget(transferManager != null && size >= multipartThreshold ? "s3-multipart" : "s3");
+                newFile = createNewFileOnS3Bucket(source, size, billId, fileName);
+            }
+        } finally {
+            event.setOperation("store");
+            event.setBillId(billId);
+            event.setFileName(fileName);
+            if (newFile != null) {
+                event.setBytes(newFile.getFileSize());
+                event.setOutcome(FlightEvents.OUTCOME_SUCCESS);
+            }
+            event.commit();
         }
 
+        if (newFile != null) {
+            newFile.setStatus(FileStatus.stored);
+        }
         return newFile;
     }
 
@@ -98,61 +509,49 @@ public class FileService {
      * Helper function to store the file on the S3 Bucket in the "aws" profile mode
      *
      * @param file
+     * @param size
      * @param billId
      * @param fileName
      * @return
      */
-    private File createNewFileOnS3Bucket(MultipartFile file, String billId, String fileName) {
+    private File createNewFileOnS3Bucket(InputStreamSource file, long size, String billId, String fileName) {
         String fileUploadPath = bucketName;
 
         String fileStoragePath = fileUploadPath;
         fileName = fileName.concat("-").concat(billId);
         String finalFilePath = "https://" + fileStoragePath + ".s3.amazonaws.com" + "/" + fileName;
-        PutObjectResult result = null;
+        File storedFile = new File();
 
         try {
             Stopwatch stopwatchS3 = Stopwatch.createStarted();
-            uploadFileTos3bucket(fileName, file);
+            //The MD5 Hash and the size are computed while the file is being uploaded
+            if (transferManager != null && size >= multipartThreshold) {
+                uploadFileTos3bucketInParts(fileName, file, storedFile);
+            } else {
+                uploadFileTos3bucket(fileName, file, size, storedFile);
+            }
             stopwatchS3.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_S3_FILE_UPLOAD, stopwatchS3.elapsed(TimeUnit.MILLISECONDS));
+            statsDClient.recordExecutionTime(MetricsConstants.TIMER_S3_FILE_UPLOAD + "." + getSizeBucket(storedFile.getFileSize()),
+                    stopwatchS3.elapsed(TimeUnit.MILLISECONDS));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new StorageException("The file: " + fileName + " could not be stored successfully!", ie);
         } catch (AmazonServiceException ase) {
-            logger.info("Caught an AmazonServiceException from GET requests, rejected reasons:");
-            logger.info("Error Message:    " + ase.getMessage());
-            logger.info("HTTP Status Code: " + ase.getStatusCode());
-            logger.info("AWS Error Code:   " + ase.getErrorCode());
-            logger.info("Error Type:       " + ase.getErrorType());
-            logger.info("Request ID:       " + ase.getRequestId());
+            logger.warn("Caught an AmazonServiceException, rejected reasons: Error Message: {}, HTTP Status Code: {}, "
+                            + "AWS Error Code: {}, Error Type: {}, Request ID: {}", ase.getErrorMessage(), ase.getStatusCode(),
+                    ase.getErrorCode(), ase.getErrorType(), ase.getRequestId());
+            throw new StorageException("The file: " + fileName + " could not be stored successfully!", ase);
         } catch (AmazonClientException ace) {
-            logger.info("Caught an AmazonClientException: ");
-            logger.info("Error Message: " + ace.getMessage());
+            logger.warn("Caught an AmazonClientException, Error Message: {}", ace.getMessage());
+            throw new StorageException("The file: " + fileName + " could not be stored successfully!", ace);
         } catch (IOException ioe) {
-            logger.info("IOE Error Message: " + ioe.getMessage());
+            logger.warn("IOE Error Message: {}", ioe.getMessage());
+            throw new StorageException("The file: " + fileName + " could not be stored successfully!", ioe);
         }
 
-        logger.info("The file was stored successfully on the S3 Bucket!");
+        logger.debug("The file was stored successfully on the S3 Bucket!");
 
-        File storedFile = new File();
         storedFile.setFileName(fileName);
-        //Storing the MD5 Hash of the file
-        byte[] uploadBytes = null;
-        try {
-            uploadBytes = file.getBytes();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        MessageDigest md5 = null;
-        try {
-            md5 = MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException e) {
-            e.printStackTrace();
-        }
-        byte[] md5digest = md5.digest(uploadBytes);
-        String md5HashString = new BigInteger(1, md5digest).toString(16);
-        storedFile.setMd5Hash(md5HashString);
-
-        //Storing the size of the file
-        Long fileSize = file.getSize();
-        storedFile.setFileSize(fileSize);
         storedFile.setUploadDate(new Date());
         storedFile.setStorageUrl(finalFilePath);
 
@@ -167,54 +566,42 @@ public class FileService {
      * @param billId
      * @return
      */
-    private File createNewFileOnLocal(MultipartFile file, String billId, String fileName) {
+    private File createNewFileOnLocal(InputStreamSource file, String billId, String fileName) {
         fileUploadPath = System.getProperty("user.home");
 
         String fileStoragePath = fileUploadPath + "/files/";
         String finalFilePath = null;
         Path path = Paths.get(fileStoragePath);
+        MessageDigest md5 = newMd5Digest();
+        long fileSize;
 
         try {
             if (!Files.exists(path)) {
-                Files.createDirectory(path);
+                //The storage workers may create it at the same time
+                Files.createDirectories(path);
                 logger.info("File storage Directory created");
             } else {
-                System.out.println("File storage Directory already exists");
+                logger.debug("File storage Directory already exists");
             }
 
             finalFilePath = fileStoragePath + fileName;
 
-            Files.copy(file.getInputStream(), Paths.get(finalFilePath + "-" + billId), StandardCopyOption.REPLACE_EXISTING);
+            try (InputStream is = new DigestInputStream(file.getInputStream(), md5)) {
+                fileSize = Files.copy(is, Paths.get(finalFilePath + "-" + billId), StandardCopyOption.REPLACE_EXISTING);
+            }
         } catch (IOException ex) {
             throw new StorageException("The file: " + fileName + "could not be stored successfully!", ex);
         }
 
-        logger.info("The file was stored successfully on the local FileSystem!");
+        logger.debug("The file was stored successfully on the local FileSystem!");
 
         File storedFile = new File();
         storedFile.setFileName(fileName);
         storedFile.setStorageUrl(finalFilePath);
         storedFile.setUploadDate(new Date());
 
-        //Storing the MD5 Hash of the file
-        byte[] uploadBytes = null;
-        try {
-            uploadBytes = file.getBytes();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        MessageDigest md5 = null;
-        try {
-            md5 = MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException e) {
-            e.printStackTrace();
-        }
-        byte[] md5digest = md5.digest(uploadBytes);
-        String md5HashString = new BigInteger(1, md5digest).toString(16);
-        storedFile.setMd5Hash(md5HashString);
-
-        //Storing the size of the file
-        Long fileSize = file.getSize();
+        //The MD5 Hash and the size were computed while the file was being copied
+        storedFile.setMd5Hash(toHexString(md5.digest()));
         storedFile.setFileSize(fileSize);
 
         return storedFile;
@@ -229,12 +616,24 @@ public class FileService {
         fileRepository.deleteById(id);
     }
 
+    /**
+     * Checks if the file exists by its ID.
+     *
+     * @param id
+     * @return boolean
+     */
+    @Transactional(readOnly = true)
+    public boolean existsById(String id) {
+        return fileRepository.existsById(id);
+    }
+
     /**
      * Gets the file by its ID.
      *
      * @param id
      * @return
      */
+    @Transactional(readOnly = true)
     public File getFileById(String id) {
         Stopwatch stopwatch = Stopwatch.createStarted();
         File file = fileRepository.findById(id).get();
@@ -244,14 +643,122 @@ public class FileService {
     }
 
     /**
-     * Uploads the File to the S3 Bucket
+     * Uploads the File to the S3 Bucket in a single put, streaming it through the MD5 digest. The MD5 Hash and the
+     * size uploaded are set on the stored File.
      *
      * @param fileName
      * @param file
+     * @param size
+     * @param storedFile
      */
-    private void uploadFileTos3bucket(String fileName, MultipartFile file) throws IOException {
-        InputStream is = file.getInputStream();
-        amazonS3Client.putObject(new PutObjectRequest(bucketName, fileName, is, new ObjectMetadata()));
+    private void uploadFileTos3bucket(String fileName, InputStreamSource file, long size, File storedFile) throws IOException {
+        MessageDigest md5 = newMd5Digest();
+        //Without the content length the SDK would buffer the whole stream in memory to find it
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(size);
+
+        try (CountingInputStream is = new CountingInputStream(new DigestInputStream(file.getInputStream(), md5))) {
+            amazonS3Client.putObject(new PutObjectRequest(bucketName, fileName, is, metadata));
+            storedFile.setFileSize(is.getCount());
+        }
+        storedFile.setMd5Hash(toHexString(md5.digest()));
+    }
+
+    /**
+     * Uploads the File to the S3 Bucket in parts uploaded in parallel by the TransferManager, which reads the parts
+     * from a file independently. A source already on disk, as the spooled files are, is uploaded from where it is.
+     * Otherwise it is spooled first, a disk-backed Multipart file being just moved. The MD5 Hash has to be passed when
+     * the upload starts, so it is computed beforehand in a single read of the file. The MD5 Hash and the size uploaded
+     * are set on the stored File.
+     *
+     * @param fileName
+     * @param file
+     * @param storedFile
+     */
+    private void uploadFileTos3bucketInParts(String fileName, InputStreamSource file, File storedFile)
+            throws IOException, InterruptedException {
+        Path spooledFile = null;
+        try {
+            Path sourceFile;
+            if (file instanceof Resource && ((Resource) file).isFile()) {
+                sourceFile = ((Resource) file).getFile().toPath();
+            } else {
+                spooledFile = createSpoolFile();
+                if (file instanceof MultipartFile) {
+                    ((MultipartFile) file).transferTo(spooledFile.toFile());
+                } else {
+                    try (InputStream is = file.getInputStream()) {
+                        Files.copy(is, spooledFile, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+                sourceFile = spooledFile;
+            }
+
+            MessageDigest md5 = newMd5Digest();
+            long fileSize;
+            try (CountingInputStream is = new CountingInputStream(
+                    new DigestInputStream(Files.newInputStream(sourceFile), md5))) {
+                ByteStreams.exhaust(is);
+                fileSize = is.getCount();
+            }
+            String md5Hash = toHexString(md5.digest());
+
+            //Content-MD5 only applies to single part puts, so the hash is passed as user metadata instead
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(fileSize);
+            metadata.addUserMetadata("md5", md5Hash);
+
+            Upload upload = transferManager.upload(
+                    new PutObjectRequest(bucketName, fileName, sourceFile.toFile()).withMetadata(metadata));
+            upload.waitForCompletion();
+
+            storedFile.setFileSize(fileSize);
+            storedFile.setMd5Hash(md5Hash);
+        } finally {
+            if (spooledFile != null) {
+                Files.deleteIfExists(spooledFile);
+            }
+        }
+    }
+
+    /**
+     * Helper function to name the size bucket an upload's timing is reported under.
+     *
+     * @param fileSize
+     * @return String
+     */
+    private static String getSizeBucket(long fileSize) {
+        if (fileSize < 1024 * 1024) {
+            return "under_1mb";
+        } else if (fileSize < 10 * 1024 * 1024) {
+            return "1mb_to_10mb";
+        } else if (fileSize < 100 * 1024 * 1024) {
+            return "10mb_to_100mb";
+        }
+        return "over_100mb";
+    }
+
+    /**
+     * Helper function to create the MD5 digest the uploaded files are streamed through.
+     *
+     * @return MessageDigest
+     */
+    private static MessageDigest newMd5Digest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not supported by the JVM", e);
+        }
+    }
+
+    /**
+     * Helper function to format a digest the same way the stored MD5 Hashes are.
+     *
+     * @param digest
+     * @return String
+     */
+    private static String toHexString(byte[] digest) {
+        return new BigInteger(1, digest).toString(16);
     }
 
     /**
@@ -261,16 +768,24 @@ public class FileService {
      * @return
      */
     public boolean deleteFileFromS3Bucket(String fileName) {
-        try {
+        StorageEvent event = FlightEvents.storage();
+        event.begin();
+        event.setOperation("delete");
+        event.setTarget("s3");
+        event.setFileName(fileName);
+        try (RequestTrace.Phase phase = RequestTrace.phase(RequestTrace.PHASE_STORAGE)) {
             Stopwatch stopwatchS3 = Stopwatch.createStarted();
             amazonS3Client.deleteObject(new DeleteObjectRequest(bucketName, fileName));
             stopwatchS3.stop();
             statsDClient.recordExecutionTime(MetricsConstants.TIMER_S3_FILE_DELETE, stopwatchS3.elapsed(TimeUnit.MILLISECONDS));
             logger.info("File deleted successfully from the S3 Bucket");
+            event.setOutcome(FlightEvents.OUTCOME_SUCCESS);
             return true;
         } catch (Exception e) {
-            logger.error("File wasn't deleted successfully from the S3 Bucket");
+            logger.error("File wasn't deleted successfully from the S3 Bucket: {}", fileName, e);
             return false;
+        } finally {
+            event.commit();
         }
     }
 
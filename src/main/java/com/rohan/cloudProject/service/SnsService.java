@@ -0,0 +1,167 @@
+package com.rohan.cloudProject.service;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sns.AmazonSNSAsync;
+import com.amazonaws.services.sns.model.ListTopicsRequest;
+import com.amazonaws.services.sns.model.ListTopicsResult;
+import com.amazonaws.services.sns.model.NotFoundException;
+import com.amazonaws.services.sns.model.PublishRequest;
+import com.amazonaws.services.sns.model.PublishResult;
+import com.amazonaws.services.sns.model.Topic;
+import com.google.common.base.Stopwatch;
+import com.rohan.cloudProject.configuration.MetricsConstants;
+import com.timgroup.statsd.StatsDClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SNS Amazon Service Layer Class for the Spring Boot Application. Resolves the SNS Topic's ARN once and publishes to it
+ * asynchronously, resolving the ARN again only if the topic can't be found anymore.
+ *
+ * @author rohan_bharti
+ */
+@Service
+@Profile("aws")
+public class SnsService {
+
+    private final static Logger logger = LoggerFactory.getLogger(SnsService.class);
+
+    /**
+     * Autowired amazonSNSClient
+     */
+    @Autowired(required = false)
+    private AmazonSNSAsync amazonSNSClient;
+
+    /**
+     * Autowired statsDClient.
+     */
+    @Autowired
+    private StatsDClient statsDClient;
+
+    /**
+     * Value of the SNS Topic
+     */
+    @Value("${amazon.sns.topic}")
+    private String amazonSnsTopic;
+
+    /**
+     * Cached ARN of the SNS Topic, null until it has been resolved successfully
+     */
+    private volatile String topicArn;
+
+    @PostConstruct
+    public void init() {
+        try {
+            refreshTopicArn();
+        } catch (AmazonClientException ace) {
+            logger.error("SNS: The Topic ARN couldn't be resolved on startup: {}", ace.getMessage());
+        }
+    }
+
+    /**
+     * Publishes the User's email and the List of Due Bills on the SNS topic. The returned future completes once SNS
+     * has accepted the message.
+     *
+     * @param billsDueUrlsAndEmailString
+     * @return CompletableFuture<PublishResult>
+     */
+    public CompletableFuture<PublishResult> publishBillsDue(String billsDueUrlsAndEmailString) {
+        return publish(billsDueUrlsAndEmailString, true);
+    }
+
+    /**
+     * Helper function to publish the message, retrying once with a freshly resolved ARN if the cached one isn't found.
+     *
+     * @param message
+     * @param retryOnNotFound
+     * @return CompletableFuture<PublishResult>
+     */
+    private CompletableFuture<PublishResult> publish(String message, boolean retryOnNotFound) {
+        CompletableFuture<PublishResult> result = new CompletableFuture<>();
+        String arn;
+        try {
+            arn = getTopicArn();
+        } catch (RuntimeException ex) {
+            result.completeExceptionally(ex);
+            return result;
+        }
+
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        amazonSNSClient.publishAsync(new PublishRequest(arn, message), new AsyncHandler<PublishRequest, PublishResult>() {
+            @Override
+            public void onError(Exception exception) {
+                if (exception instanceof NotFoundException && retryOnNotFound) {
+                    logger.warn("SNS: Topic {} wasn't found, resolving its ARN again", arn);
+                    topicArn = null;
+                    publish(message, false).whenComplete((publishResult, retryException) -> {
+                        if (retryException != null) {
+                            result.completeExceptionally(retryException);
+                        } else {
+                            result.complete(publishResult);
+                        }
+                    });
+                } else {
+                    logger.error("SNS: Message couldn't be published to the SNS Topic: {}", exception.getMessage());
+                    result.completeExceptionally(exception);
+                }
+            }
+
+            @Override
+            public void onSuccess(PublishRequest request, PublishResult publishResult) {
+                stopwatch.stop();
+                statsDClient.recordExecutionTime(MetricsConstants.TIMER_SNS_PUBLISH, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+                logger.debug("SNS: Published message successfully to the SNS Topic, Publish Response ID: {}", publishResult.getMessageId());
+                result.complete(publishResult);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns the cached ARN of the SNS Topic, resolving it first if needed.
+     *
+     * @return String
+     */
+    private String getTopicArn() {
+        String arn = topicArn;
+        if (arn == null) {
+            arn = refreshTopicArn();
+        }
+        return arn;
+    }
+
+    /**
+     * Goes through every page of the account's SNS Topics to find the one configured and caches its ARN.
+     *
+     * @return String
+     */
+    private synchronized String refreshTopicArn() {
+        if (topicArn != null) {
+            return topicArn;
+        }
+
+        String nextToken = null;
+        do {
+            ListTopicsResult listTopicsResult = amazonSNSClient.listTopics(new ListTopicsRequest(nextToken));
+            for (Topic topic : listTopicsResult.getTopics()) {
+                if (topic.getTopicArn().endsWith(":" + amazonSnsTopic)) {
+                    topicArn = topic.getTopicArn();
+                    logger.info("SNS Topic ARN resolved: {}", topicArn);
+                    return topicArn;
+                }
+            }
+            nextToken = listTopicsResult.getNextToken();
+        } while (nextToken != null);
+
+        throw new IllegalStateException("The SNS Topic " + amazonSnsTopic + " doesn't exist");
+    }
+}
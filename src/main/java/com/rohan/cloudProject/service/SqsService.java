@@ -43,7 +43,7 @@ public class SqsService {
     public boolean enqueueBillsDueOnSqs(String numDays, String userId) {
 
         try {
-            logger.info("Sending a message to MyQueue, adding BillsDue to the message!");
+            logger.debug("Sending a message to MyQueue, adding BillsDue to the message!");
 
             StringBuilder billsDueInfoStringBuilder = new StringBuilder(userId);
             billsDueInfoStringBuilder.append(",");
@@ -56,26 +56,19 @@ public class SqsService {
             sendMessageRequest.setMessageBody(billsDueInfoString);
 
             amazonSqsClient.sendMessage(sendMessageRequest);
-            logger.info("Message to SQS: " + billsDueInfoString);
-            logger.info("Message Sent to the SQS Queue: " + amazonSqsUrl);
+            logger.debug("Message Sent to the SQS Queue: {} Body: {}", amazonSqsUrl, billsDueInfoString);
             return true;
 
         } catch (final AmazonServiceException ase) {
-            logger.error("Caught an AmazonServiceException, which means " +
-                    "your request made it to Amazon SQS, but was " +
-                    "rejected with an error response for some reason.");
-            logger.error("Error Message:    " + ase.getMessage());
-            logger.error("HTTP Status Code: " + ase.getStatusCode());
-            logger.error("AWS Error Code:   " + ase.getErrorCode());
-            logger.error("Error Type:       " + ase.getErrorType());
-            logger.error("Request ID:       " + ase.getRequestId());
+            logger.error("Caught an AmazonServiceException, which means your request made it to Amazon SQS, but was "
+                            + "rejected with an error response for some reason. Error Message: {}, HTTP Status Code: {}, "
+                            + "AWS Error Code: {}, Error Type: {}, Request ID: {}", ase.getErrorMessage(), ase.getStatusCode(),
+                    ase.getErrorCode(), ase.getErrorType(), ase.getRequestId());
             return false;
         } catch (final AmazonClientException ace) {
-            logger.error("Caught an AmazonClientException, which means " +
-                    "the client encountered a serious internal problem while " +
-                    "trying to communicate with Amazon SQS, such as not " +
-                    "being able to access the network.");
-            logger.error("Error Message: " + ace.getMessage());
+            logger.error("Caught an AmazonClientException, which means the client encountered a serious internal problem "
+                    + "while trying to communicate with Amazon SQS, such as not being able to access the network. "
+                    + "Error Message: {}", ace.getMessage());
             return false;
         }
     }
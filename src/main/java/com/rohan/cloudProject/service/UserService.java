@@ -1,17 +1,23 @@
 package com.rohan.cloudProject.service;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.hash.Hashing;
 import com.rohan.cloudProject.configuration.MetricsConstants;
+import com.rohan.cloudProject.datasource.ReadAfterWriteTracker;
 import com.rohan.cloudProject.model.User;
 import com.rohan.cloudProject.repository.UserRepository;
+import com.rohan.cloudProject.security.VerifiedCredentialCache;
 import com.timgroup.statsd.StatsDClient;
 import org.passay.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
@@ -42,6 +48,18 @@ public class UserService {
     @Autowired
     private StatsDClient statsDClient;
 
+    /**
+     * Autowired verifiedCredentialCache.
+     */
+    @Autowired
+    private VerifiedCredentialCache verifiedCredentialCache;
+
+    /**
+     * Autowired readAfterWriteTracker.
+     */
+    @Autowired
+    private ReadAfterWriteTracker readAfterWriteTracker;
+
     /**
      * Takes the newly passed User Object, adds account created and updated information and stores in the database
      * with the encrypted password.
@@ -86,9 +104,15 @@ public class UserService {
             userRepository.save(toBeSavedUser);
             stopwatch.stop();
             statsDClient.recordExecutionTime(MetricsConstants.TIMER_DATABASE_USER_SAVE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+            //The signup isn't authenticated, so the new User's first reads are kept on the primary explicitly
+            readAfterWriteTracker.recordWrite(toBeSavedUser.getId());
             logger.info("A new User saved successfully!");
+        } catch (DataIntegrityViolationException e) {
+            //A concurrent signup with the same email got in first, the unique constraint on the email rejects this one
+            logger.info("New User couldn't be saved, the email is already taken: {}", e.getMessage());
+            throw new IllegalArgumentException(("The Email Already Exists!"));
         } catch (Exception e) {
-            logger.error("New User couldn't be saved: " + e.getMessage());
+            logger.error("New User couldn't be saved: {}", e.getMessage());
         }
 
         return toBeSavedUser;
@@ -102,6 +126,7 @@ public class UserService {
      * @param id
      * @return User
      */
+    @Transactional
     public User updateUser(Map<String, Object> fieldsToBeUpdated, String id) throws IllegalArgumentException, NullPointerException {
 
         List<String> fieldsNotToBeUpdated = Arrays.asList(new String[]{
@@ -114,7 +139,8 @@ public class UserService {
             }
         }
 
-        User user = userRepository.findById(id).get();
+        //Read from the database and locked, a stale cached User would fail the save on its version
+        User user = userRepository.findForUpdateById(id).get();
 
         user.setFirstName((String) fieldsToBeUpdated.get("first_name"));
         user.setLastName((String) fieldsToBeUpdated.get("last_name"));
@@ -130,25 +156,42 @@ public class UserService {
         user.setPassword(encryptPassword(passwordSupplied));
         user.setAccountUpdated(new Date());
 
-        try {
-            Stopwatch stopwatch = Stopwatch.createStarted();
-            userRepository.save(user);
-            stopwatch.stop();
-            statsDClient.recordExecutionTime(MetricsConstants.TIMER_DATABASE_USER_SAVE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
-            logger.info("User information updated successfully!");
-        } catch (Exception e) {
-            return null;
-        }
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        userRepository.save(user);
+        stopwatch.stop();
+        statsDClient.recordExecutionTime(MetricsConstants.TIMER_DATABASE_USER_SAVE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        //The old credentials must not be accepted anymore once the password has changed
+        verifiedCredentialCache.invalidateUser(id);
+        logger.info("User information updated successfully!");
 
         return user;
     }
 
+    /**
+     * Returns the ETag of the User's information, derived from the User's version without loading the User. Null if
+     * the User doesn't exist.
+     *
+     * @param id
+     * @return String
+     */
+    @Transactional(readOnly = true)
+    public String getUserETag(String id) {
+        return userRepository.findVersionById(id)
+                .map(version -> Hashing.murmur3_128().newHasher()
+                        .putString(id, StandardCharsets.UTF_8)
+                        .putLong(version)
+                        .hash()
+                        .toString())
+                .orElse(null);
+    }
+
     /**
      * Fetches the User Object based on the userId supplied.
      *
      * @param id
      * @return User
      */
+    @Transactional(readOnly = true)
     public User getUserDetails(String id) {
         try {
             Stopwatch stopwatch = Stopwatch.createStarted();
@@ -248,19 +291,14 @@ public class UserService {
     }
 
     /**
-     * Helper function to check if the email supplied during the POST API is duplicate or not
+     * Helper function to check if the email supplied during the POST API is duplicate or not. This is only a fast
+     * path for a friendly error, the unique constraint on the email is what enforces it.
      *
      * @param email
      * @return
      */
     private boolean checkDuplicateEmail(String email) {
-        List<User> users = userRepository.findAll();
-        for (User user : users) {
-            if (user.getEmail().equals(email)) {
-                return true;
-            }
-        }
-        return false;
+        return userRepository.existsByEmail(email);
     }
 
     /**
@@ -270,5 +308,6 @@ public class UserService {
      */
     public void deleteUser(User user) {
         userRepository.delete(user);
+        verifiedCredentialCache.invalidateUser(user.getId());
     }
 }
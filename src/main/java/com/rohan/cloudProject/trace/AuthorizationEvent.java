@@ -0,0 +1,19 @@
+package com.rohan.cloudProject.trace;
+
+/**
+ * Event for the Basic Authentication of a request, created by {@link FlightEvents#authorization()}.
+ *
+ * @author rohan_bharti
+ */
+public interface AuthorizationEvent {
+
+    void begin();
+
+    void setUserId(String userId);
+
+    void setCached(boolean cached);
+
+    void setOutcome(String outcome);
+
+    void commit();
+}
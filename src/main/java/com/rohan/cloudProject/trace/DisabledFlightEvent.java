@@ -0,0 +1,67 @@
+package com.rohan.cloudProject.trace;
+
+/**
+ * Event handed out by {@link FlightEvents} when the runtime has no Flight Recorder. Records nothing.
+ *
+ * @author rohan_bharti
+ */
+final class DisabledFlightEvent implements AuthorizationEvent, PersistenceEvent, StorageEvent, QueueMessageEvent {
+
+    static final DisabledFlightEvent INSTANCE = new DisabledFlightEvent();
+
+    private DisabledFlightEvent() {
+    }
+
+    @Override
+    public void begin() {
+    }
+
+    @Override
+    public void setUserId(String userId) {
+    }
+
+    @Override
+    public void setCached(boolean cached) {
+    }
+
+    @Override
+    public void setOperation(String operation) {
+    }
+
+    @Override
+    public void setBillId(String billId) {
+    }
+
+    @Override
+    public void setTarget(String target) {
+    }
+
+    @Override
+    public void setFileName(String fileName) {
+    }
+
+    @Override
+    public void setMessageId(String messageId) {
+    }
+
+    @Override
+    public void setBillsDue(int billsDue) {
+    }
+
+    @Override
+    public void setBytes(long bytes) {
+    }
+
+    @Override
+    public void setOutcome(String outcome) {
+    }
+
+    @Override
+    public boolean shouldCommit() {
+        return false;
+    }
+
+    @Override
+    public void commit() {
+    }
+}
@@ -0,0 +1,100 @@
+package com.rohan.cloudProject.trace;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Factory of the Flight Recorder events, with the constants and helpers they share. The events cost next to nothing
+ * while no recording is running, so they are always emitted. On a runtime without the Flight Recorder (Java 8 before
+ * 8u262) the events handed out record nothing, the jdk.jfr classes are then never loaded.
+ *
+ * @author rohan_bharti
+ */
+public class FlightEvents {
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_FAILED = "failed";
+    public static final String OUTCOME_REJECTED = "rejected";
+    public static final String OUTCOME_DROPPED = "dropped";
+
+    private static final boolean FLIGHT_RECORDER_AVAILABLE = isFlightRecorderAvailable(FlightEvents.class.getClassLoader());
+
+    private FlightEvents() {
+    }
+
+    public static AuthorizationEvent authorization() {
+        return FLIGHT_RECORDER_AVAILABLE ? JfrEvents.authorization() : DisabledFlightEvent.INSTANCE;
+    }
+
+    public static PersistenceEvent persistence() {
+        return FLIGHT_RECORDER_AVAILABLE ? JfrEvents.persistence() : DisabledFlightEvent.INSTANCE;
+    }
+
+    public static StorageEvent storage() {
+        return FLIGHT_RECORDER_AVAILABLE ? JfrEvents.storage() : DisabledFlightEvent.INSTANCE;
+    }
+
+    public static QueueMessageEvent queueMessage() {
+        return FLIGHT_RECORDER_AVAILABLE ? JfrEvents.queueMessage() : DisabledFlightEvent.INSTANCE;
+    }
+
+    /**
+     * Checks if the runtime has the Flight Recorder's event API. Public for the tests, which skip the recordings
+     * without it.
+     *
+     * @param classLoader
+     * @return boolean
+     */
+    public static boolean isFlightRecorderAvailable(ClassLoader classLoader) {
+        try {
+            Class.forName("jdk.jfr.Event", false, classLoader);
+            return true;
+        } catch (ClassNotFoundException | LinkageError ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the id of the Bill addressed by the current request's path, or null outside of a request.
+     *
+     * @return String
+     */
+    @SuppressWarnings("unchecked")
+    public static String currentBillId() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return null;
+        }
+        Map<String, String> pathVariables = (Map<String, String>) requestAttributes.getAttribute(
+                HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (pathVariables == null) {
+            return null;
+        }
+        return pathVariables.containsKey("billId") ? pathVariables.get("billId") : pathVariables.get("id");
+    }
+
+    /**
+     * Creates the jdk.jfr backed events. Kept apart so it is only loaded once the Flight Recorder is known to exist.
+     */
+    private static class JfrEvents {
+
+        static AuthorizationEvent authorization() {
+            return new JfrAuthorizationEvent();
+        }
+
+        static PersistenceEvent persistence() {
+            return new JfrPersistenceEvent();
+        }
+
+        static StorageEvent storage() {
+            return new JfrStorageEvent();
+        }
+
+        static QueueMessageEvent queueMessage() {
+            return new JfrQueueMessageEvent();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.rohan.cloudProject.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * Flight Recorder event for the Basic Authentication of a request.
+ *
+ * @author rohan_bharti
+ */
+@Name("com.rohan.cloudProject.Authorization")
+@Label("Authorization")
+@Description("Basic Authentication of a request")
+@Category({"Cloud Project", "Security"})
+@StackTrace(false)
+@Setter
+public class JfrAuthorizationEvent extends jdk.jfr.Event implements AuthorizationEvent {
+
+    @Label("User Id")
+    private String userId;
+
+    @Label("Cached")
+    @Description("The credentials were verified recently and BCrypt was skipped")
+    private boolean cached;
+
+    @Label("Outcome")
+    private String outcome = FlightEvents.OUTCOME_FAILED;
+}
@@ -0,0 +1,37 @@
+package com.rohan.cloudProject.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * Flight Recorder event for a call to a Spring Data repository.
+ *
+ * @author rohan_bharti
+ */
+@Name("com.rohan.cloudProject.Persistence")
+@Label("Persistence")
+@Description("Call to a Spring Data repository")
+@Category({"Cloud Project", "Persistence"})
+@StackTrace(false)
+@Setter
+public class JfrPersistenceEvent extends jdk.jfr.Event implements PersistenceEvent {
+
+    @Label("Operation")
+    @Description("Repository and method called")
+    private String operation;
+
+    @Label("User Id")
+    @Description("User authenticated by the request making the call")
+    private String userId;
+
+    @Label("Bill Id")
+    @Description("Bill addressed by the request making the call")
+    private String billId;
+
+    @Label("Outcome")
+    private String outcome = FlightEvents.OUTCOME_FAILED;
+}
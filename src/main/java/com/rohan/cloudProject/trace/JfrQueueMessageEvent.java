@@ -0,0 +1,38 @@
+package com.rohan.cloudProject.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * Flight Recorder event for the handling of a bills due message from the SQS Queue, up to its publication on SNS.
+ *
+ * @author rohan_bharti
+ */
+@Name("com.rohan.cloudProject.QueueMessage")
+@Label("Queue Message")
+@Description("Bills due message handled from the SQS Queue, up to its publication on SNS")
+@Category({"Cloud Project", "Messaging"})
+@StackTrace(false)
+@Setter
+public class JfrQueueMessageEvent extends jdk.jfr.Event implements QueueMessageEvent {
+
+    @Label("Message Id")
+    private String messageId;
+
+    @Label("User Id")
+    private String userId;
+
+    @Label("Bills Due")
+    private int billsDue;
+
+    @Label("Bytes")
+    @Description("Size of the message published on SNS")
+    private long bytes;
+
+    @Label("Outcome")
+    private String outcome = FlightEvents.OUTCOME_FAILED;
+}
@@ -0,0 +1,40 @@
+package com.rohan.cloudProject.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * Flight Recorder event for a file being stored on, or deleted from, S3 or the local FileSystem.
+ *
+ * @author rohan_bharti
+ */
+@Name("com.rohan.cloudProject.Storage")
+@Label("File Storage")
+@Category({"Cloud Project", "Storage"})
+@StackTrace(false)
+@Setter
+public class JfrStorageEvent extends jdk.jfr.Event implements StorageEvent {
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Target")
+    private String target;
+
+    @Label("Bill Id")
+    private String billId;
+
+    @Label("File Name")
+    private String fileName;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    @Label("Outcome")
+    private String outcome = FlightEvents.OUTCOME_FAILED;
+}
@@ -0,0 +1,23 @@
+package com.rohan.cloudProject.trace;
+
+/**
+ * Event for a call to a Spring Data repository, created by {@link FlightEvents#persistence()}.
+ *
+ * @author rohan_bharti
+ */
+public interface PersistenceEvent {
+
+    void begin();
+
+    void setOperation(String operation);
+
+    void setUserId(String userId);
+
+    void setBillId(String billId);
+
+    void setOutcome(String outcome);
+
+    boolean shouldCommit();
+
+    void commit();
+}
@@ -0,0 +1,24 @@
+package com.rohan.cloudProject.trace;
+
+/**
+ * Event for the handling of a bills due message from the SQS Queue, created by
+ * {@link FlightEvents#queueMessage()}.
+ *
+ * @author rohan_bharti
+ */
+public interface QueueMessageEvent {
+
+    void begin();
+
+    void setMessageId(String messageId);
+
+    void setUserId(String userId);
+
+    void setBillsDue(int billsDue);
+
+    void setBytes(long bytes);
+
+    void setOutcome(String outcome);
+
+    void commit();
+}
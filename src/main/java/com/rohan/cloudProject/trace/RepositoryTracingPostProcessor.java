@@ -0,0 +1,54 @@
+package com.rohan.cloudProject.trace;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+/**
+ * BeanPostProcessor timing every call to the Spring Data repositories as the "db" phase of the current request, and
+ * emitting a Persistence Flight Recorder event for it.
+ *
+ * @author rohan_bharti
+ */
+@Component
+public class RepositoryTracingPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof Repository)) {
+            return bean;
+        }
+
+        MethodInterceptor interceptor = newInterceptor(beanName);
+        //The repositories are proxies already, the interceptor goes first so it covers the transaction as well
+        if (bean instanceof Advised && !((Advised) bean).isFrozen()) {
+            ((Advised) bean).addAdvice(0, interceptor);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.addAdvice(interceptor);
+        return proxyFactory.getProxy();
+    }
+
+    private static MethodInterceptor newInterceptor(String repositoryName) {
+        return invocation -> {
+            PersistenceEvent event = FlightEvents.persistence();
+            event.begin();
+            try (RequestTrace.Phase phase = RequestTrace.phase(RequestTrace.PHASE_DB)) {
+                Object result = invocation.proceed();
+                event.setOutcome(FlightEvents.OUTCOME_SUCCESS);
+                return result;
+            } finally {
+                if (event.shouldCommit()) {
+                    event.setOperation(repositoryName + "." + invocation.getMethod().getName());
+                    event.setUserId(RequestTrace.getAuthenticatedUserId());
+                    event.setBillId(FlightEvents.currentBillId());
+                    event.commit();
+                }
+            }
+        };
+    }
+}
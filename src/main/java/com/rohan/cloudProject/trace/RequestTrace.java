@@ -0,0 +1,230 @@
+package com.rohan.cloudProject.trace;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request breakdown of where the time went. The trace is bound to the request's thread by the
+ * RequestMetricsFilter, and the phases are timed around authentication, repository calls, file storage and response
+ * writing. Work done outside the request's thread, like the asynchronous file storage, isn't traced.
+ *
+ * @author rohan_bharti
+ */
+public class RequestTrace {
+
+    public static final String PHASE_AUTH = "auth";
+    public static final String PHASE_DB = "db";
+    public static final String PHASE_STORAGE = "storage";
+    public static final String PHASE_RESPONSE = "response";
+    public static final String PHASE_APP = "app";
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private static final Phase NO_PHASE = new Phase(null, null);
+
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Accumulated nanoseconds and number of calls of every phase
+     */
+    private final Map<String, long[]> phases = new LinkedHashMap<>();
+
+    /**
+     * Time spent in the outermost phases, nested phases are already part of their parent's time
+     */
+    private long outermostPhaseNanos;
+
+    private int openPhases;
+
+    private int sqlStatements;
+
+    private long responseStartNanos;
+
+    private boolean serverTimingSent;
+
+    private String userId;
+
+    /**
+     * Starts a trace bound to the current thread.
+     *
+     * @return RequestTrace
+     */
+    public static RequestTrace begin() {
+        RequestTrace trace = new RequestTrace();
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    /**
+     * Unbinds the current thread's trace.
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Returns the current thread's trace, or null outside of a request.
+     *
+     * @return RequestTrace
+     */
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Starts timing a phase of the current request, which ends when the returned Phase is closed. Does nothing
+     * outside of a request.
+     *
+     * @param name
+     * @return Phase
+     */
+    public static Phase phase(String name) {
+        RequestTrace trace = CURRENT.get();
+        if (trace == null) {
+            return NO_PHASE;
+        }
+        trace.openPhases++;
+        return new Phase(trace, name);
+    }
+
+    /**
+     * Counts an SQL statement sent by the current request.
+     */
+    public static void countSqlStatement() {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.sqlStatements++;
+        }
+    }
+
+    /**
+     * Remembers the User authenticated by the current request, for the Flight Recorder events and the read replica
+     * routing.
+     *
+     * @param userId
+     */
+    public static void setAuthenticatedUserId(String userId) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.userId = userId;
+        }
+    }
+
+    /**
+     * Returns the User authenticated by the current request, or null.
+     *
+     * @return String
+     */
+    public static String getAuthenticatedUserId() {
+        RequestTrace trace = CURRENT.get();
+        return trace == null ? null : trace.userId;
+    }
+
+    /**
+     * Marks the moment the handler is done and the response body starts being written.
+     */
+    public void markResponseStart() {
+        if (responseStartNanos == 0) {
+            responseStartNanos = System.nanoTime();
+        }
+    }
+
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    public int getSqlStatements() {
+        return sqlStatements;
+    }
+
+    public boolean isServerTimingSent() {
+        return serverTimingSent;
+    }
+
+    /**
+     * Returns the milliseconds spent in every phase so far. The "response" phase runs from the start of the response
+     * body to now, and the "app" phase is whatever time isn't part of any other phase.
+     *
+     * @return Map<String, Double>
+     */
+    public Map<String, Double> getPhaseMillis() {
+        long now = System.nanoTime();
+        long responseNanos = responseStartNanos == 0 ? 0 : now - responseStartNanos;
+        long appNanos = Math.max(0, now - startNanos - responseNanos - outermostPhaseNanos);
+
+        Map<String, Double> phaseMillis = new LinkedHashMap<>();
+        for (Map.Entry<String, long[]> phase : phases.entrySet()) {
+            phaseMillis.put(phase.getKey(), toMillis(phase.getValue()[0]));
+        }
+        phaseMillis.put(PHASE_APP, toMillis(appNanos));
+        if (responseNanos > 0) {
+            phaseMillis.put(PHASE_RESPONSE, toMillis(responseNanos));
+        }
+        return phaseMillis;
+    }
+
+    /**
+     * Returns the phases so far as the value of a Server-Timing header, and remembers it has been sent.
+     *
+     * @return String
+     */
+    public String toServerTiming() {
+        serverTimingSent = true;
+        StringBuilder serverTiming = new StringBuilder();
+        for (Map.Entry<String, Double> phase : getPhaseMillis().entrySet()) {
+            long[] calls = phases.get(phase.getKey());
+            serverTiming.append(phase.getKey()).append(";dur=").append(format(phase.getValue()));
+            if (calls != null && calls[1] > 1) {
+                serverTiming.append(";desc=\"").append(calls[1]).append(" calls\"");
+            }
+            serverTiming.append(", ");
+        }
+        serverTiming.append("sql;desc=\"").append(sqlStatements).append(" statements\", ");
+        serverTiming.append("total;dur=").append(format(toMillis(getElapsedNanos())));
+        return serverTiming.toString();
+    }
+
+    private void addPhase(String name, long nanos) {
+        long[] phase = phases.computeIfAbsent(name, key -> new long[2]);
+        phase[0] += nanos;
+        phase[1]++;
+        if (--openPhases == 0) {
+            outermostPhaseNanos += nanos;
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static String format(double millis) {
+        return String.format(Locale.ROOT, "%.1f", millis);
+    }
+
+    /**
+     * A running phase, to be closed once the phase's work is done.
+     */
+    public static class Phase implements AutoCloseable {
+
+        private final RequestTrace trace;
+
+        private final String name;
+
+        private final long startNanos;
+
+        private Phase(RequestTrace trace, String name) {
+            this.trace = trace;
+            this.name = name;
+            this.startNanos = trace == null ? 0 : System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            if (trace != null) {
+                trace.addPhase(name, System.nanoTime() - startNanos);
+            }
+        }
+    }
+}
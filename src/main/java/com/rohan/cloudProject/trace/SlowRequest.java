@@ -0,0 +1,32 @@
+package com.rohan.cloudProject.trace;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Snapshot of a request which took longer than the slow request threshold, with its per-phase breakdown. Only the
+ * route template is kept, not the request's uri, so the ids of the Users' bills and files aren't exposed.
+ *
+ * @author rohan_bharti
+ */
+@Getter
+@AllArgsConstructor
+public class SlowRequest {
+
+    private final Date timestamp;
+
+    private final String method;
+
+    private final String route;
+
+    private final int status;
+
+    private final double totalMillis;
+
+    private final int sqlStatements;
+
+    private final Map<String, Double> phaseMillis;
+}
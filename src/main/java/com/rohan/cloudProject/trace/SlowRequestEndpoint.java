@@ -0,0 +1,35 @@
+package com.rohan.cloudProject.trace;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator Endpoint exposing the slow requests kept by the flight recorder, at /actuator/slowrequests on the
+ * management port.
+ *
+ * @author rohan_bharti
+ */
+@Component
+@Endpoint(id = "slowrequests")
+public class SlowRequestEndpoint {
+
+    /**
+     * Autowired slowRequestRecorder.
+     */
+    @Autowired
+    private SlowRequestRecorder slowRequestRecorder;
+
+    /**
+     * Returns the slow requests, the most recent first.
+     *
+     * @return List<SlowRequest>
+     */
+    @ReadOperation
+    public List<SlowRequest> slowRequests() {
+        return slowRequestRecorder.getSlowRequests();
+    }
+}
@@ -0,0 +1,79 @@
+package com.rohan.cloudProject.trace;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Flight recorder keeping the most recent slow requests in a bounded ring buffer, overwriting the oldest ones.
+ *
+ * @author rohan_bharti
+ */
+@Component
+public class SlowRequestRecorder {
+
+    /**
+     * Requests taking at least this long are recorded
+     */
+    @Value("${requests.slow.thresholdMillis:1000}")
+    private long thresholdMillis;
+
+    /**
+     * Number of slow requests kept
+     */
+    @Value("${requests.slow.capacity:100}")
+    private int capacity;
+
+    private AtomicReferenceArray<SlowRequest> slowRequests;
+
+    private final AtomicLong recorded = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        slowRequests = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Records the request if its trace took longer than the threshold.
+     *
+     * @param trace
+     * @param method
+     * @param route
+     * @param status
+     */
+    public void record(RequestTrace trace, String method, String route, int status) {
+        long elapsedNanos = trace.getElapsedNanos();
+        if (elapsedNanos < TimeUnit.MILLISECONDS.toNanos(thresholdMillis)) {
+            return;
+        }
+
+        SlowRequest slowRequest = new SlowRequest(new Date(), method, route, status,
+                elapsedNanos / (double) TimeUnit.MILLISECONDS.toNanos(1), trace.getSqlStatements(),
+                trace.getPhaseMillis());
+        slowRequests.set((int) (recorded.getAndIncrement() % capacity), slowRequest);
+    }
+
+    /**
+     * Returns the slow requests kept, the most recent first.
+     *
+     * @return List<SlowRequest>
+     */
+    public List<SlowRequest> getSlowRequests() {
+        long last = recorded.get();
+        List<SlowRequest> requests = new ArrayList<>(capacity);
+        for (long i = last - 1; i >= 0 && i >= last - capacity; i--) {
+            SlowRequest slowRequest = slowRequests.get((int) (i % capacity));
+            if (slowRequest != null) {
+                requests.add(slowRequest);
+            }
+        }
+        return requests;
+    }
+}
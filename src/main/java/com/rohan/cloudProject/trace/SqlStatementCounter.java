@@ -0,0 +1,18 @@
+package com.rohan.cloudProject.trace;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate StatementInspector counting the SQL statements sent by the current request, including the ones lazily
+ * loaded while the response is written. Registered with the hibernate.session_factory.statement_inspector property.
+ *
+ * @author rohan_bharti
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        RequestTrace.countSqlStatement();
+        return sql;
+    }
+}
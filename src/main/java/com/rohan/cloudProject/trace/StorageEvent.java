@@ -0,0 +1,26 @@
+package com.rohan.cloudProject.trace;
+
+/**
+ * Event for a file being stored on, or deleted from, S3 or the local FileSystem, created by
+ * {@link FlightEvents#storage()}.
+ *
+ * @author rohan_bharti
+ */
+public interface StorageEvent {
+
+    void begin();
+
+    void setOperation(String operation);
+
+    void setTarget(String target);
+
+    void setBillId(String billId);
+
+    void setFileName(String fileName);
+
+    void setBytes(long bytes);
+
+    void setOutcome(String outcome);
+
+    void commit();
+}
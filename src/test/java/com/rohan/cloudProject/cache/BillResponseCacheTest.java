@@ -0,0 +1,106 @@
+package com.rohan.cloudProject.cache;
+
+import com.timgroup.statsd.StatsDClient;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Test class for the version stamped cache of the bills' JSON.
+ *
+ * @author rohan_bharti
+ */
+public class BillResponseCacheTest {
+
+    @Mock
+    private StatsDClient statsDClient;
+
+    private BillResponseCache billResponseCache;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        billResponseCache = new BillResponseCache();
+        ReflectionTestUtils.setField(billResponseCache, "statsDClient", statsDClient);
+        ReflectionTestUtils.setField(billResponseCache, "enabled", true);
+        ReflectionTestUtils.setField(billResponseCache, "capacityBytes", 64 * 1024L);
+        ReflectionTestUtils.setField(billResponseCache, "blockBytes", 1024);
+        ReflectionTestUtils.setField(billResponseCache, "maximumEntryBytes", 4096);
+        ReflectionTestUtils.setField(billResponseCache, "expireAfterWriteMillis", 60000L);
+        ReflectionTestUtils.setField(billResponseCache, "maximumTrackedUsers", 1L);
+        billResponseCache.init();
+    }
+
+    /**
+     * Test to ensure a write outdates the User's responses loaded before it, and only theirs.
+     */
+    @Test
+    public void outdatesUsersResponsesOnWrite() throws IOException {
+        long version = billResponseCache.currentVersion();
+        billResponseCache.put("user-1", "bill-1", version, json("{\"vendor\":\"A\"}"));
+        billResponseCache.put("user-1", BillResponseCache.ALL_BILLS, version, json("[{\"vendor\":\"A\"}]"));
+        Assert.assertEquals(read("user-1", "bill-1"), "{\"vendor\":\"A\"}");
+
+        billResponseCache.invalidateUser("user-1");
+        Assert.assertNull(billResponseCache.get("user-1", "bill-1"));
+        Assert.assertNull(billResponseCache.get("user-1", BillResponseCache.ALL_BILLS));
+
+        billResponseCache.put("user-1", "bill-1", billResponseCache.currentVersion(), json("{\"vendor\":\"B\"}"));
+        Assert.assertEquals(read("user-1", "bill-1"), "{\"vendor\":\"B\"}");
+    }
+
+    /**
+     * Test to ensure a response loaded while a write was committed isn't served once the write is done.
+     */
+    @Test
+    public void skipsResponseLoadedBeforeCommittedWrite() {
+        long version = billResponseCache.currentVersion();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            billResponseCache.invalidateUser("user-1");
+            billResponseCache.put("user-1", "bill-1", version, json("{\"vendor\":\"A\"}"));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        Assert.assertNull(billResponseCache.get("user-1", "bill-1"));
+    }
+
+    /**
+     * Test to ensure the responses of a User whose write is no longer tracked stay outdated.
+     */
+    @Test
+    public void keepsResponsesOutdatedWhenWriteIsNoLongerTracked() {
+        long version = billResponseCache.currentVersion();
+        billResponseCache.put("user-1", "bill-1", version, json("{\"vendor\":\"A\"}"));
+
+        billResponseCache.invalidateUser("user-1");
+        billResponseCache.invalidateUser("user-2");
+
+        Assert.assertNull(billResponseCache.get("user-1", "bill-1"));
+    }
+
+    private String read(String userId, String billId) throws IOException {
+        CachedResponse cachedResponse = billResponseCache.get(userId, billId);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        cachedResponse.writeTo(outputStream);
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] json(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,104 @@
+package com.rohan.cloudProject.cache;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Test class for the off heap store of the serialized responses.
+ *
+ * @author rohan_bharti
+ */
+public class OffHeapResponseStoreTest {
+
+    private OffHeapResponseStore store;
+
+    @Before
+    public void init() {
+        store = new OffHeapResponseStore(4 * 64, 64);
+    }
+
+    /**
+     * Test to ensure the bytes spread over several blocks are read back unchanged.
+     */
+    @Test
+    public void readsBackBytesSpreadOverBlocks() throws IOException {
+        byte[] bytes = randomBytes(150);
+        Assert.assertTrue(store.put("user-1/bill-1", 1, null, bytes));
+
+        Assert.assertArrayEquals(read("user-1/bill-1", 0), bytes);
+        Assert.assertEquals(store.getUsedBytes(), 3 * 64);
+    }
+
+    /**
+     * Test to ensure the least recently used entries are evicted to make room for a new one.
+     */
+    @Test
+    public void evictsLeastRecentlyUsedEntries() throws IOException {
+        store.put("user-1/bill-1", 1, null, randomBytes(64));
+        store.put("user-1/bill-2", 1, null, randomBytes(64));
+        store.put("user-1/bill-3", 1, null, randomBytes(64));
+        read("user-1/bill-1", 0);
+
+        Assert.assertTrue(store.put("user-1/bill-4", 1, null, randomBytes(192)));
+        Assert.assertNotNull(read("user-1/bill-1", 0));
+        Assert.assertNull(read("user-1/bill-2", 0));
+        Assert.assertNull(read("user-1/bill-3", 0));
+        Assert.assertEquals(store.getEvictionCount(), 2);
+    }
+
+    /**
+     * Test to ensure the blocks of an entry being read aren't reused until it is released.
+     */
+    @Test
+    public void keepsBlocksOfPinnedEntry() throws IOException {
+        byte[] bytes = randomBytes(256);
+        store.put("user-1/bill-1", 1, null, bytes);
+        OffHeapResponseStore.Entry pinned = store.acquire("user-1/bill-1", 0, 0);
+
+        Assert.assertFalse(store.put("user-1/bill-2", 1, null, randomBytes(64)));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        store.writeTo(pinned, outputStream);
+        Assert.assertArrayEquals(outputStream.toByteArray(), bytes);
+
+        store.release(pinned);
+        Assert.assertTrue(store.put("user-1/bill-2", 1, null, randomBytes(64)));
+    }
+
+    /**
+     * Test to ensure outdated entries are dropped, and aren't stored over newer ones.
+     */
+    @Test
+    public void dropsOutdatedVersions() throws IOException {
+        store.put("user-1/bill-1", 2, null, randomBytes(10));
+        Assert.assertFalse(store.put("user-1/bill-1", 1, null, randomBytes(10)));
+
+        Assert.assertNull(read("user-1/bill-1", 3));
+        Assert.assertEquals(store.size(), 0);
+        Assert.assertEquals(store.getUsedBytes(), 0);
+    }
+
+    private byte[] read(String key, long minimumVersion) throws IOException {
+        OffHeapResponseStore.Entry entry = store.acquire(key, minimumVersion, 0);
+        if (entry == null) {
+            return null;
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            store.writeTo(entry, outputStream);
+        } finally {
+            store.release(entry);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
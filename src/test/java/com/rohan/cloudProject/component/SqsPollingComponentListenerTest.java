@@ -0,0 +1,168 @@
+package com.rohan.cloudProject.component;
+
+import com.amazonaws.services.sns.model.PublishResult;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
+import com.amazonaws.services.sqs.model.SendMessageRequest;
+import com.rohan.cloudProject.local.InMemoryAmazonSQS;
+import com.rohan.cloudProject.model.User;
+import com.rohan.cloudProject.service.BillService;
+import com.rohan.cloudProject.service.SnsService;
+import com.rohan.cloudProject.service.UserService;
+import com.timgroup.statsd.StatsDClient;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for the batched SQS Queue consumer, run against the in-memory SQS stand-in.
+ *
+ * @author rohan_bharti
+ */
+public class SqsPollingComponentListenerTest {
+
+    private final String queueUrl = "https://sqs.us-east-1.amazonaws.com/123456789012/billsDue";
+
+    @InjectMocks
+    private SqsPollingComponentListener sqsPollingComponentListener;
+
+    @Spy
+    private InMemoryAmazonSQS amazonSqsClient = new InMemoryAmazonSQS();
+
+    @Mock
+    private SnsService snsService;
+
+    @Mock
+    private BillService billService;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private StatsDClient statsDClient;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(sqsPollingComponentListener, "amazonSqsUrl", queueUrl);
+        ReflectionTestUtils.setField(sqsPollingComponentListener, "maxMessages", 10);
+        ReflectionTestUtils.setField(sqsPollingComponentListener, "waitTimeSeconds", 0);
+        ReflectionTestUtils.setField(sqsPollingComponentListener, "workers", 4);
+        ReflectionTestUtils.setField(sqsPollingComponentListener, "pollDelayMillis", 10L);
+        sqsPollingComponentListener.init();
+
+        User dummyUser = new User("Rohan", "Bharti", "rohan@xyz.com", "Qwertyuiop1234@");
+        when(userService.getUserDetails(anyString())).thenReturn(dummyUser);
+        when(billService.getAllBillsDueByUserId(anyString(), anyLong())).thenReturn(new ArrayList<>());
+        when(snsService.publishBillsDue(anyString()))
+                .thenReturn(CompletableFuture.completedFuture(new PublishResult().withMessageId("1")));
+    }
+
+    @After
+    public void shutdown() {
+        sqsPollingComponentListener.stop();
+        sqsPollingComponentListener.shutdown();
+    }
+
+    /**
+     * Test to ensure the queue is polled on its own thread once started, and no more once stopped.
+     */
+    @Test
+    public void pollsOnItsOwnThreadUntilStopped() throws Exception {
+        amazonSqsClient.sendMessage(new SendMessageRequest(queueUrl, "user-1,7"));
+
+        sqsPollingComponentListener.start();
+        Assert.assertTrue(sqsPollingComponentListener.isRunning());
+        verify(snsService, timeout(5000)).publishBillsDue(anyString());
+
+        sqsPollingComponentListener.stop();
+        Assert.assertFalse(sqsPollingComponentListener.isRunning());
+        clearInvocations(amazonSqsClient);
+        Thread.sleep(100);
+        verify(amazonSqsClient, never()).receiveMessage(any(ReceiveMessageRequest.class));
+    }
+
+    /**
+     * Test to ensure a batch of messages is received in one call, processed and deleted in one batch.
+     */
+    @Test
+    public void processesAndDeletesBatchOfMessages() {
+        for (int i = 0; i < 5; i++) {
+            amazonSqsClient.sendMessage(new SendMessageRequest(queueUrl, "user-" + i + ",7"));
+        }
+
+        sqsPollingComponentListener.getMessageFromQueue();
+
+        verify(amazonSqsClient, times(1)).receiveMessage(any(ReceiveMessageRequest.class));
+        verify(amazonSqsClient, times(1)).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+        verify(snsService, times(5)).publishBillsDue(anyString());
+        Assert.assertEquals(amazonSqsClient.getQueueSize(queueUrl), 0);
+        Assert.assertEquals(amazonSqsClient.getInFlightCount(), 0);
+    }
+
+    /**
+     * Test to ensure a message which fails to be processed is not deleted and gets redelivered, while the rest of the
+     * batch is deleted.
+     */
+    @Test
+    public void keepsFailedMessagesForRedelivery() {
+        when(billService.getAllBillsDueByUserId(eq("broken-user"), anyLong())).thenThrow(new IllegalStateException());
+
+        amazonSqsClient.sendMessage(new SendMessageRequest(queueUrl, "user-1,7"));
+        amazonSqsClient.sendMessage(new SendMessageRequest(queueUrl, "broken-user,7"));
+
+        sqsPollingComponentListener.getMessageFromQueue();
+
+        Assert.assertEquals(amazonSqsClient.getInFlightCount(), 1);
+        amazonSqsClient.returnInFlightMessages();
+        Assert.assertEquals(amazonSqsClient.getQueueSize(queueUrl), 1);
+    }
+
+    /**
+     * Test to ensure a message whose SNS publish fails is not deleted.
+     */
+    @Test
+    public void keepsMessagesWithFailedPublishForRedelivery() {
+        CompletableFuture<PublishResult> failedPublish = new CompletableFuture<>();
+        failedPublish.completeExceptionally(new IllegalStateException("The SNS Topic doesn't exist"));
+        when(snsService.publishBillsDue(anyString())).thenReturn(failedPublish);
+
+        amazonSqsClient.sendMessage(new SendMessageRequest(queueUrl, "user-1,7"));
+
+        sqsPollingComponentListener.getMessageFromQueue();
+
+        Assert.assertEquals(amazonSqsClient.getInFlightCount(), 1);
+    }
+
+    /**
+     * Test to ensure a malformed message is dropped instead of being redelivered forever.
+     */
+    @Test
+    public void dropsMalformedMessages() {
+        amazonSqsClient.sendMessage(new SendMessageRequest(queueUrl, "not-a-valid-message"));
+        amazonSqsClient.sendMessage(new SendMessageRequest(queueUrl, "user-1,seven"));
+        amazonSqsClient.sendMessage(new SendMessageRequest(queueUrl, "user-1,-7"));
+
+        sqsPollingComponentListener.getMessageFromQueue();
+
+        verify(billService, never()).getAllBillsDueByUserId(anyString(), anyLong());
+        verify(snsService, never()).publishBillsDue(anyString());
+        Assert.assertEquals(amazonSqsClient.getInFlightCount(), 0);
+        Assert.assertEquals(amazonSqsClient.getQueueSize(queueUrl), 0);
+    }
+}
@@ -0,0 +1,123 @@
+package com.rohan.cloudProject.datasource;
+
+import com.rohan.cloudProject.trace.RequestTrace;
+import com.timgroup.statsd.StatsDClient;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+/**
+ * Test class for the read replica routing, run against two in-memory H2 databases.
+ *
+ * @author rohan_bharti
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    private static final String SERVICE_READ = "com.rohan.cloudProject.service.BillService.getBillByBillId";
+
+    private static final String SERVICE_WRITE = "com.rohan.cloudProject.service.BillService.updateBillByBillId";
+
+    private static final String REPOSITORY_READ = "org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById";
+
+    @Mock
+    private StatsDClient statsDClient;
+
+    private DataSourceTransactionManager transactionManager;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+
+        ReadAfterWriteTracker readAfterWriteTracker = new ReadAfterWriteTracker();
+        ReflectionTestUtils.setField(readAfterWriteTracker, "readAfterWriteMillis", 60000L);
+        ReflectionTestUtils.setField(readAfterWriteTracker, "maximumTrackedUsers", 100L);
+        readAfterWriteTracker.init();
+
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(createDatabase(ReplicaRoutingDataSource.PRIMARY),
+                createDatabase(ReplicaRoutingDataSource.REPLICA), readAfterWriteTracker, statsDClient);
+        routingDataSource.afterPropertiesSet();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        dataSource.setDefaultAutoCommit(true);
+
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        RequestTrace.begin();
+    }
+
+    @After
+    public void cleanup() {
+        RequestTrace.end();
+    }
+
+    /**
+     * Test to ensure only the services' read only transactions are sent to the replica.
+     */
+    @Test
+    public void sendsServiceReadOnlyTransactionsToReplica() {
+        Assert.assertEquals(readDatabaseName(SERVICE_READ, true), ReplicaRoutingDataSource.REPLICA);
+        Assert.assertEquals(readDatabaseName(SERVICE_WRITE, false), ReplicaRoutingDataSource.PRIMARY);
+        Assert.assertEquals(readDatabaseName(REPOSITORY_READ, true), ReplicaRoutingDataSource.PRIMARY);
+        Assert.assertEquals(jdbcTemplate.queryForObject("select name from database_name", String.class),
+                ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    /**
+     * Test to ensure a User's reads go to the primary after their write is committed, while the other Users' reads and
+     * the reads after a rolled back write still go to the replica.
+     */
+    @Test
+    public void keepsReadsOnPrimaryAfterWrite() {
+        RequestTrace.setAuthenticatedUserId("user-1");
+        write(false);
+        Assert.assertEquals(readDatabaseName(SERVICE_READ, true), ReplicaRoutingDataSource.PRIMARY);
+
+        RequestTrace.setAuthenticatedUserId("user-2");
+        Assert.assertEquals(readDatabaseName(SERVICE_READ, true), ReplicaRoutingDataSource.REPLICA);
+
+        RequestTrace.setAuthenticatedUserId("user-3");
+        write(true);
+        Assert.assertEquals(readDatabaseName(SERVICE_READ, true), ReplicaRoutingDataSource.REPLICA);
+    }
+
+    private String readDatabaseName(String transactionName, boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setName(transactionName);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+                jdbcTemplate.queryForObject("select name from database_name", String.class));
+    }
+
+    private void write(boolean rollback) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setName(SERVICE_WRITE);
+        transactionTemplate.execute(status -> {
+            jdbcTemplate.update("update database_name set updates = updates + 1");
+            if (rollback) {
+                status.setRollbackOnly();
+            }
+            return null;
+        });
+    }
+
+    private DataSource createDatabase(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("create table database_name (name varchar(16), updates int)");
+        template.update("insert into database_name values (?, 0)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,60 @@
+package com.rohan.cloudProject.filter;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Test class for the correlation id Filter.
+ *
+ * @author rohan_bharti
+ */
+public class CorrelationIdFilterTest {
+
+    private final CorrelationIdFilter correlationIdFilter = new CorrelationIdFilter();
+
+    /**
+     * Test to ensure the caller's correlation id is logged with the request, sent back and cleared afterwards.
+     */
+    @Test
+    public void reusesSuppliedCorrelationId() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/bills");
+        request.addHeader(CorrelationIdFilter.CORRELATION_ID_HEADER, "1-5e1b4151-5ac6c58f0c2e");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        String loggedCorrelationId = filter(request, response);
+
+        Assert.assertEquals(loggedCorrelationId, "1-5e1b4151-5ac6c58f0c2e");
+        Assert.assertEquals(response.getHeader(CorrelationIdFilter.CORRELATION_ID_HEADER), "1-5e1b4151-5ac6c58f0c2e");
+        Assert.assertNull(MDC.get(CorrelationIdFilter.CORRELATION_ID_KEY));
+    }
+
+    /**
+     * Test to ensure a malformed correlation id is replaced with a generated one.
+     */
+    @Test
+    public void replacesMalformedCorrelationId() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/bills");
+        request.addHeader(CorrelationIdFilter.CORRELATION_ID_HEADER, "abc\n{\"level\":\"ERROR\"}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        String loggedCorrelationId = filter(request, response);
+
+        Assert.assertTrue(loggedCorrelationId.matches("[0-9a-f]{2,32}"));
+        Assert.assertEquals(response.getHeader(CorrelationIdFilter.CORRELATION_ID_HEADER), loggedCorrelationId);
+        Assert.assertNull(MDC.get(CorrelationIdFilter.CORRELATION_ID_KEY));
+    }
+
+    private String filter(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        AtomicReference<String> loggedCorrelationId = new AtomicReference<>();
+        FilterChain filterChain = (servletRequest, servletResponse) ->
+                loggedCorrelationId.set(MDC.get(CorrelationIdFilter.CORRELATION_ID_KEY));
+        correlationIdFilter.doFilter(request, response, filterChain);
+        return loggedCorrelationId.get();
+    }
+}
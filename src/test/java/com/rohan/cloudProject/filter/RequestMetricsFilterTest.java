@@ -0,0 +1,123 @@
+package com.rohan.cloudProject.filter;
+
+import com.rohan.cloudProject.configuration.MetricsConstants;
+import com.rohan.cloudProject.trace.RequestTrace;
+import com.rohan.cloudProject.trace.SlowRequestRecorder;
+import com.timgroup.statsd.StatsDClient;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Test class for the request timing Filter.
+ *
+ * @author rohan_bharti
+ */
+public class RequestMetricsFilterTest {
+
+    @InjectMocks
+    private RequestMetricsFilter requestMetricsFilter;
+
+    @Mock
+    private StatsDClient statsDClient;
+
+    @Mock
+    private SlowRequestRecorder slowRequestRecorder;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    /**
+     * Test to ensure the request is counted and timed on the endpoint's metrics, tagged with the status class.
+     */
+    @Test
+    public void timesRequestByRouteMethodAndStatusClass() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/bill/1234");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain filterChain = (servletRequest, servletResponse) -> {
+            servletRequest.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/v1/bill/{id}");
+            response.setStatus(404);
+        };
+
+        requestMetricsFilter.doFilter(request, response, filterChain);
+
+        verify(statsDClient).incrementCounter(MetricsConstants.ENDPOINT_BILL_HTTP_GET);
+        verify(statsDClient).recordExecutionTime(eq(MetricsConstants.TIMER_BILL_HTTP_GET + ".4xx"), anyLong());
+    }
+
+    /**
+     * Test to ensure the request's phases are sent as a Server-Timing header and its trace is handed to the flight
+     * recorder.
+     */
+    @Test
+    public void tracesRequestPhases() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/bills");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain filterChain = (servletRequest, servletResponse) -> {
+            servletRequest.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/v1/bills");
+            try (RequestTrace.Phase phase = RequestTrace.phase(RequestTrace.PHASE_AUTH)) {
+                RequestTrace.countSqlStatement();
+            }
+        };
+
+        requestMetricsFilter.doFilter(request, response, filterChain);
+
+        String serverTiming = response.getHeader("Server-Timing");
+        Assert.assertTrue(serverTiming.startsWith("auth;dur="));
+        Assert.assertTrue(serverTiming.contains("sql;desc=\"1 statements\""));
+        verify(slowRequestRecorder).record(any(RequestTrace.class), eq("GET"), eq("/v1/bills"), eq(200));
+        Assert.assertNull(RequestTrace.current());
+    }
+
+    /**
+     * Test to ensure a request failing with an exception is still timed, as a server error.
+     */
+    @Test
+    public void timesFailedRequestAsServerError() {
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/v1/user/self");
+        FilterChain filterChain = (servletRequest, servletResponse) -> {
+            servletRequest.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/v1/user/self");
+            throw new IllegalStateException();
+        };
+
+        try {
+            requestMetricsFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+            Assert.fail();
+        } catch (Exception ex) {
+            Assert.assertTrue(ex instanceof IllegalStateException);
+        }
+
+        verify(statsDClient).incrementCounter(MetricsConstants.ENDPOINT_USER_HTTP_PUT);
+        verify(statsDClient).recordExecutionTime(eq(MetricsConstants.TIMER_USER_HTTP_PUT + ".5xx"), anyLong());
+    }
+
+    /**
+     * Test to ensure routes without their own constants get metric names from their route template, and requests
+     * without a handler share the unmapped metrics.
+     */
+    @Test
+    public void namesOtherRoutesFromTheirTemplate() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/actuator/health");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/actuator/health");
+        Assert.assertArrayEquals(new String[]{"endpoint.actuator.health.http.get", "timer.actuator.health.http.get"},
+                RequestMetricsFilter.getEndpointMetrics(request));
+
+        Assert.assertArrayEquals(new String[]{MetricsConstants.ENDPOINT_UNMAPPED_HTTP, MetricsConstants.TIMER_UNMAPPED_HTTP},
+                RequestMetricsFilter.getEndpointMetrics(new MockHttpServletRequest("GET", "/missing")));
+    }
+}
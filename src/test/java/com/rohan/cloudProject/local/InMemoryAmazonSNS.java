@@ -0,0 +1,76 @@
+package com.rohan.cloudProject.local;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sns.AbstractAmazonSNSAsync;
+import com.amazonaws.services.sns.model.ListTopicsRequest;
+import com.amazonaws.services.sns.model.ListTopicsResult;
+import com.amazonaws.services.sns.model.NotFoundException;
+import com.amazonaws.services.sns.model.PublishRequest;
+import com.amazonaws.services.sns.model.PublishResult;
+import com.amazonaws.services.sns.model.Topic;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local in-memory stand-in for the asynchronous Amazon SNS client. Knows a fixed set of topics and counts the messages
+ * published on each of them instead of delivering them.
+ *
+ * @author rohan_bharti
+ */
+public class InMemoryAmazonSNS extends AbstractAmazonSNSAsync {
+
+    private final Map<String, AtomicLong> publishedMessages = new ConcurrentHashMap<>();
+
+    public InMemoryAmazonSNS(String... topicArns) {
+        for (String topicArn : topicArns) {
+            publishedMessages.put(topicArn, new AtomicLong());
+        }
+    }
+
+    @Override
+    public ListTopicsResult listTopics(ListTopicsRequest request) {
+        ListTopicsResult result = new ListTopicsResult();
+        for (String topicArn : publishedMessages.keySet()) {
+            result.withTopics(new Topic().withTopicArn(topicArn));
+        }
+        return result;
+    }
+
+    @Override
+    public Future<PublishResult> publishAsync(PublishRequest request, AsyncHandler<PublishRequest, PublishResult> asyncHandler) {
+        AtomicLong published = publishedMessages.get(request.getTopicArn());
+        if (published == null) {
+            NotFoundException notFound = new NotFoundException("Topic does not exist");
+            asyncHandler.onError(notFound);
+            CompletableFuture<PublishResult> failed = new CompletableFuture<>();
+            failed.completeExceptionally(notFound);
+            return failed;
+        }
+
+        published.incrementAndGet();
+        PublishResult result = new PublishResult().withMessageId(UUID.randomUUID().toString());
+        asyncHandler.onSuccess(request, result);
+        return CompletableFuture.completedFuture(result);
+    }
+
+    /**
+     * Returns the number of messages published on the topic.
+     *
+     * @param topicArn
+     * @return long
+     */
+    public long getPublishedCount(String topicArn) {
+        AtomicLong published = publishedMessages.get(topicArn);
+        return published == null ? 0 : published.get();
+    }
+
+    @Override
+    public void shutdown() {
+        //Nothing to release
+    }
+}
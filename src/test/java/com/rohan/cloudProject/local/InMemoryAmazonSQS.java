@@ -0,0 +1,128 @@
+package com.rohan.cloudProject.local;
+
+import com.amazonaws.services.sqs.AbstractAmazonSQS;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResultEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageResult;
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.MessageSystemAttributeName;
+import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
+import com.amazonaws.services.sqs.model.ReceiveMessageResult;
+import com.amazonaws.services.sqs.model.SendMessageRequest;
+import com.amazonaws.services.sqs.model.SendMessageResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Local in-memory stand-in for the Amazon SQS client. Supports sending, receiving in batches and deleting messages,
+ * received messages stay in flight until they are deleted or returned to their queue.
+ *
+ * @author rohan_bharti
+ */
+public class InMemoryAmazonSQS extends AbstractAmazonSQS {
+
+    private final Map<String, Queue<Message>> queues = new ConcurrentHashMap<>();
+
+    private final Map<String, Message> inFlightMessages = new ConcurrentHashMap<>();
+
+    private final Map<String, String> inFlightQueueUrls = new ConcurrentHashMap<>();
+
+    @Override
+    public SendMessageResult sendMessage(SendMessageRequest request) {
+        Message message = new Message()
+                .withMessageId(UUID.randomUUID().toString())
+                .withBody(request.getMessageBody());
+        message.addAttributesEntry(MessageSystemAttributeName.SentTimestamp.toString(),
+                String.valueOf(System.currentTimeMillis()));
+        getQueue(request.getQueueUrl()).add(message);
+        return new SendMessageResult().withMessageId(message.getMessageId());
+    }
+
+    @Override
+    public ReceiveMessageResult receiveMessage(ReceiveMessageRequest request) {
+        int maxMessages = request.getMaxNumberOfMessages() == null ? 1 : request.getMaxNumberOfMessages();
+        Queue<Message> queue = getQueue(request.getQueueUrl());
+
+        List<Message> messages = new ArrayList<>(maxMessages);
+        Message message;
+        while (messages.size() < maxMessages && (message = queue.poll()) != null) {
+            String receiptHandle = UUID.randomUUID().toString();
+            message.setReceiptHandle(receiptHandle);
+            inFlightMessages.put(receiptHandle, message);
+            inFlightQueueUrls.put(receiptHandle, request.getQueueUrl());
+            messages.add(message);
+        }
+        return new ReceiveMessageResult().withMessages(messages);
+    }
+
+    @Override
+    public DeleteMessageResult deleteMessage(DeleteMessageRequest request) {
+        inFlightQueueUrls.remove(request.getReceiptHandle());
+        inFlightMessages.remove(request.getReceiptHandle());
+        return new DeleteMessageResult();
+    }
+
+    @Override
+    public DeleteMessageBatchResult deleteMessageBatch(DeleteMessageBatchRequest request) {
+        DeleteMessageBatchResult result = new DeleteMessageBatchResult();
+        for (DeleteMessageBatchRequestEntry entry : request.getEntries()) {
+            inFlightQueueUrls.remove(entry.getReceiptHandle());
+            if (inFlightMessages.remove(entry.getReceiptHandle()) != null) {
+                result.withSuccessful(new DeleteMessageBatchResultEntry().withId(entry.getId()));
+            } else {
+                result.withFailed(new BatchResultErrorEntry().withId(entry.getId())
+                        .withCode("ReceiptHandleIsInvalid").withSenderFault(true)
+                        .withMessage("The receipt handle is not in flight"));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Puts every message received but not deleted back on its queue, like an expired visibility timeout would.
+     */
+    public void returnInFlightMessages() {
+        for (String receiptHandle : new ArrayList<>(inFlightMessages.keySet())) {
+            Message message = inFlightMessages.remove(receiptHandle);
+            getQueue(inFlightQueueUrls.remove(receiptHandle)).add(message);
+        }
+    }
+
+    /**
+     * Returns the number of messages waiting on the queue, not counting the ones in flight.
+     *
+     * @param queueUrl
+     * @return int
+     */
+    public int getQueueSize(String queueUrl) {
+        return getQueue(queueUrl).size();
+    }
+
+    /**
+     * Returns the number of messages received but not deleted yet.
+     *
+     * @return int
+     */
+    public int getInFlightCount() {
+        return inFlightMessages.size();
+    }
+
+    private Queue<Message> getQueue(String queueUrl) {
+        return queues.computeIfAbsent(queueUrl, url -> new ConcurrentLinkedQueue<>());
+    }
+
+    @Override
+    public void shutdown() {
+        //Nothing to release
+    }
+}
@@ -0,0 +1,337 @@
+package com.rohan.cloudProject.local;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.DeleteObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ListPartsRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PartListing;
+import com.amazonaws.services.s3.model.PartSummary;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.google.common.io.ByteStreams;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the Amazon S3 client. Supports single part puts, multipart uploads (as used by the
+ * TransferManager) and deletes. The bytes of the objects and of the uploaded parts are kept in memory, or as files in a
+ * blob directory, one sub directory per bucket, when one is supplied. The metadata is always kept in memory.
+ *
+ * @author rohan_bharti
+ */
+public class LocalAmazonS3 extends AbstractAmazonS3 {
+
+    /**
+     * Namespace the multipart parts are stored under until their upload completes
+     */
+    private static final String UPLOADS = ".uploads";
+
+    private final BlobStore blobs;
+
+    private final Map<String, ObjectMetadata> objectMetadata = new ConcurrentHashMap<>();
+
+    /**
+     * Size of each part uploaded, by upload id
+     */
+    private final Map<String, SortedMap<Integer, Long>> multipartUploads = new ConcurrentHashMap<>();
+
+    private final Map<String, ObjectMetadata> multipartMetadata = new ConcurrentHashMap<>();
+
+    private final AtomicInteger partsUploaded = new AtomicInteger();
+
+    /**
+     * Creates the stand-in keeping the bytes in memory.
+     */
+    public LocalAmazonS3() {
+        this.blobs = new InMemoryBlobStore();
+    }
+
+    /**
+     * Creates the stand-in keeping the bytes as files in the blob directory.
+     *
+     * @param blobDirectory
+     * @throws IOException
+     */
+    public LocalAmazonS3(Path blobDirectory) throws IOException {
+        Files.createDirectories(blobDirectory);
+        this.blobs = new DirectoryBlobStore(blobDirectory);
+    }
+
+    @Override
+    public PutObjectResult putObject(PutObjectRequest request) {
+        ObjectMetadata metadata = request.getMetadata() == null ? new ObjectMetadata() : request.getMetadata();
+        long length;
+        try (InputStream is = request.getFile() != null ? new FileInputStream(request.getFile()) : request.getInputStream()) {
+            length = blobs.write(request.getBucketName(), request.getKey(), is);
+        } catch (IOException ex) {
+            throw new SdkClientException("The object couldn't be stored", ex);
+        }
+
+        if (metadata.getContentLength() > 0 && metadata.getContentLength() != length) {
+            deleteObject(new DeleteObjectRequest(request.getBucketName(), request.getKey()));
+            throw new AmazonS3Exception("The content length doesn't match the bytes sent");
+        }
+        metadata.setContentLength(length);
+        objectMetadata.put(request.getBucketName() + "/" + request.getKey(), metadata);
+        return new PutObjectResult();
+    }
+
+    @Override
+    public PutObjectResult putObject(String bucketName, String key, File file) {
+        return putObject(new PutObjectRequest(bucketName, key, file));
+    }
+
+    @Override
+    public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+        String uploadId = UUID.randomUUID().toString();
+        multipartUploads.put(uploadId, new ConcurrentSkipListMap<>());
+        multipartMetadata.put(uploadId,
+                request.getObjectMetadata() == null ? new ObjectMetadata() : request.getObjectMetadata());
+
+        InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        result.setUploadId(uploadId);
+        return result;
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+        SortedMap<Integer, Long> parts = getUploadParts(request.getUploadId());
+        long length;
+        try (InputStream is = request.getFile() != null ? new FileInputStream(request.getFile()) : request.getInputStream()) {
+            if (request.getFile() != null) {
+                ByteStreams.skipFully(is, request.getFileOffset());
+            }
+            length = blobs.write(UPLOADS, partName(request.getUploadId(), request.getPartNumber()),
+                    ByteStreams.limit(is, request.getPartSize()));
+        } catch (IOException ex) {
+            throw new SdkClientException("The part couldn't be stored", ex);
+        }
+        parts.put(request.getPartNumber(), length);
+        partsUploaded.incrementAndGet();
+
+        UploadPartResult result = new UploadPartResult();
+        result.setPartNumber(request.getPartNumber());
+        result.setETag(String.valueOf(request.getPartNumber()));
+        return result;
+    }
+
+    @Override
+    public PartListing listParts(ListPartsRequest request) {
+        SortedMap<Integer, Long> parts = getUploadParts(request.getUploadId());
+
+        PartListing partListing = new PartListing();
+        partListing.setBucketName(request.getBucketName());
+        partListing.setKey(request.getKey());
+        partListing.setUploadId(request.getUploadId());
+        for (Map.Entry<Integer, Long> part : parts.entrySet()) {
+            PartSummary partSummary = new PartSummary();
+            partSummary.setPartNumber(part.getKey());
+            partSummary.setETag(String.valueOf(part.getKey()));
+            partSummary.setSize(part.getValue());
+            partListing.getParts().add(partSummary);
+        }
+        return partListing;
+    }
+
+    @Override
+    public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        getUploadParts(request.getUploadId());
+        ObjectMetadata metadata = multipartMetadata.get(request.getUploadId());
+        try {
+            List<InputStream> parts = new ArrayList<>(request.getPartETags().size());
+            for (PartETag partETag : request.getPartETags()) {
+                parts.add(blobs.read(UPLOADS, partName(request.getUploadId(), partETag.getPartNumber())));
+            }
+            try (InputStream is = new SequenceInputStream(Collections.enumeration(parts))) {
+                metadata.setContentLength(blobs.write(request.getBucketName(), request.getKey(), is));
+            }
+        } catch (IOException ex) {
+            throw new SdkClientException("The multipart upload couldn't be completed", ex);
+        }
+        objectMetadata.put(request.getBucketName() + "/" + request.getKey(), metadata);
+        deleteUpload(request.getUploadId());
+
+        CompleteMultipartUploadResult result = new CompleteMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        return result;
+    }
+
+    @Override
+    public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+        deleteUpload(request.getUploadId());
+    }
+
+    @Override
+    public void deleteObject(DeleteObjectRequest request) {
+        try {
+            blobs.delete(request.getBucketName(), request.getKey());
+        } catch (IOException ex) {
+            throw new SdkClientException("The object couldn't be deleted", ex);
+        }
+        objectMetadata.remove(request.getBucketName() + "/" + request.getKey());
+    }
+
+    @Override
+    public ObjectMetadata getObjectMetadata(String bucketName, String key) {
+        ObjectMetadata metadata = objectMetadata.get(bucketName + "/" + key);
+        if (metadata == null) {
+            AmazonS3Exception notFound = new AmazonS3Exception("Not Found");
+            notFound.setStatusCode(404);
+            throw notFound;
+        }
+        return metadata;
+    }
+
+    @Override
+    public void shutdown() {
+        //Nothing to release
+    }
+
+    /**
+     * Returns the bytes stored for the object, or null if it doesn't exist.
+     *
+     * @param bucketName
+     * @param key
+     * @return byte[]
+     */
+    public byte[] getObjectBytes(String bucketName, String key) {
+        if (!objectMetadata.containsKey(bucketName + "/" + key)) {
+            return null;
+        }
+        try (InputStream is = blobs.read(bucketName, key)) {
+            return ByteStreams.toByteArray(is);
+        } catch (IOException ex) {
+            throw new SdkClientException("The object couldn't be read", ex);
+        }
+    }
+
+    /**
+     * Returns the number of multipart parts uploaded so far.
+     *
+     * @return int
+     */
+    public int getPartsUploaded() {
+        return partsUploaded.get();
+    }
+
+    private SortedMap<Integer, Long> getUploadParts(String uploadId) {
+        SortedMap<Integer, Long> parts = multipartUploads.get(uploadId);
+        if (parts == null) {
+            throw new AmazonS3Exception("The multipart upload doesn't exist");
+        }
+        return parts;
+    }
+
+    private void deleteUpload(String uploadId) {
+        SortedMap<Integer, Long> parts = multipartUploads.remove(uploadId);
+        multipartMetadata.remove(uploadId);
+        if (parts == null) {
+            return;
+        }
+        try {
+            for (Integer partNumber : parts.keySet()) {
+                blobs.delete(UPLOADS, partName(uploadId, partNumber));
+            }
+        } catch (IOException ex) {
+            throw new SdkClientException("The multipart upload's parts couldn't be deleted", ex);
+        }
+    }
+
+    private static String partName(String uploadId, int partNumber) {
+        return uploadId + "-" + partNumber;
+    }
+
+    /**
+     * Storage backend of the bytes, every blob is named by a namespace, the bucket or the uploads, and a name.
+     */
+    private interface BlobStore {
+
+        long write(String namespace, String name, InputStream content) throws IOException;
+
+        InputStream read(String namespace, String name) throws IOException;
+
+        void delete(String namespace, String name) throws IOException;
+    }
+
+    private static class InMemoryBlobStore implements BlobStore {
+
+        private final Map<String, byte[]> blobs = new ConcurrentHashMap<>();
+
+        @Override
+        public long write(String namespace, String name, InputStream content) throws IOException {
+            byte[] bytes = ByteStreams.toByteArray(content);
+            blobs.put(namespace + "/" + name, bytes);
+            return bytes.length;
+        }
+
+        @Override
+        public InputStream read(String namespace, String name) {
+            return new ByteArrayInputStream(blobs.get(namespace + "/" + name));
+        }
+
+        @Override
+        public void delete(String namespace, String name) {
+            blobs.remove(namespace + "/" + name);
+        }
+    }
+
+    private static class DirectoryBlobStore implements BlobStore {
+
+        private final Path blobDirectory;
+
+        DirectoryBlobStore(Path blobDirectory) {
+            this.blobDirectory = blobDirectory;
+        }
+
+        @Override
+        public long write(String namespace, String name, InputStream content) throws IOException {
+            Path blob = getBlobPath(namespace, name);
+            Files.createDirectories(blob.getParent());
+            return Files.copy(content, blob, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        @Override
+        public InputStream read(String namespace, String name) throws IOException {
+            return Files.newInputStream(getBlobPath(namespace, name));
+        }
+
+        @Override
+        public void delete(String namespace, String name) throws IOException {
+            Files.deleteIfExists(getBlobPath(namespace, name));
+        }
+
+        private Path getBlobPath(String namespace, String name) {
+            return blobDirectory.resolve(namespace).resolve(name.replace('/', '_'));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.rohan.cloudProject.metrics;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test class for the aggregating StatsD client, flushing to a local UDP socket.
+ *
+ * @author rohan_bharti
+ */
+public class AggregatingStatsDClientTest {
+
+    private DatagramSocket server;
+
+    private AggregatingStatsDClient statsDClient;
+
+    @Before
+    public void init() throws Exception {
+        server = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        server.setSoTimeout(200);
+        statsDClient = new AggregatingStatsDClient("csye6225", "127.0.0.1", server.getLocalPort(), 3600000);
+    }
+
+    @After
+    public void shutdown() {
+        statsDClient.stop();
+        server.close();
+    }
+
+    /**
+     * Test to ensure counters and timers are aggregated into a single packet per flush.
+     */
+    @Test
+    public void aggregatesMetricsIntoOnePacket() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            statsDClient.incrementCounter("endpoint.bill.http.get");
+            statsDClient.recordExecutionTime("timer.bill.http.get.2xx", i % 2 == 0 ? 10 : 30);
+        }
+        statsDClient.recordExecutionTime("timer.database.bill.get", 7);
+
+        statsDClient.flush();
+
+        List<String> packets = receivePackets();
+        Assert.assertEquals(packets.size(), 1);
+        List<String> metrics = Arrays.asList(packets.get(0).split("\n"));
+        Assert.assertTrue(metrics.contains("csye6225.endpoint.bill.http.get:1000|c"));
+        Assert.assertTrue(metrics.contains("csye6225.timer.bill.http.get.2xx:20.000|ms|@0.001"));
+        Assert.assertTrue(metrics.contains("csye6225.timer.bill.http.get.2xx.max:30|g"));
+        Assert.assertTrue(metrics.contains("csye6225.timer.database.bill.get:7|ms"));
+    }
+
+    /**
+     * Test to ensure only what was recorded since the last flush is sent.
+     */
+    @Test
+    public void sendsOnlyTheIntervalsDelta() throws Exception {
+        statsDClient.count("endpoint.user.http.get", 5);
+        statsDClient.flush();
+        receivePackets();
+
+        statsDClient.count("endpoint.user.http.get", 2);
+        statsDClient.flush();
+
+        List<String> packets = receivePackets();
+        Assert.assertEquals(packets.size(), 1);
+        Assert.assertEquals(packets.get(0), "csye6225.endpoint.user.http.get:2|c");
+
+        statsDClient.flush();
+        Assert.assertTrue(receivePackets().isEmpty());
+    }
+
+    /**
+     * Test to ensure no packet grows over the size which fits in one frame.
+     */
+    @Test
+    public void splitsLargeFlushesIntoBoundedPackets() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            statsDClient.incrementCounter("endpoint.generated.metric.number." + i);
+        }
+
+        statsDClient.flush();
+
+        List<String> packets = receivePackets();
+        Assert.assertTrue(packets.size() > 1);
+        int metrics = 0;
+        for (String packet : packets) {
+            Assert.assertTrue(packet.getBytes(StandardCharsets.UTF_8).length <= AggregatingStatsDClient.MAX_PACKET_BYTES);
+            metrics += packet.split("\n").length;
+        }
+        Assert.assertEquals(metrics, 200);
+    }
+
+    private List<String> receivePackets() throws Exception {
+        List<String> packets = new ArrayList<>();
+        byte[] buffer = new byte[65536];
+        while (true) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                server.receive(packet);
+            } catch (SocketTimeoutException e) {
+                return packets;
+            }
+            packets.add(new String(packet.getData(), 0, packet.getLength(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.rohan.cloudProject.metrics;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+/**
+ * Test class for the rolling latency histograms.
+ *
+ * @author rohan_bharti
+ */
+public class LatencyHistogramsTest {
+
+    private final String timer = "timer.bill.http.get.2xx";
+
+    private LatencyHistograms latencyHistograms;
+
+    @Before
+    public void init() {
+        latencyHistograms = new LatencyHistograms();
+        ReflectionTestUtils.setField(latencyHistograms, "slotMillis", 60000L);
+        ReflectionTestUtils.setField(latencyHistograms, "windowsMinutes", new int[]{1, 5});
+        latencyHistograms.init();
+    }
+
+    /**
+     * Test to ensure the percentiles of a window only cover its closed slots.
+     */
+    @Test
+    public void summarizesClosedSlotsOfEachWindow() {
+        for (int i = 1; i <= 100; i++) {
+            latencyHistograms.record(timer, i);
+        }
+        latencyHistograms.rotate();
+        latencyHistograms.record(timer, 5000);
+
+        Map<String, LatencySummary> summaries = latencyHistograms.getSummaries(timer);
+        LatencySummary lastMinute = summaries.get("1m");
+        Assert.assertEquals(lastMinute.getCount(), 100);
+        Assert.assertEquals(lastMinute.getP50(), 50);
+        Assert.assertEquals(lastMinute.getP99(), 99);
+        Assert.assertEquals(lastMinute.getMax(), 100);
+
+        latencyHistograms.rotate();
+        summaries = latencyHistograms.getSummaries(timer);
+        Assert.assertEquals(summaries.get("1m").getCount(), 1);
+        Assert.assertEquals(summaries.get("5m").getCount(), 101);
+        Assert.assertTrue(summaries.get("5m").getMax() >= 5000);
+    }
+
+    /**
+     * Test to ensure the oldest slot drops out of the longest window.
+     */
+    @Test
+    public void dropsSlotsOlderThanTheLongestWindow() {
+        latencyHistograms.record(timer, 10);
+        for (int i = 0; i < 6; i++) {
+            latencyHistograms.rotate();
+        }
+
+        Assert.assertEquals(latencyHistograms.getSummaries(timer).get("5m").getCount(), 0);
+        Assert.assertNull(latencyHistograms.getSummaries("timer.unknown"));
+    }
+}
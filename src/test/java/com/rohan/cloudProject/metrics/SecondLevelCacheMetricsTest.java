@@ -0,0 +1,75 @@
+package com.rohan.cloudProject.metrics;
+
+import com.timgroup.statsd.StatsDClient;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Test class for the second level cache metrics.
+ *
+ * @author rohan_bharti
+ */
+public class SecondLevelCacheMetricsTest {
+
+    @Mock
+    private Statistics statistics;
+
+    @Mock
+    private CacheRegionStatistics regionStatistics;
+
+    @Mock
+    private StatsDClient statsDClient;
+
+    private SecondLevelCacheMetrics secondLevelCacheMetrics;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        Mockito.when(statistics.isStatisticsEnabled()).thenReturn(true);
+        Mockito.when(statistics.getSecondLevelCacheRegionNames()).thenReturn(new String[]{"users"});
+        Mockito.when(statistics.getDomainDataRegionStatistics("users")).thenReturn(regionStatistics);
+
+        secondLevelCacheMetrics = new SecondLevelCacheMetrics();
+        ReflectionTestUtils.setField(secondLevelCacheMetrics, "statistics", statistics);
+        ReflectionTestUtils.setField(secondLevelCacheMetrics, "statsDClient", statsDClient);
+    }
+
+    /**
+     * Test to ensure every report only sends the hits and misses since the previous one.
+     */
+    @Test
+    public void reportsHitsAndMissesSinceLastReport() {
+        Mockito.when(regionStatistics.getHitCount()).thenReturn(30L);
+        Mockito.when(regionStatistics.getMissCount()).thenReturn(10L);
+        secondLevelCacheMetrics.report();
+
+        Mockito.verify(statsDClient).count("database.cache.users.hit", 30L);
+        Mockito.verify(statsDClient).count("database.cache.users.miss", 10L);
+        Mockito.verify(statsDClient).recordGaugeValue("database.cache.users.hitRatio", 75L);
+
+        Mockito.when(regionStatistics.getHitCount()).thenReturn(39L);
+        Mockito.when(regionStatistics.getMissCount()).thenReturn(11L);
+        secondLevelCacheMetrics.report();
+
+        Mockito.verify(statsDClient).count("database.cache.users.hit", 9L);
+        Mockito.verify(statsDClient).count("database.cache.users.miss", 1L);
+        Mockito.verify(statsDClient).recordGaugeValue("database.cache.users.hitRatio", 90L);
+    }
+
+    /**
+     * Test to ensure the hit ratio isn't sent for a period without any lookup.
+     */
+    @Test
+    public void skipsHitRatioWithoutLookups() {
+        secondLevelCacheMetrics.report();
+
+        Mockito.verify(statsDClient).count("database.cache.users.hit", 0L);
+        Mockito.verify(statsDClient, Mockito.never()).recordGaugeValue(Mockito.anyString(), Mockito.anyLong());
+    }
+}
@@ -0,0 +1,476 @@
+package com.rohan.cloudProject.perf;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rohan.cloudProject.CloudProjectApplication;
+import com.rohan.cloudProject.repository.BillRepository;
+import com.rohan.cloudProject.repository.UserRepository;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test of the REST APIs. Boots the Application with the "aws" profile, the included "perf" profile
+ * swaps the AWS clients for local stand-ins, seeds a realistic dataset and drives an open-loop mix of the user and bill
+ * endpoints over HTTP at a fixed request rate. Latencies are measured from the time each request was scheduled to be
+ * sent, so a stalled server shows up in the percentiles instead of slowing the load down.
+ *
+ * Every setting is a system property, see {@link Settings}. The report is printed and written to
+ * perf.directory/report.txt.
+ *
+ * @author rohan_bharti
+ */
+public class LoadTestHarness {
+
+    private final Settings settings;
+
+    private final String baseUrl;
+
+    private final List<String> sampleUsers;
+
+    private final List<String[]> sampleBills;
+
+    private final Queue<String[]> createdBills = new ConcurrentLinkedQueue<>();
+
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+
+    private final List<Operation> operations = new ArrayList<>();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final byte[] fileContent;
+
+    private final AtomicLong newUsers = new AtomicLong();
+
+    private int totalWeight;
+
+    private volatile boolean recording;
+
+    public LoadTestHarness(Settings settings, String baseUrl, List<String> sampleUsers, List<String[]> sampleBills) {
+        this.settings = settings;
+        this.baseUrl = baseUrl;
+        this.sampleUsers = sampleUsers;
+        this.sampleBills = sampleBills;
+        this.fileContent = new byte[settings.fileSizeBytes];
+        new Random(settings.seed).nextBytes(fileContent);
+
+        addOperation("GET /v1/user/self", 10, this::getUserSelf);
+        addOperation("POST /v1/user", 1, this::createUser);
+        addOperation("PUT /v1/user/self", 1, this::updateUserSelf);
+        addOperation("GET /v1/bills/page", 20, this::getBillsPage);
+        addOperation("GET /v1/bills", 8, this::getBills);
+        addOperation("GET /v1/bill/{id}", 25, this::getBill);
+        addOperation("GET /v1/bill/{billId}/file/{fileId}", 5, this::getFile);
+        addOperation("GET /v1/bills/due/{daysNum}", 10, this::getBillsDue);
+        addOperation("POST /v1/bill/", 8, this::createBill);
+        addOperation("PUT /v1/bill/{id}", 8, this::updateBill);
+        addOperation("POST /v1/bill/{id}/file", settings.uploads ? 4 : 0, this::uploadFile);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = new Settings();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(CloudProjectApplication.class)
+                .run("--spring.profiles.active=aws", "--spring.profiles.include=perf", "--server.port=0",
+                        "--management.server.port=0", "--perf.directory=" + settings.directory);
+        try {
+            new PerfDataSeeder(context.getBean(UserRepository.class), context.getBean(BillRepository.class),
+                    context.getBean(AmazonS3.class),
+                    new TransactionTemplate(context.getBean(PlatformTransactionManager.class)),
+                    context.getEnvironment().getProperty("amazon.s3.bucketName"), settings).seed();
+
+            List<String> sampleUsers = new ArrayList<>();
+            List<String[]> sampleBills = new ArrayList<>();
+            loadSample(context.getBean(EntityManagerFactory.class), settings, sampleUsers, sampleBills);
+
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            LoadTestHarness harness = new LoadTestHarness(settings, baseUrl, sampleUsers, sampleBills);
+            String report = harness.run();
+            System.out.println(report);
+            Path reportFile = Paths.get(settings.directory, "report.txt");
+            Files.write(reportFile, report.getBytes(StandardCharsets.UTF_8));
+            System.out.println("Report written to " + reportFile.toAbsolutePath());
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * Loads the emails of a random sample of the seeded users, and the ids of their bills and files. Picking the users
+     * first keeps the skew of the bills per user in the traffic.
+     */
+    private static void loadSample(EntityManagerFactory entityManagerFactory, Settings settings,
+                                   List<String> sampleUsers, List<String[]> sampleBills) {
+        Random random = new Random(settings.seed);
+        Set<String> emails = new HashSet<>();
+        while (emails.size() < Math.min(settings.sampleUsers, settings.users)) {
+            emails.add(PerfDataSeeder.email(random.nextInt(settings.users)));
+        }
+        sampleUsers.addAll(emails);
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            List<String> emailList = new ArrayList<>(emails);
+            for (int first = 0; first < emailList.size(); first += 500) {
+                List<Object[]> rows = entityManager.createQuery("select u.email, b.billId, f.fileId from Bill b "
+                        + "join b.user u left join b.billFile f where u.email in :emails", Object[].class)
+                        .setParameter("emails", emailList.subList(first, Math.min(first + 500, emailList.size())))
+                        .getResultList();
+                for (Object[] row : rows) {
+                    sampleBills.add(new String[]{(String) row[0], (String) row[1], (String) row[2]});
+                }
+            }
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    /**
+     * Runs the warmup and the measured period, and returns the report.
+     *
+     * @return String
+     * @throws InterruptedException
+     */
+    public String run() throws InterruptedException {
+        ExecutorService clients = Executors.newFixedThreadPool(settings.concurrency);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / settings.rate;
+        long start = System.nanoTime();
+        long warmupEnd = start + TimeUnit.SECONDS.toNanos(settings.warmupSeconds);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(settings.durationSeconds);
+
+        //Open loop: requests are scheduled at a fixed rate, whether or not the previous ones have completed
+        for (long intended = start; intended < end; intended += intervalNanos) {
+            long delay = intended - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            if (!recording && intended >= warmupEnd) {
+                recording = true;
+            }
+            final long scheduled = intended;
+            final Operation operation = nextOperation();
+            clients.execute(() -> execute(operation, scheduled));
+        }
+        clients.shutdown();
+        clients.awaitTermination(5, TimeUnit.MINUTES);
+        return report();
+    }
+
+    private void execute(Operation operation, long scheduled) {
+        boolean record = recording;
+        int status;
+        try {
+            status = operation.request.send();
+        } catch (IOException | RuntimeException e) {
+            status = -1;
+        }
+        if (record) {
+            stats.get(operation.name).record(System.nanoTime() - scheduled, status);
+        }
+    }
+
+    private String report() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Load test: %d req/s for %ds after a %ds warmup, %d clients, %d seeded users%n",
+                settings.rate, settings.durationSeconds, settings.warmupSeconds, settings.concurrency, settings.users));
+        report.append(String.format("%-38s %9s %7s %9s %9s %9s %9s %9s%n", "Endpoint", "Count", "Errors", "Req/s",
+                "p50 ms", "p99 ms", "p99.9 ms", "Max ms"));
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        for (Map.Entry<String, EndpointStats> entry : stats.entrySet()) {
+            EndpointStats endpointStats = entry.getValue();
+            if (endpointStats.latencies.getTotalCount() == 0) {
+                continue;
+            }
+            appendRow(report, entry.getKey(), endpointStats.latencies, endpointStats.errors.get());
+            total.add(endpointStats.latencies);
+            totalErrors += endpointStats.errors.get();
+        }
+        appendRow(report, "All", total, totalErrors);
+        report.append(String.format("Users created: %d, bills created: %d%n", newUsers.get(), createdBills.size()));
+        return report.toString();
+    }
+
+    private void appendRow(StringBuilder report, String name, Histogram latencies, long errors) {
+        report.append(String.format("%-38s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", name, latencies.getTotalCount(),
+                errors, (double) latencies.getTotalCount() / settings.durationSeconds,
+                millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)), millis(latencies.getMaxValue())));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private void addOperation(String name, int weight, Request request) {
+        if (weight > 0) {
+            operations.add(new Operation(name, weight, request));
+            stats.put(name, new EndpointStats());
+            totalWeight += weight;
+        }
+    }
+
+    private Operation nextOperation() {
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Operation operation : operations) {
+            pick -= operation.weight;
+            if (pick < 0) {
+                return operation;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    private int getUserSelf() throws IOException {
+        return send("GET", "/v1/user/self", randomUser(), null, null);
+    }
+
+    private int createUser() throws IOException {
+        String email = "perf-new-" + System.nanoTime() + "-" + newUsers.incrementAndGet() + "@example.com";
+        return send("POST", "/v1/user", null, "application/json", json("{\"first_name\":\"Perf\","
+                + "\"last_name\":\"User\",\"email_address\":\"" + email + "\",\"password\":\"" + PerfDataSeeder.PASSWORD + "\"}"));
+    }
+
+    private int updateUserSelf() throws IOException {
+        return send("PUT", "/v1/user/self", randomUser(), "application/json", json("{\"first_name\":\"Perf\","
+                + "\"last_name\":\"Updated\",\"password\":\"" + PerfDataSeeder.PASSWORD + "\"}"));
+    }
+
+    private int getBillsPage() throws IOException {
+        return send("GET", "/v1/bills/page?limit=20", randomUser(), null, null);
+    }
+
+    private int getBills() throws IOException {
+        return send("GET", "/v1/bills", randomUser(), null, null);
+    }
+
+    private int getBill() throws IOException {
+        String[] bill = randomBill(false);
+        return send("GET", "/v1/bill/" + bill[1], bill[0], null, null);
+    }
+
+    private int getFile() throws IOException {
+        String[] bill = randomBill(true);
+        if (bill[2] == null) {
+            return send("GET", "/v1/bill/" + bill[1], bill[0], null, null);
+        }
+        return send("GET", "/v1/bill/" + bill[1] + "/file/" + bill[2], bill[0], null, null);
+    }
+
+    private int getBillsDue() throws IOException {
+        return send("GET", "/v1/bills/due/" + (1 + ThreadLocalRandom.current().nextInt(30)), randomUser(), null, null);
+    }
+
+    private int createBill() throws IOException {
+        String email = randomUser();
+        HttpURLConnection connection = open("POST", "/v1/bill/", email, "application/json", billJson());
+        int status = connection.getResponseCode();
+        byte[] response = readResponse(connection, status);
+        if (status == HttpURLConnection.HTTP_CREATED) {
+            JsonNode bill = objectMapper.readTree(response);
+            createdBills.add(new String[]{email, bill.get("id").asText(), null});
+        }
+        return status;
+    }
+
+    private int updateBill() throws IOException {
+        String[] bill = randomBill(false);
+        return send("PUT", "/v1/bill/" + bill[1], bill[0], "application/json", billJson());
+    }
+
+    private int uploadFile() throws IOException {
+        //Files are attached to the bills created during the run, a bill holds only one file
+        String[] bill = createdBills.poll();
+        if (bill == null) {
+            return createBill();
+        }
+        String boundary = "perf" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+        ByteArrayOutputStream body = new ByteArrayOutputStream(fileContent.length + 256);
+        body.write(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"receipt.pdf\"\r\n"
+                + "Content-Type: application/pdf\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.write(fileContent);
+        body.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return send("POST", "/v1/bill/" + bill[1] + "/file" + (settings.asyncUploads ? "?async=true" : ""), bill[0],
+                "multipart/form-data; boundary=" + boundary, body.toByteArray());
+    }
+
+    private byte[] billJson() {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String billDate = dateFormat.format(new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(random.nextInt(30))));
+        String dueDate = dateFormat.format(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(random.nextInt(60))));
+        return json("{\"vendor\":\"Perf Vendor\",\"bill_date\":\"" + billDate + "\",\"due_date\":\"" + dueDate
+                + "\",\"amount_due\":" + (1 + random.nextInt(100000) / 100.0)
+                + ",\"categories\":[\"perf\",\"utilities\"],\"paymentStatus\":\"due\"}");
+    }
+
+    private static byte[] json(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String randomUser() {
+        return sampleUsers.get(ThreadLocalRandom.current().nextInt(sampleUsers.size()));
+    }
+
+    private String[] randomBill(boolean withFile) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String[] bill = sampleBills.get(random.nextInt(sampleBills.size()));
+        //Only a few bills have a file, a handful of tries finds one most of the time
+        for (int i = 0; withFile && bill[2] == null && i < 50; i++) {
+            bill = sampleBills.get(random.nextInt(sampleBills.size()));
+        }
+        return bill;
+    }
+
+    private int send(String method, String path, String email, String contentType, byte[] body) throws IOException {
+        HttpURLConnection connection = open(method, path, email, contentType, body);
+        int status = connection.getResponseCode();
+        readResponse(connection, status);
+        return status;
+    }
+
+    private HttpURLConnection open(String method, String path, String email, String contentType, byte[] body)
+            throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        if (email != null) {
+            connection.setRequestProperty("Authorization", "Basic " + Base64.getEncoder()
+                    .encodeToString((email + ":" + PerfDataSeeder.PASSWORD).getBytes(StandardCharsets.UTF_8)));
+        }
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", contentType);
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream outputStream = connection.getOutputStream()) {
+                outputStream.write(body);
+            }
+        }
+        return connection;
+    }
+
+    /**
+     * Reads the whole response, which lets the connection be reused by the keep-alive cache.
+     */
+    private static byte[] readResponse(HttpURLConnection connection, int status) throws IOException {
+        InputStream inputStream = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if (inputStream == null) {
+            return new byte[0];
+        }
+        try (InputStream response = inputStream) {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = response.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+            return content.toByteArray();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        int send() throws IOException;
+    }
+
+    private static class Operation {
+
+        private final String name;
+
+        private final int weight;
+
+        private final Request request;
+
+        private Operation(String name, int weight, Request request) {
+            this.name = name;
+            this.weight = weight;
+            this.request = request;
+        }
+    }
+
+    private static class EndpointStats {
+
+        private final ConcurrentHistogram latencies = new ConcurrentHistogram(3);
+
+        private final AtomicLong errors = new AtomicLong();
+
+        private void record(long latencyNanos, int status) {
+            latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+            if (status < 200 || status >= 300) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Settings of the load test, read from the system properties.
+     */
+    public static class Settings {
+
+        final String directory = System.getProperty("perf.directory", "./target/perf");
+
+        final int users = Integer.getInteger("perf.users", 100000);
+
+        final int maxBillsPerUser = Integer.getInteger("perf.maxBillsPerUser", 20);
+
+        /**
+         * Higher values give fewer users with many bills
+         */
+        final double billSkew = Double.parseDouble(System.getProperty("perf.billSkew", "3"));
+
+        final double fileRatio = Double.parseDouble(System.getProperty("perf.fileRatio", "0.05"));
+
+        final int fileSizeBytes = Integer.getInteger("perf.fileSizeBytes", 8192);
+
+        final int sampleUsers = Integer.getInteger("perf.sampleUsers", 2000);
+
+        final int rate = Integer.getInteger("perf.rate", 200);
+
+        final int warmupSeconds = Integer.getInteger("perf.warmupSeconds", 30);
+
+        final int durationSeconds = Integer.getInteger("perf.durationSeconds", 120);
+
+        final int concurrency = Integer.getInteger("perf.concurrency", 64);
+
+        final boolean uploads = Boolean.parseBoolean(System.getProperty("perf.uploads", "true"));
+
+        final boolean asyncUploads = Boolean.parseBoolean(System.getProperty("perf.asyncUploads", "false"));
+
+        final long seed = Long.getLong("perf.seed", 42L);
+    }
+}
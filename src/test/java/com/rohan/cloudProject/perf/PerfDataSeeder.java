@@ -0,0 +1,197 @@
+package com.rohan.cloudProject.perf;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.rohan.cloudProject.model.Bill;
+import com.rohan.cloudProject.model.File;
+import com.rohan.cloudProject.model.FileStatus;
+import com.rohan.cloudProject.model.PayStatus;
+import com.rohan.cloudProject.model.User;
+import com.rohan.cloudProject.repository.BillRepository;
+import com.rohan.cloudProject.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seeds the perf database with the users, their bills and the bills' attached files. The number of bills per user is
+ * skewed, most users have a handful of bills while a few have many. Seeding is skipped if the database already holds
+ * the dataset from a previous run.
+ *
+ * @author rohan_bharti
+ */
+public class PerfDataSeeder {
+
+    private final static Logger logger = LoggerFactory.getLogger(PerfDataSeeder.class);
+
+    /**
+     * Password shared by all the seeded users, strong enough to pass the password rules on updates
+     */
+    public static final String PASSWORD = "Perf1234@pass";
+
+    private static final int CHUNK_SIZE = 500;
+
+    private static final List<String> VENDORS = Arrays.asList("Northeastern University", "Comcast", "Eversource",
+            "National Grid", "Verizon", "Amazon", "Geico", "Boston Water and Sewer");
+
+    private static final List<String> CATEGORIES = Arrays.asList("college", "tuition", "utilities", "internet", "phone",
+            "insurance", "groceries", "rent");
+
+    private final UserRepository userRepository;
+
+    private final BillRepository billRepository;
+
+    private final AmazonS3 amazonS3Client;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final String bucketName;
+
+    private final LoadTestHarness.Settings settings;
+
+    private final Random random;
+
+    private final byte[] fileContent;
+
+    private final String fileMd5Hash;
+
+    public PerfDataSeeder(UserRepository userRepository, BillRepository billRepository, AmazonS3 amazonS3Client,
+                          TransactionTemplate transactionTemplate, String bucketName, LoadTestHarness.Settings settings) {
+        this.userRepository = userRepository;
+        this.billRepository = billRepository;
+        this.amazonS3Client = amazonS3Client;
+        this.transactionTemplate = transactionTemplate;
+        this.bucketName = bucketName;
+        this.settings = settings;
+        this.random = new Random(settings.seed);
+        this.fileContent = new byte[settings.fileSizeBytes];
+        random.nextBytes(fileContent);
+        this.fileMd5Hash = md5Hex(fileContent);
+    }
+
+    /**
+     * Returns the email of the seeded user with the index supplied.
+     *
+     * @param index
+     * @return String
+     */
+    public static String email(int index) {
+        return "perf-user-" + index + "@example.com";
+    }
+
+    /**
+     * Seeds the users, bills and files, unless the last user of the dataset already exists.
+     */
+    public void seed() {
+        if (userRepository.existsByEmail(email(settings.users - 1))) {
+            logger.info("PERF: The dataset of " + settings.users + " users is already seeded");
+            return;
+        }
+
+        long started = System.nanoTime();
+        //Hashing once keeps seeding fast, BCrypt takes tens of milliseconds per password
+        String hashedPassword = BCrypt.hashpw(PASSWORD, BCrypt.gensalt(10));
+        long bills = 0;
+        long files = 0;
+        for (int first = 0; first < settings.users; first += CHUNK_SIZE) {
+            int last = Math.min(first + CHUNK_SIZE, settings.users);
+            long[] seeded = seedChunk(first, last, hashedPassword);
+            bills += seeded[0];
+            files += seeded[1];
+            if ((last / CHUNK_SIZE) % 20 == 0) {
+                logger.info("PERF: Seeded " + last + " of " + settings.users + " users");
+            }
+        }
+        logger.info("PERF: Seeded " + settings.users + " users, " + bills + " bills and " + files + " files in "
+                + TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started) + "s");
+    }
+
+    private long[] seedChunk(int first, int last, String hashedPassword) {
+        return transactionTemplate.execute(status -> {
+            Date now = new Date();
+            List<User> users = new ArrayList<>(last - first);
+            for (int i = first; i < last; i++) {
+                User user = new User("Perf", "User" + i, email(i), hashedPassword);
+                user.setAccountCreated(now);
+                user.setAccountUpdated(now);
+                users.add(user);
+            }
+            userRepository.saveAll(users);
+
+            List<Bill> bills = new ArrayList<>();
+            long files = 0;
+            for (User user : users) {
+                int billCount = (int) (settings.maxBillsPerUser * Math.pow(random.nextDouble(), settings.billSkew));
+                for (int i = 0; i < billCount; i++) {
+                    Bill bill = newBill(user, now);
+                    if (random.nextDouble() < settings.fileRatio) {
+                        bill.setBillFile(newFile(user, now));
+                        files++;
+                    }
+                    bills.add(bill);
+                }
+            }
+            billRepository.saveAll(bills);
+            return new long[]{bills.size(), files};
+        });
+    }
+
+    private Bill newBill(User user, Date now) {
+        Bill bill = new Bill();
+        bill.setUser(user);
+        bill.setBillCreated(now);
+        bill.setBillUpdated(now);
+        bill.setVendor(VENDORS.get(random.nextInt(VENDORS.size())));
+        bill.setBillDate(new Date(now.getTime() - TimeUnit.DAYS.toMillis(random.nextInt(60))));
+        //Due dates spread around today, so the bills due endpoint finds some of them
+        bill.setDueDate(new Date(now.getTime() + TimeUnit.DAYS.toMillis(random.nextInt(90) - 30)));
+        bill.setAmountDue(1 + random.nextInt(500000) / 100.0);
+        Set<String> categories = new HashSet<>();
+        for (int i = 0, count = 1 + random.nextInt(3); i < count; i++) {
+            categories.add(CATEGORIES.get(random.nextInt(CATEGORIES.size())));
+        }
+        bill.setCategories(categories);
+        bill.setPayStatus(PayStatus.values()[random.nextInt(PayStatus.values().length)]);
+        return bill;
+    }
+
+    private File newFile(User user, Date now) {
+        String key = "seed-" + UUID.randomUUID() + "-receipt.pdf";
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(fileContent.length);
+        amazonS3Client.putObject(bucketName, key, new ByteArrayInputStream(fileContent), metadata);
+
+        File file = new File();
+        file.setFileName(key);
+        file.setStorageUrl("https://" + bucketName + ".s3.amazonaws.com/" + key);
+        file.setUploadDate(now);
+        file.setUserId(user.getId());
+        file.setFileSize((long) fileContent.length);
+        file.setMd5Hash(fileMd5Hash);
+        file.setStatus(FileStatus.stored);
+        return file;
+    }
+
+    private static String md5Hex(byte[] content) {
+        try {
+            return new BigInteger(1, MessageDigest.getInstance("MD5").digest(content)).toString(16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.rohan.cloudProject.perf;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.sns.AmazonSNSAsync;
+import com.amazonaws.services.sqs.AmazonSQS;
+import com.rohan.cloudProject.local.InMemoryAmazonSNS;
+import com.rohan.cloudProject.local.InMemoryAmazonSQS;
+import com.rohan.cloudProject.local.LocalAmazonS3;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Configuration class for the "perf" profile, providing local stand-ins for the AWS clients of the
+ * WebappConfiguration so the load tests run offline.
+ *
+ * @author rohan_bharti
+ */
+@Configuration
+@Profile("perf")
+public class PerfStandInConfiguration {
+
+    @Bean
+    public AmazonS3 amazonS3Client(@Value("${perf.blobDirectory}") String blobDirectory) throws IOException {
+        return new LocalAmazonS3(Paths.get(blobDirectory));
+    }
+
+    @Bean
+    public AmazonSQS amazonSqsClient() {
+        return new InMemoryAmazonSQS();
+    }
+
+    @Bean
+    public AmazonSNSAsync amazonSNSClient(@Value("${amazon.sns.topic}") String amazonSnsTopic) {
+        return new InMemoryAmazonSNS("arn:aws:sns:us-east-1:000000000000:" + amazonSnsTopic);
+    }
+}
@@ -3,6 +3,9 @@ package com.rohan.cloudProject.security;
 import com.rohan.cloudProject.model.User;
 import com.rohan.cloudProject.model.exception.UserNotFoundException;
 import com.rohan.cloudProject.repository.UserRepository;
+import com.rohan.cloudProject.trace.FlightEvents;
+import com.rohan.cloudProject.trace.FlightRecordings;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -15,10 +18,12 @@ import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.testng.Assert;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
 
 /**
  * Test class for the Basic Authentication functionality.
@@ -37,12 +42,16 @@ public class BasicAuthenticationTest {
     @Autowired
     private BasicAuthentication basicAuthentication;
 
+    @Autowired
+    private VerifiedCredentialCache verifiedCredentialCache;
+
     @Mock
     private UserRepository mockUserRepository;
 
     @Before
     public void init() {
         MockitoAnnotations.initMocks(this);
+        verifiedCredentialCache.invalidateAll();
     }
 
     @Test
@@ -54,16 +63,136 @@ public class BasicAuthenticationTest {
         dummyUser.setEmail(dummyUsername);
         dummyUser.setPassword(encryptPassword(dummyPassword));
 
-        List<User> users = new ArrayList<>();
-        users.add(dummyUser);
-
-        when(mockUserRepository.findAll()).thenReturn(users);
+        when(mockUserRepository.findByEmail(dummyUsername)).thenReturn(Optional.of(dummyUser));
 
         String returnedId = basicAuthentication.authorize(dummyBasicAuthToken);
 
         Assert.assertEquals(returnedId, dummyUser.getId());
     }
 
+    /**
+     * Test to ensure that authorization only fetches the single User row for the email supplied and never
+     * loads the whole users table.
+     */
+    @Test
+    public void checkAuthorizationFetchesSingleUser() {
+        User dummyUser = new User();
+        dummyUser.setId("123");
+        dummyUser.setEmail(dummyUsername);
+        dummyUser.setPassword(encryptPassword(dummyPassword));
+
+        when(mockUserRepository.findByEmail(dummyUsername)).thenReturn(Optional.of(dummyUser));
+
+        basicAuthentication.authorize(dummyBasicAuthToken);
+
+        verify(mockUserRepository, times(1)).findByEmail(anyString());
+        verify(mockUserRepository, never()).findAll();
+    }
+
+    /**
+     * Test to ensure that the credentials verified once are served from the cache, skipping the database and the
+     * BCrypt compare, until the User's cached credentials are invalidated.
+     */
+    @Test
+    public void checkVerifiedCredentialsAreCached() {
+        User dummyUser = new User();
+        dummyUser.setId("123");
+        dummyUser.setEmail(dummyUsername);
+        dummyUser.setPassword(encryptPassword(dummyPassword));
+
+        when(mockUserRepository.findByEmail(dummyUsername)).thenReturn(Optional.of(dummyUser));
+
+        basicAuthentication.authorize(dummyBasicAuthToken);
+        String cachedId = basicAuthentication.authorize(dummyBasicAuthToken);
+
+        Assert.assertEquals(cachedId, dummyUser.getId());
+        verify(mockUserRepository, times(1)).findByEmail(anyString());
+
+        verifiedCredentialCache.invalidateUser(dummyUser.getId());
+        basicAuthentication.authorize(dummyBasicAuthToken);
+
+        verify(mockUserRepository, times(2)).findByEmail(anyString());
+    }
+
+    /**
+     * Test to ensure that credentials verified against a password which was changed meanwhile aren't cached.
+     */
+    @Test
+    public void checkCredentialsVerifiedDuringInvalidationAreNotCached() {
+        User dummyUser = new User();
+        dummyUser.setId("123");
+        dummyUser.setEmail(dummyUsername);
+        dummyUser.setPassword(encryptPassword(dummyPassword));
+
+        //The password changes after the old one has been loaded, but before it has been verified
+        when(mockUserRepository.findByEmail(dummyUsername)).thenAnswer(invocation -> {
+            verifiedCredentialCache.invalidateUser(dummyUser.getId());
+            return Optional.of(dummyUser);
+        });
+
+        basicAuthentication.authorize(dummyBasicAuthToken);
+
+        Assert.assertNull(verifiedCredentialCache.getVerifiedUserId(dummyBasicAuthToken));
+    }
+
+    /**
+     * Test to ensure that an unknown email is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void checkAuthorizationWithUnknownEmail() {
+        when(mockUserRepository.findByEmail(dummyUsername)).thenReturn(Optional.empty());
+
+        basicAuthentication.authorize(dummyBasicAuthToken);
+    }
+
+    /**
+     * Test to ensure that every authorization is recorded as an Authorization Flight Recorder event with its outcome.
+     */
+    @Test
+    public void checkAuthorizationEmitsFlightRecorderEvents() throws Exception {
+        Assume.assumeTrue(FlightEvents.isFlightRecorderAvailable(getClass().getClassLoader()));
+
+        User dummyUser = new User();
+        dummyUser.setId("123");
+        dummyUser.setEmail(dummyUsername);
+        dummyUser.setPassword(encryptPassword(dummyPassword));
+
+        when(mockUserRepository.findByEmail(dummyUsername)).thenReturn(Optional.of(dummyUser));
+
+        List<Map<String, Object>> events = FlightRecordings.record("com.rohan.cloudProject.Authorization", () -> {
+            basicAuthentication.authorize(dummyBasicAuthToken);
+            basicAuthentication.authorize(dummyBasicAuthToken);
+        });
+
+        Assert.assertEquals(events.size(), 2);
+        Assert.assertEquals(events.get(0).get("userId"), "123");
+        Assert.assertEquals(events.get(0).get("outcome"), "success");
+        Assert.assertEquals(events.get(0).get("cached"), false);
+        Assert.assertEquals(events.get(1).get("cached"), true);
+    }
+
+    /**
+     * Test to ensure that an authorization with an unknown email is recorded as rejected.
+     */
+    @Test
+    public void checkUnknownEmailIsRecordedAsRejected() throws Exception {
+        Assume.assumeTrue(FlightEvents.isFlightRecorderAvailable(getClass().getClassLoader()));
+
+        when(mockUserRepository.findByEmail(dummyUsername)).thenReturn(Optional.empty());
+
+        List<Map<String, Object>> events = FlightRecordings.record("com.rohan.cloudProject.Authorization", () -> {
+            try {
+                basicAuthentication.authorize(dummyBasicAuthToken);
+                Assert.fail("The unknown email was authorized");
+            } catch (IllegalArgumentException expected) {
+                //The rejection is what is recorded
+            }
+        });
+
+        Assert.assertEquals(events.size(), 1);
+        Assert.assertEquals(events.get(0).get("outcome"), "rejected");
+    }
+
     /**
      * Helper Method. Takes in the plain password and encrypts it using BCryptPasswordEncoder with BCrypt Salt.
      *
@@ -0,0 +1,106 @@
+package com.rohan.cloudProject.service;
+
+import com.rohan.cloudProject.model.Bill;
+import com.rohan.cloudProject.model.BillChanges;
+import com.rohan.cloudProject.model.PayStatus;
+import com.rohan.cloudProject.model.User;
+import com.rohan.cloudProject.trace.RequestTrace;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Test class for the Bill change feed behind a read replica which lags behind the primary. The replica is an
+ * in-memory H2 database holding the primary's schema only, none of the rows written during the test reach it.
+ *
+ * @author rohan_bharti
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:changesPrimary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.replica.url=jdbc:h2:mem:changesReplica;DB_CLOSE_DELAY=-1",
+        "bills.changes.settleMillis=0"
+})
+public class BillChangesReplicaTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    private User user;
+
+    @Before
+    public void init() {
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        if (replica.queryForList("select table_name from information_schema.tables where table_name = 'BILLS'").isEmpty()) {
+            List<String> schema = new JdbcTemplate(primaryDataSource).queryForList("script nodata", String.class);
+            for (String statement : schema) {
+                if (!statement.startsWith("CREATE USER")) {
+                    replica.execute(statement);
+                }
+            }
+        }
+
+        user = userService.createNewUser(new User("Rohan", "Bharti", "changes-" + UUID.randomUUID() + "@xyz.com",
+                "Qwertyuiop1234@"));
+        RequestTrace.begin();
+    }
+
+    @After
+    public void cleanup() {
+        RequestTrace.end();
+    }
+
+    /**
+     * Test to ensure a bill which hasn't reached the replica yet is still returned by the change feed, and not skipped
+     * for good once the token has moved past it.
+     */
+    @Test
+    public void readsChangesFromPrimaryWhileReplicaLags() {
+        Bill bill = new Bill();
+        bill.setUser(user);
+        bill.setVendor("Northeastern University");
+        bill.setBillDate(new Date());
+        bill.setDueDate(new Date());
+        bill.setAmountDue(10.0);
+        bill.setCategories(new HashSet<>(Collections.singletonList("college")));
+        bill.setPayStatus(PayStatus.due);
+        bill = billService.createNewBill(bill);
+
+        //The replica hasn't caught up, the reads sent to it don't see the bill
+        try {
+            billService.getAllBillsByUserId(user.getId());
+            Assert.fail();
+        } catch (IllegalStateException ex) {
+            Assert.assertEquals(ex.getMessage(), "No bills exist for this user yet!");
+        }
+
+        BillChanges changes = billService.getBillChangesByUserId(user.getId(), null);
+        Assert.assertEquals(changes.getUpdated().size(), 1);
+        Assert.assertEquals(changes.getUpdated().get(0).getBillId(), bill.getBillId());
+    }
+}
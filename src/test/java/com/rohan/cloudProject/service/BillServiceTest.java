@@ -0,0 +1,415 @@
+package com.rohan.cloudProject.service;
+
+import com.rohan.cloudProject.cache.BillResponseCache;
+import com.rohan.cloudProject.model.Bill;
+import com.rohan.cloudProject.model.BillChanges;
+import com.rohan.cloudProject.model.BillPage;
+import com.rohan.cloudProject.model.BillTombstone;
+import com.rohan.cloudProject.model.File;
+import com.rohan.cloudProject.model.User;
+import com.rohan.cloudProject.repository.BillRepository;
+import com.rohan.cloudProject.repository.BillTombstoneRepository;
+import com.timgroup.statsd.StatsDClient;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for the Bill Service's owner-scoped lookups.
+ *
+ * @author rohan_bharti
+ */
+public class BillServiceTest {
+
+    @InjectMocks
+    private BillService billService;
+
+    @Mock
+    private BillRepository billRepository;
+
+    @Mock
+    private BillTombstoneRepository billTombstoneRepository;
+
+    @Mock
+    private FileService fileService;
+
+    @Mock
+    private BillResponseCache billResponseCache;
+
+    @Mock
+    private StatsDClient statsDClient;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private Bill bill;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(billService, "activeProfile", "dev");
+        ReflectionTestUtils.setField(billService, "changesSettleMillis", 5000L);
+        ReflectionTestUtils.setField(billService, "tombstoneRetentionDays", 30L);
+        ReflectionTestUtils.setField(billService, "defaultPageSize", 20);
+        ReflectionTestUtils.setField(billService, "maxPageSize", 100);
+
+        User owner = new User("Rohan", "Bharti", "rohan@xyz.com", "Qwertyuiop1234@");
+        ReflectionTestUtils.setField(owner, "id", "user-1");
+        File file = new File();
+        file.setFileId("file-1");
+
+        bill = new Bill();
+        bill.setBillId("bill-1");
+        bill.setUser(owner);
+        bill.setBillFile(file);
+        when(billRepository.findWithFileByBillId("bill-1")).thenReturn(Optional.of(bill));
+        when(billRepository.findWithFileByBillId("missing-bill")).thenReturn(Optional.empty());
+        when(billRepository.findForUpdateByBillId("bill-1")).thenReturn(Optional.of(bill));
+    }
+
+    /**
+     * Test to ensure the bill and its file are fetched with a single query.
+     */
+    @Test
+    public void fetchesBillAndFileInSingleQuery() throws Exception {
+        File file = billService.getFileForBill("bill-1", "user-1", "file-1");
+
+        Assert.assertEquals(file.getFileId(), "file-1");
+        verify(billRepository, times(1)).findWithFileByBillId("bill-1");
+        verify(billRepository, never()).existsById(anyString());
+        verify(billRepository, never()).findById(anyString());
+        verify(fileService, never()).getFileById(anyString());
+    }
+
+    /**
+     * Test to ensure a bill which doesn't exist isn't reported as belonging to someone else.
+     */
+    @Test
+    public void rejectsMissingBill() {
+        try {
+            billService.getBillByBillId("missing-bill", "user-1");
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+            Assert.fail();
+        } catch (Exception ex) {
+            Assert.assertEquals(ex.getMessage(), "The Bill ID doesn't exist!");
+        }
+    }
+
+    /**
+     * Test to ensure a bill owned by another user is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBillOfAnotherUser() throws Exception {
+        billService.getBillByBillId("bill-1", "user-2");
+    }
+
+    /**
+     * Test to ensure deleting a bill doesn't look it up again before deleting it.
+     */
+    @Test
+    public void deletesBillWithoutExtraLookups() throws Exception {
+        billService.deleteById("bill-1", "user-1");
+
+        verify(billRepository, times(1)).findForUpdateByBillId("bill-1");
+        verify(billRepository, never()).findWithFileByBillId(anyString());
+        verify(billRepository).delete(bill);
+        verify(billRepository, never()).findById(anyString());
+        verify(fileService, never()).getFileById(anyString());
+    }
+
+    /**
+     * Test to ensure a bill is locked for the update, and a concurrent change to it is reported to the caller instead
+     * of being taken for a missing bill.
+     */
+    @Test
+    public void updatesBillLockedForUpdate() throws Exception {
+        Bill changes = new Bill();
+        changes.setVendor("Northeastern");
+        when(billRepository.save(bill)).thenThrow(new ObjectOptimisticLockingFailureException(Bill.class, "bill-1"));
+
+        try {
+            billService.updateBillByBillId(changes, "bill-1", "user-1");
+            Assert.fail();
+        } catch (OptimisticLockingFailureException ex) {
+            verify(billRepository, times(1)).findForUpdateByBillId("bill-1");
+            verify(billRepository, never()).findWithFileByBillId(anyString());
+            verify(billResponseCache, never()).invalidateUser(anyString());
+        }
+    }
+
+    /**
+     * Test to ensure deleting a bill leaves a tombstone for the change feed.
+     */
+    @Test
+    public void leavesTombstoneOnDelete() throws Exception {
+        billService.deleteById("bill-1", "user-1");
+
+        ArgumentCaptor<BillTombstone> tombstone = ArgumentCaptor.forClass(BillTombstone.class);
+        verify(billTombstoneRepository).save(tombstone.capture());
+        Assert.assertEquals(tombstone.getValue().getBillId(), "bill-1");
+        Assert.assertEquals(tombstone.getValue().getUserId(), "user-1");
+        Assert.assertNotNull(tombstone.getValue().getDeleted());
+    }
+
+    /**
+     * Test to ensure the change feed reads up to the settle time only, and resumes from there with the token returned.
+     */
+    @Test
+    public void resumesChangesFromReturnedToken() throws Exception {
+        when(billRepository.findAllUpdatedByUserId(anyString(), any(Date.class), any(Date.class)))
+                .thenReturn(Collections.singletonList(bill));
+        when(billTombstoneRepository.findDeletedBillIds(anyString(), any(Date.class), any(Date.class)))
+                .thenReturn(Collections.singletonList("bill-2"));
+
+        long before = System.currentTimeMillis();
+        BillChanges fullSync = billService.getBillChangesByUserId("user-1", null);
+        Assert.assertEquals(fullSync.getUpdated(), Collections.singletonList(bill));
+        Assert.assertTrue(fullSync.getDeleted().isEmpty());
+        verify(billTombstoneRepository, never()).findDeletedBillIds(anyString(), any(Date.class), any(Date.class));
+
+        ArgumentCaptor<Date> until = ArgumentCaptor.forClass(Date.class);
+        verify(billRepository).findAllUpdatedByUserId(eq("user-1"), eq(new Date(0)), until.capture());
+        Assert.assertTrue(until.getValue().getTime() <= System.currentTimeMillis() - 5000);
+        Assert.assertTrue(until.getValue().getTime() >= before - 5000);
+
+        //A window ending in the same millisecond it starts in is empty, the clock has to move past the token first
+        while (System.currentTimeMillis() - 5000 <= until.getValue().getTime()) {
+            Thread.sleep(1);
+        }
+        BillChanges changes = billService.getBillChangesByUserId("user-1", fullSync.getNextSince());
+        Assert.assertEquals(changes.getDeleted(), Collections.singletonList("bill-2"));
+        verify(billRepository).findAllUpdatedByUserId(eq("user-1"), eq(until.getValue()), any(Date.class));
+        verify(billTombstoneRepository).findDeletedBillIds(eq("user-1"), eq(until.getValue()), any(Date.class));
+    }
+
+    /**
+     * Test to ensure a token older than the tombstones kept is rejected as expired.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void rejectsExpiredChangesToken() {
+        long expired = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(31);
+        //Built the same way as the tokens returned by the change feed
+        String expiredToken = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(expired).getBytes(StandardCharsets.UTF_8));
+        billService.getBillChangesByUserId("user-1", expiredToken);
+    }
+
+    /**
+     * Test to ensure a malformed token is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidChangesToken() {
+        billService.getBillChangesByUserId("user-1", "not a token");
+    }
+
+    /**
+     * Test to ensure the bills' ETag changes with any of their versions, and isn't shared between users.
+     */
+    @Test
+    public void derivesBillsETagFromVersionSummary() {
+        Date lastUpdated = new Date();
+        when(billRepository.findVersionSummaryByUserId(anyString()))
+                .thenReturn(Collections.singletonList(new Object[]{2L, 5L, lastUpdated}));
+        String eTag = billService.getBillsETag("user-1");
+        Assert.assertEquals(billService.getBillsETag("user-1"), eTag);
+        Assert.assertNotEquals(billService.getBillsETag("user-2"), eTag);
+
+        when(billRepository.findVersionSummaryByUserId("user-1"))
+                .thenReturn(Collections.singletonList(new Object[]{2L, 6L, lastUpdated}));
+        Assert.assertNotEquals(billService.getBillsETag("user-1"), eTag);
+
+        when(billRepository.findVersionSummaryByUserId("user-1"))
+                .thenReturn(Collections.singletonList(new Object[]{0L, 0L, null}));
+        Assert.assertNull(billService.getBillsETag("user-1"));
+    }
+
+    /**
+     * Test to ensure the User's bills are fetched with the per-user query and never by loading every bill.
+     */
+    @Test
+    public void fetchesOnlyUsersBills() {
+        when(billRepository.findAllByUserId("user-1")).thenReturn(Collections.singletonList(bill));
+
+        List<Bill> bills = billService.getAllBillsByUserId("user-1");
+
+        Assert.assertEquals(bills, Collections.singletonList(bill));
+        verify(billRepository, times(1)).findAllByUserId("user-1");
+        verify(billRepository, never()).findAll();
+    }
+
+    /**
+     * Test to ensure a page is fetched with one extra bill to detect the next page, and the cursor returned resumes
+     * right after the last bill of the page.
+     */
+    @Test
+    public void resumesPageFromReturnedCursor() {
+        Date created = new Date(1000L);
+        List<Bill> bills = Arrays.asList(billCreatedAt("bill-a", created), billCreatedAt("bill-b", created),
+                billCreatedAt("bill-c", created));
+        when(billRepository.findPageByUserId(eq("user-1"), any(Pageable.class))).thenReturn(bills);
+
+        BillPage page = billService.getBillsPageByUserId("user-1", null, 2);
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(billRepository).findPageByUserId(eq("user-1"), pageable.capture());
+        Assert.assertEquals(pageable.getValue().getPageSize(), 3);
+        Assert.assertEquals(page.getBills(), bills.subList(0, 2));
+        Assert.assertNotNull(page.getNextCursor());
+
+        when(billRepository.findPageByUserIdAfter(eq("user-1"), any(Date.class), anyString(), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(bills.get(2)));
+        BillPage nextPage = billService.getBillsPageByUserId("user-1", page.getNextCursor(), 2);
+
+        //The bills created at the same time are told apart by their id
+        verify(billRepository).findPageByUserIdAfter(eq("user-1"), eq(created), eq("bill-b"), any(Pageable.class));
+        Assert.assertEquals(nextPage.getBills(), Collections.singletonList(bills.get(2)));
+        Assert.assertNull(nextPage.getNextCursor());
+    }
+
+    /**
+     * Test to ensure a page as large as the limit isn't taken for one with a next page.
+     */
+    @Test
+    public void returnsNoCursorOnLastPage() {
+        List<Bill> bills = Arrays.asList(billCreatedAt("bill-a", new Date(1000L)),
+                billCreatedAt("bill-b", new Date(2000L)));
+        when(billRepository.findPageByUserId(eq("user-1"), any(Pageable.class))).thenReturn(bills);
+
+        BillPage page = billService.getBillsPageByUserId("user-1", null, 2);
+
+        Assert.assertEquals(page.getBills(), bills);
+        Assert.assertNull(page.getNextCursor());
+    }
+
+    /**
+     * Test to ensure the limits outside of 1 and the maximum page size are rejected before any query.
+     */
+    @Test
+    public void rejectsLimitOutOfBounds() {
+        for (int limit : new int[]{0, 101}) {
+            try {
+                billService.getBillsPageByUserId("user-1", null, limit);
+                Assert.fail();
+            } catch (IllegalArgumentException ex) {
+                Assert.assertEquals(ex.getMessage(), "The limit has to be between 1 and 100");
+            }
+        }
+        billService.getBillsPageByUserId("user-1", null, 100);
+        verify(billRepository, times(1)).findPageByUserId(anyString(), any(Pageable.class));
+    }
+
+    /**
+     * Test to ensure a malformed cursor is rejected.
+     */
+    @Test
+    public void rejectsInvalidCursor() {
+        String[] keysets = {"not a cursor", "1000", "1000:", "time:bill-1"};
+        for (String keyset : keysets) {
+            String cursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(keyset.getBytes(StandardCharsets.UTF_8));
+            try {
+                billService.getBillsPageByUserId("user-1", cursor, 2);
+                Assert.fail();
+            } catch (IllegalArgumentException ex) {
+                Assert.assertEquals(ex.getMessage(), "The cursor supplied is not valid.");
+            }
+        }
+        verify(billRepository, never())
+                .findPageByUserIdAfter(anyString(), any(Date.class), anyString(), any(Pageable.class));
+    }
+
+    /**
+     * Test to ensure every streamed bill, and its file, is detached once consumed.
+     */
+    @Test
+    public void detachesEachStreamedBill() {
+        Bill otherBill = billCreatedAt("bill-2", new Date());
+        when(billRepository.streamAllByUserId("user-1")).thenReturn(Stream.of(bill, otherBill));
+
+        List<Bill> consumed = new ArrayList<>();
+        billService.streamAllBillsByUserId("user-1", streamedBill -> {
+            verify(entityManager, never()).detach(streamedBill);
+            consumed.add(streamedBill);
+        });
+
+        Assert.assertEquals(consumed, Arrays.asList(bill, otherBill));
+        verify(entityManager).detach(bill);
+        verify(entityManager).detach(bill.getBillFile());
+        verify(entityManager).detach(otherBill);
+        verify(billRepository, never()).findAllByUserId(anyString());
+    }
+
+    /**
+     * Test to ensure the bills due are looked up between now and the number of days supplied from now.
+     */
+    @Test
+    public void looksUpBillsDueFromNowOn() {
+        when(billRepository.findAllDueByUserId(anyString(), any(Date.class), any(Date.class)))
+                .thenReturn(Collections.singletonList(bill));
+
+        long before = System.currentTimeMillis();
+        List<Bill> billsDue = billService.getAllBillsDueByUserId("user-1", 7L);
+        long after = System.currentTimeMillis();
+
+        ArgumentCaptor<Date> dueFrom = ArgumentCaptor.forClass(Date.class);
+        ArgumentCaptor<Date> dueTo = ArgumentCaptor.forClass(Date.class);
+        verify(billRepository).findAllDueByUserId(eq("user-1"), dueFrom.capture(), dueTo.capture());
+        Assert.assertEquals(billsDue, Collections.singletonList(bill));
+        Assert.assertTrue(dueFrom.getValue().getTime() >= before && dueFrom.getValue().getTime() <= after);
+        Assert.assertEquals(dueTo.getValue().getTime() - dueFrom.getValue().getTime(), TimeUnit.DAYS.toMillis(7));
+    }
+
+    /**
+     * Test to ensure a negative number of days is rejected before any query.
+     */
+    @Test
+    public void rejectsNegativeDaysDue() {
+        try {
+            billService.getAllBillsDueByUserId("user-1", -1L);
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+            verify(billRepository, never()).findAllDueByUserId(anyString(), any(Date.class), any(Date.class));
+        }
+    }
+
+    /**
+     * Helper Method. Creates a bill of the User with the id and creation time supplied.
+     *
+     * @param billId
+     * @param billCreated
+     * @return Bill
+     */
+    private Bill billCreatedAt(String billId, Date billCreated) {
+        Bill createdBill = new Bill();
+        createdBill.setBillId(billId);
+        createdBill.setUser(bill.getUser());
+        createdBill.setBillCreated(billCreated);
+        return createdBill;
+    }
+}
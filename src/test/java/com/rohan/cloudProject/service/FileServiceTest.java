@@ -0,0 +1,355 @@
+package com.rohan.cloudProject.service;
+
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.DeleteObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import com.rohan.cloudProject.cache.BillResponseCache;
+import com.rohan.cloudProject.configuration.MetricsConstants;
+import com.rohan.cloudProject.local.LocalAmazonS3;
+import com.rohan.cloudProject.model.Bill;
+import com.rohan.cloudProject.model.File;
+import com.rohan.cloudProject.model.FileStatus;
+import com.rohan.cloudProject.model.User;
+import com.rohan.cloudProject.repository.BillRepository;
+import com.rohan.cloudProject.repository.FileRepository;
+import com.timgroup.statsd.StatsDClient;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for the File Service's local storage and its S3 uploads, run against the in-memory S3 stand-in.
+ *
+ * @author rohan_bharti
+ */
+public class FileServiceTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @InjectMocks
+    private FileService fileService;
+
+    @Mock
+    private FileRepository fileRepository;
+
+    @Mock
+    private BillResponseCache billResponseCache;
+
+    @Mock
+    private BillRepository billRepository;
+
+    @Spy
+    private LocalAmazonS3 amazonS3Client = new LocalAmazonS3();
+
+    private TransferManager transferManager;
+
+    @Mock
+    private StatsDClient statsDClient;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private String userHome;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(fileService, "activeProfile", "dev");
+        userHome = System.getProperty("user.home");
+        System.setProperty("user.home", temporaryFolder.getRoot().getAbsolutePath());
+
+        ReflectionTestUtils.setField(fileService, "bucketName", "bills-bucket");
+        ReflectionTestUtils.setField(fileService, "multipartThreshold", 1024L * 1024L);
+        transferManager = TransferManagerBuilder.standard()
+                .withS3Client(amazonS3Client)
+                .withMultipartUploadThreshold(1024L * 1024L)
+                .withMinimumUploadPartSize(256L * 1024L)
+                .withExecutorFactory(() -> Executors.newFixedThreadPool(4))
+                .build();
+        ReflectionTestUtils.setField(fileService, "transferManager", transferManager);
+
+        ReflectionTestUtils.setField(fileService, "spoolDirectory", temporaryFolder.getRoot().getAbsolutePath() + "/spool");
+        ReflectionTestUtils.setField(fileService, "workers", 2);
+        ReflectionTestUtils.setField(fileService, "queueCapacity", 10);
+        ReflectionTestUtils.setField(fileService, "shutdownTimeoutSeconds", 5L);
+        ReflectionTestUtils.setField(fileService, "pendingTimeoutMillis", 60000L);
+        fileService.init();
+
+        User owner = new User("Rohan", "Bharti", "rohan@xyz.com", "Qwertyuiop1234@");
+        ReflectionTestUtils.setField(owner, "id", "user-1");
+        Bill bill = new Bill();
+        bill.setBillId("bill-1");
+        bill.setUser(owner);
+        when(billRepository.findForUpdateByBillId("bill-1")).thenReturn(Optional.of(bill));
+    }
+
+    @After
+    public void shutdown() {
+        System.setProperty("user.home", userHome);
+        transferManager.shutdownNow(false);
+        fileService.shutdown();
+    }
+
+    /**
+     * Test to ensure the file is read once, with its MD5 Hash and size computed while it is being stored.
+     */
+    @Test
+    public void storesFileInSinglePass() throws Exception {
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random(42).nextBytes(content);
+        MockMultipartFile file = spy(new MockMultipartFile("file", "receipt.pdf", "application/pdf", content));
+
+        File storedFile = fileService.createNewFile(file, "bill-1");
+
+        String expectedMd5 = new BigInteger(1, MessageDigest.getInstance("MD5").digest(content)).toString(16);
+        Assert.assertEquals(storedFile.getMd5Hash(), expectedMd5);
+        Assert.assertEquals(storedFile.getFileSize(), Long.valueOf(content.length));
+        Assert.assertArrayEquals(Files.readAllBytes(Paths.get(storedFile.getStorageUrl() + "-bill-1")), content);
+        verify(file, times(1)).getInputStream();
+        verify(file, never()).getBytes();
+    }
+
+    /**
+     * Test to ensure a file below the multipart threshold is put in one request with its content length set.
+     */
+    @Test
+    public void uploadsSmallFileInSinglePut() throws Exception {
+        ReflectionTestUtils.setField(fileService, "activeProfile", "aws");
+        byte[] content = new byte[64 * 1024];
+        new Random(7).nextBytes(content);
+        MockMultipartFile file = spy(new MockMultipartFile("file", "receipt.png", "image/png", content));
+
+        File storedFile = fileService.createNewFile(file, "bill-1");
+
+        verify(amazonS3Client, times(1)).putObject(argThat((PutObjectRequest request) ->
+                request.getMetadata().getContentLength() == content.length));
+        Assert.assertEquals(amazonS3Client.getPartsUploaded(), 0);
+        Assert.assertArrayEquals(amazonS3Client.getObjectBytes("bills-bucket", "receipt.png-bill-1"), content);
+        Assert.assertEquals(storedFile.getMd5Hash(),
+                new BigInteger(1, MessageDigest.getInstance("MD5").digest(content)).toString(16));
+        Assert.assertEquals(storedFile.getFileSize(), Long.valueOf(content.length));
+        verify(statsDClient).recordExecutionTime(eq(MetricsConstants.TIMER_S3_FILE_UPLOAD + ".under_1mb"), anyLong());
+        verify(file, never()).getBytes();
+    }
+
+    /**
+     * Test to ensure a file at or above the multipart threshold is uploaded in parts, with its MD5 Hash passed along.
+     */
+    @Test
+    public void uploadsLargeFileInParts() throws Exception {
+        ReflectionTestUtils.setField(fileService, "activeProfile", "aws");
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random(42).nextBytes(content);
+        MockMultipartFile file = spy(new MockMultipartFile("file", "receipt.pdf", "application/pdf", content));
+
+        File storedFile = fileService.createNewFile(file, "bill-1");
+
+        String expectedMd5 = new BigInteger(1, MessageDigest.getInstance("MD5").digest(content)).toString(16);
+        Assert.assertTrue(amazonS3Client.getPartsUploaded() > 1);
+        Assert.assertArrayEquals(amazonS3Client.getObjectBytes("bills-bucket", "receipt.pdf-bill-1"), content);
+        Assert.assertEquals(amazonS3Client.getObjectMetadata("bills-bucket", "receipt.pdf-bill-1")
+                .getUserMetaDataOf("md5"), expectedMd5);
+        Assert.assertEquals(storedFile.getMd5Hash(), expectedMd5);
+        Assert.assertEquals(storedFile.getFileSize(), Long.valueOf(content.length));
+        verify(statsDClient).recordExecutionTime(eq(MetricsConstants.TIMER_S3_FILE_UPLOAD + ".1mb_to_10mb"), anyLong());
+        //The upload is moved to the spool directory rather than read through, and is gone once uploaded
+        verify(file, times(1)).transferTo(any(java.io.File.class));
+        verify(file, never()).getInputStream();
+        try (Stream<Path> spooledFiles = Files.list(temporaryFolder.getRoot().toPath().resolve("spool"))) {
+            Assert.assertEquals(spooledFiles.count(), 0);
+        }
+    }
+
+    /**
+     * Test to ensure a large spooled file is uploaded in parts from the spooled file itself, without another copy.
+     */
+    @Test
+    public void uploadsSpooledFileInPartsWithoutCopy() throws Exception {
+        ReflectionTestUtils.setField(fileService, "activeProfile", "aws");
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random(11).nextBytes(content);
+        Path spooledFile = fileService.spoolFile(
+                new MockMultipartFile("file", "receipt.pdf", "application/pdf", content));
+
+        when(fileRepository.updatePendingFile(eq("file-1"), anyString(), anyString(), anyString(), anyLong(),
+                any(Date.class), eq(FileStatus.stored))).thenReturn(1);
+        fileService.storeSpooledFileAsync("file-1", "bill-1", "receipt.pdf", spooledFile);
+
+        String expectedMd5 = new BigInteger(1, MessageDigest.getInstance("MD5").digest(content)).toString(16);
+        verify(fileRepository, timeout(5000)).updatePendingFile(eq("file-1"), eq("receipt.pdf-bill-1"), anyString(),
+                eq(expectedMd5), eq(Long.valueOf(content.length)), any(Date.class), eq(FileStatus.stored));
+        verify(amazonS3Client, atLeast(2)).uploadPart(argThat((UploadPartRequest request) ->
+                spooledFile.toFile().equals(request.getFile())));
+        verify(amazonS3Client, never()).uploadPart(argThat((UploadPartRequest request) ->
+                !spooledFile.toFile().equals(request.getFile())));
+        Assert.assertArrayEquals(amazonS3Client.getObjectBytes("bills-bucket", "receipt.pdf-bill-1"), content);
+        Assert.assertFalse(Files.exists(spooledFile));
+    }
+
+    /**
+     * Test to ensure a spooled file is stored by the storage workers, which then mark the File as stored.
+     */
+    @Test
+    public void storesSpooledFileAsynchronously() throws Exception {
+        byte[] content = new byte[128 * 1024];
+        new Random(3).nextBytes(content);
+        MockMultipartFile file = new MockMultipartFile("file", "receipt.jpg", "image/jpeg", content);
+
+        when(fileRepository.updatePendingFile(eq("file-1"), anyString(), anyString(), anyString(), anyLong(),
+                any(Date.class), eq(FileStatus.stored))).thenReturn(1);
+
+        Path spooledFile = fileService.spoolFile(file);
+        Assert.assertTrue(Files.exists(spooledFile));
+        fileService.storeSpooledFileAsync("file-1", "bill-1", "receipt.jpg", spooledFile);
+
+        ArgumentCaptor<String> storageUrl = ArgumentCaptor.forClass(String.class);
+        verify(fileRepository, timeout(5000)).updatePendingFile(eq("file-1"), eq("receipt.jpg"), storageUrl.capture(),
+                eq(new BigInteger(1, MessageDigest.getInstance("MD5").digest(content)).toString(16)),
+                eq(Long.valueOf(content.length)), any(Date.class), eq(FileStatus.stored));
+        verify(billRepository, timeout(5000)).markUpdated(eq("bill-1"), any(Date.class));
+        verify(billResponseCache, timeout(5000)).invalidateUser("user-1");
+        verify(fileRepository, never()).save(any(File.class));
+        Assert.assertArrayEquals(Files.readAllBytes(Paths.get(storageUrl.getValue() + "-bill-1")), content);
+        Assert.assertFalse(Files.exists(spooledFile));
+    }
+
+    /**
+     * Test to ensure a spooled file which can't be stored marks the File as failed.
+     */
+    @Test
+    public void marksFileFailedWhenStorageFails() throws Exception {
+        ReflectionTestUtils.setField(fileService, "activeProfile", "aws");
+        doThrow(new AmazonS3Exception("Access Denied")).when(amazonS3Client).putObject(any(PutObjectRequest.class));
+        when(fileRepository.updatePendingFileStatus("file-1", FileStatus.failed)).thenReturn(1);
+
+        Path spooledFile = fileService.spoolFile(new MockMultipartFile("file", "receipt.jpg", "image/jpeg", new byte[1024]));
+        fileService.storeSpooledFileAsync("file-1", "bill-1", "receipt.jpg", spooledFile);
+
+        verify(fileRepository, timeout(5000)).updatePendingFileStatus("file-1", FileStatus.failed);
+        verify(billRepository, timeout(5000)).markUpdated(eq("bill-1"), any(Date.class));
+        Assert.assertFalse(Files.exists(spooledFile));
+    }
+
+    /**
+     * Test to ensure a spooled file handed to the storage workers once they are shut down marks the File as failed
+     * instead of leaving it pending.
+     */
+    @Test
+    public void marksFileFailedWhenWorkersAreShutDown() throws Exception {
+        when(fileRepository.updatePendingFileStatus("file-1", FileStatus.failed)).thenReturn(1);
+
+        Path spooledFile = fileService.spoolFile(new MockMultipartFile("file", "receipt.jpg", "image/jpeg", new byte[1024]));
+        fileService.shutdown();
+        fileService.storeSpooledFileAsync("file-1", "bill-1", "receipt.jpg", spooledFile);
+
+        verify(fileRepository).updatePendingFileStatus("file-1", FileStatus.failed);
+        Assert.assertFalse(Files.exists(spooledFile));
+    }
+
+    /**
+     * Test to ensure the shutdown waits for the files handed to the storage workers to be stored.
+     */
+    @Test
+    public void waitsForStorageWorkersOnShutdown() throws Exception {
+        when(fileRepository.updatePendingFile(anyString(), anyString(), anyString(), anyString(), anyLong(),
+                any(Date.class), eq(FileStatus.stored))).thenReturn(1);
+
+        for (int i = 0; i < 5; i++) {
+            //Named apart, as the workers store them at the same time
+            Path spooledFile = fileService.spoolFile(
+                    new MockMultipartFile("file", "receipt-" + i + ".jpg", "image/jpeg", new byte[64 * 1024]));
+            fileService.storeSpooledFileAsync("file-" + i, "bill-1", "receipt-" + i + ".jpg", spooledFile);
+        }
+        fileService.shutdown();
+
+        verify(fileRepository, times(5)).updatePendingFile(anyString(), anyString(), anyString(), anyString(), anyLong(),
+                any(Date.class), eq(FileStatus.stored));
+        verify(fileRepository, never()).updatePendingFileStatus(anyString(), any(FileStatus.class));
+    }
+
+    /**
+     * Test to ensure the Files left pending for too long are marked as failed, and the old spooled files deleted.
+     */
+    @Test
+    public void failsStalePendingFiles() throws Exception {
+        File staleFile = new File();
+        staleFile.setFileId("file-1");
+        staleFile.setBillId("bill-1");
+        staleFile.setStatus(FileStatus.pending);
+        when(fileRepository.findAllPendingUpdatedBefore(any(Date.class))).thenReturn(Collections.singletonList(staleFile));
+        when(fileRepository.updatePendingFileStatus("file-1", FileStatus.failed)).thenReturn(1);
+
+        Path staleSpooledFile = fileService.spoolFile(
+                new MockMultipartFile("file", "receipt.jpg", "image/jpeg", new byte[16]));
+        Files.setLastModifiedTime(staleSpooledFile, FileTime.fromMillis(System.currentTimeMillis() - 120000));
+        Path spooledFile = fileService.spoolFile(
+                new MockMultipartFile("file", "receipt.jpg", "image/jpeg", new byte[16]));
+
+        long before = System.currentTimeMillis();
+        fileService.failStalePendingFiles();
+
+        ArgumentCaptor<Date> updatedBefore = ArgumentCaptor.forClass(Date.class);
+        verify(fileRepository).findAllPendingUpdatedBefore(updatedBefore.capture());
+        Assert.assertTrue(updatedBefore.getValue().getTime() >= before - 60000);
+        Assert.assertTrue(updatedBefore.getValue().getTime() <= System.currentTimeMillis() - 60000);
+        verify(fileRepository).updatePendingFileStatus("file-1", FileStatus.failed);
+        verify(billRepository).markUpdated(eq("bill-1"), any(Date.class));
+        verify(billResponseCache).invalidateUser("user-1");
+        Assert.assertFalse(Files.exists(staleSpooledFile));
+        Assert.assertTrue(Files.exists(spooledFile));
+    }
+
+    /**
+     * Test to ensure a file stored after its File was deleted is deleted from the S3 Bucket.
+     */
+    @Test
+    public void deletesStoredFileWhenFileWasDeleted() throws Exception {
+        ReflectionTestUtils.setField(fileService, "activeProfile", "aws");
+        //The File was deleted, it is no longer there to be updated
+        when(fileRepository.updatePendingFile(anyString(), anyString(), anyString(), anyString(), anyLong(),
+                any(Date.class), eq(FileStatus.stored))).thenReturn(0);
+
+        Path spooledFile = fileService.spoolFile(new MockMultipartFile("file", "receipt.jpg", "image/jpeg", new byte[1024]));
+        fileService.storeSpooledFileAsync("file-1", "bill-1", "receipt.jpg", spooledFile);
+
+        verify(amazonS3Client, timeout(5000)).deleteObject(argThat((DeleteObjectRequest request) ->
+                request.getBucketName().equals("bills-bucket") && request.getKey().equals("receipt.jpg-bill-1")));
+        verify(billRepository, never()).markUpdated(anyString(), any(Date.class));
+        Assert.assertFalse(Files.exists(spooledFile));
+    }
+}
@@ -0,0 +1,141 @@
+package com.rohan.cloudProject.service;
+
+import com.rohan.cloudProject.model.Bill;
+import com.rohan.cloudProject.model.File;
+import com.rohan.cloudProject.model.PayStatus;
+import com.rohan.cloudProject.model.User;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Test class for Hibernate's second level cache, checking the cached Users, Files and Bill categories are updated or
+ * evicted by the service layer's writes. Run against an in-memory H2 database.
+ * <p>
+ * A deleted entry is replaced by a soft lock in a read-write region, so the deletes are checked by loading the entity
+ * through a new EntityManager, which would be served the stale entry from the cache.
+ *
+ * @author rohan_bharti
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:secondLevelCache;DB_CLOSE_DELAY=-1")
+public class SecondLevelCacheTest {
+
+    private static final String CATEGORIES_ROLE = Bill.class.getName() + ".categories";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Cache cache;
+
+    private User user;
+
+    @Before
+    public void init() {
+        cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        user = userService.createNewUser(new User("Rohan", "Bharti", "cache-" + UUID.randomUUID() + "@xyz.com",
+                "Qwertyuiop1234@"));
+    }
+
+    /**
+     * Test to ensure the cached User is refreshed when the User is updated.
+     */
+    @Test
+    public void updateUserRefreshesCachedUser() {
+        userService.getUserDetails(user.getId());
+        Assert.assertTrue(cache.containsEntity(User.class, user.getId()));
+
+        Map<String, Object> fieldsToBeUpdated = new HashMap<>();
+        fieldsToBeUpdated.put("first_name", "Joe");
+        fieldsToBeUpdated.put("last_name", "Doe");
+        fieldsToBeUpdated.put("password", "Abcdert1234#");
+        userService.updateUser(fieldsToBeUpdated, user.getId());
+
+        Assert.assertEquals(userService.getUserDetails(user.getId()).getFirstName(), "Joe");
+    }
+
+    /**
+     * Test to ensure deleting the Bill's file evicts the cached File.
+     */
+    @Test
+    public void deleteFileForBillEvictsCachedFile() throws Exception {
+        Bill bill = createBillWithFile();
+        String fileId = bill.getBillFile().getFileId();
+        fileService.getFileById(fileId);
+        Assert.assertTrue(cache.containsEntity(File.class, fileId));
+
+        billService.deleteFileForBill(bill.getBillId(), user.getId(), fileId);
+
+        Assert.assertFalse(fileService.existsById(fileId));
+        Assert.assertNull(find(File.class, fileId));
+    }
+
+    /**
+     * Test to ensure deleting the Bill evicts its cached File.
+     */
+    @Test
+    public void deleteBillEvictsCachedFileAndCategories() throws Exception {
+        Bill bill = createBillWithFile();
+        String fileId = bill.getBillFile().getFileId();
+        fileService.getFileById(fileId);
+        billService.getBillsPageByUserId(user.getId(), null, null);
+        Assert.assertTrue(cache.containsEntity(File.class, fileId));
+        Assert.assertTrue(cache.containsCollection(CATEGORIES_ROLE, bill.getBillId()));
+
+        billService.deleteById(bill.getBillId(), user.getId());
+
+        Assert.assertNull(find(Bill.class, bill.getBillId()));
+        Assert.assertNull(find(File.class, fileId));
+    }
+
+    private <T> T find(Class<T> entityClass, String id) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return entityManager.find(entityClass, id);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private Bill createBillWithFile() {
+        File file = new File();
+        file.setFileName("receipt.pdf");
+        file.setStorageUrl(System.getProperty("java.io.tmpdir") + "/missing-receipt.pdf");
+        file.setUploadDate(new Date());
+
+        Bill bill = new Bill();
+        bill.setUser(user);
+        bill.setVendor("Vendor");
+        bill.setBillDate(new Date());
+        bill.setDueDate(new Date());
+        bill.setAmountDue(10.0);
+        bill.setCategories(new HashSet<>(Collections.singletonList("utilities")));
+        bill.setPayStatus(PayStatus.due);
+        bill.setBillFile(file);
+        return billService.createNewBill(bill);
+    }
+}
@@ -0,0 +1,102 @@
+package com.rohan.cloudProject.service;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sns.AmazonSNSAsync;
+import com.amazonaws.services.sns.model.ListTopicsRequest;
+import com.amazonaws.services.sns.model.ListTopicsResult;
+import com.amazonaws.services.sns.model.NotFoundException;
+import com.amazonaws.services.sns.model.PublishRequest;
+import com.amazonaws.services.sns.model.PublishResult;
+import com.amazonaws.services.sns.model.Topic;
+import com.timgroup.statsd.StatsDClient;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for the SNS Service's Topic ARN caching and asynchronous publishing.
+ *
+ * @author rohan_bharti
+ */
+public class SnsServiceTest {
+
+    private final String oldTopicArn = "arn:aws:sns:us-east-1:123456789012:billsDueTopic";
+
+    private final String newTopicArn = "arn:aws:sns:us-east-2:123456789012:billsDueTopic";
+
+    @InjectMocks
+    private SnsService snsService;
+
+    @Mock
+    private AmazonSNSAsync amazonSNSClient;
+
+    @Mock
+    private StatsDClient statsDClient;
+
+    private final AtomicReference<String> currentTopicArn = new AtomicReference<>();
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(snsService, "amazonSnsTopic", "billsDueTopic");
+        currentTopicArn.set(oldTopicArn);
+
+        when(amazonSNSClient.listTopics(any(ListTopicsRequest.class))).thenAnswer(invocation -> {
+            ListTopicsRequest request = invocation.getArgument(0);
+            if (request.getNextToken() == null) {
+                return new ListTopicsResult().withTopics(new Topic().withTopicArn("arn:aws:sns:us-east-1:123456789012:other"))
+                        .withNextToken("page-2");
+            }
+            return new ListTopicsResult().withTopics(new Topic().withTopicArn(currentTopicArn.get()));
+        });
+
+        when(amazonSNSClient.publishAsync(any(PublishRequest.class), any())).thenAnswer(invocation -> {
+            PublishRequest request = invocation.getArgument(0);
+            AsyncHandler<PublishRequest, PublishResult> handler = invocation.getArgument(1);
+            if (request.getTopicArn().equals(currentTopicArn.get())) {
+                handler.onSuccess(request, new PublishResult().withMessageId("1"));
+            } else {
+                handler.onError(new NotFoundException("Topic does not exist"));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Test to ensure the Topic ARN is looked up across pages once and reused for every publish.
+     */
+    @Test
+    public void resolvesTopicArnOnce() throws Exception {
+        snsService.init();
+
+        Assert.assertEquals(snsService.publishBillsDue("rohan@xyz.com").get().getMessageId(), "1");
+        Assert.assertEquals(snsService.publishBillsDue("rohan@xyz.com").get().getMessageId(), "1");
+
+        verify(amazonSNSClient, times(2)).listTopics(any(ListTopicsRequest.class));
+        verify(amazonSNSClient, times(2)).publishAsync(argThat((PublishRequest request) -> oldTopicArn.equals(request.getTopicArn())), any());
+    }
+
+    /**
+     * Test to ensure a publish to a Topic which isn't found anymore resolves the ARN again and is retried.
+     */
+    @Test
+    public void refreshesTopicArnWhenNotFound() throws Exception {
+        snsService.init();
+        currentTopicArn.set(newTopicArn);
+
+        Assert.assertEquals(snsService.publishBillsDue("rohan@xyz.com").get().getMessageId(), "1");
+
+        verify(amazonSNSClient, times(4)).listTopics(any(ListTopicsRequest.class));
+        verify(amazonSNSClient, times(1)).publishAsync(argThat((PublishRequest request) -> newTopicArn.equals(request.getTopicArn())), any());
+    }
+}
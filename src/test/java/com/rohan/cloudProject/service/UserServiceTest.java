@@ -11,11 +11,19 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.*;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -40,6 +48,9 @@ public class UserServiceTest {
     @Before
     public void init() {
         MockitoAnnotations.initMocks(this);
+        //The service is a transactional proxy, the mocks have to be set on the target behind it
+        UserService target = AopTestUtils.getTargetObject(userService);
+        ReflectionTestUtils.setField(target, "userRepository", mockUserRepository);
     }
 
     /**
@@ -56,9 +67,22 @@ public class UserServiceTest {
         dummyUser.setPassword("Qwertyuiop1234@");
         userService.createNewUser(dummyUser);
 
-        List<User> dummyList = new ArrayList<>();
-        dummyList.add(dummyUser);
-        when(mockUserRepository.findAll()).thenReturn(dummyList);
+        when(mockUserRepository.existsByEmail("rohan@xyz.com")).thenReturn(true);
+
+        User toBeSavedUser = new User("Joe", "Doe", "rohan@xyz.com", "Abcdert1234#");
+        userService.createNewUser(toBeSavedUser);
+    }
+
+    /**
+     * Checks if a new user losing a concurrent signup race for the same Email is rejected by the unique constraint.
+     *
+     * @throws IllegalArgumentException
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void addNewUserWithConcurrentDuplicateEmailTest() {
+        when(mockUserRepository.existsByEmail("rohan@xyz.com")).thenReturn(false);
+        when(mockUserRepository.save(any(User.class)))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement; constraint [uk_users_email]"));
 
         User toBeSavedUser = new User("Joe", "Doe", "rohan@xyz.com", "Abcdert1234#");
         userService.createNewUser(toBeSavedUser);
@@ -139,7 +163,7 @@ public class UserServiceTest {
         dummyUser.setEmail("rohan_bharti@xyz.com");
         dummyUser.setPassword(encryptPassword("Qwertyuiop1234@"));
 
-        when(mockUserRepository.findById("1")).thenReturn(Optional.of(dummyUser));
+        when(mockUserRepository.findForUpdateById("1")).thenReturn(Optional.of(dummyUser));
 
         User updatedUser = userService.updateUser(fieldsToBeUpdated, "1");
 
@@ -161,11 +185,30 @@ public class UserServiceTest {
         dummyUser.setEmail("rohan_bharti");
         dummyUser.setPassword("Qwertyuiop1234@");
 
-        when(mockUserRepository.findById("1")).thenReturn(Optional.of(dummyUser));
+        when(mockUserRepository.findForUpdateById("1")).thenReturn(Optional.of(dummyUser));
 
         User updatedUser = userService.updateUser(fieldsToBeUpdated, "1");
     }
 
+    /**
+     * Test to ensure a concurrent change to the User is reported to the caller instead of being swallowed.
+     */
+    @Test(expected = OptimisticLockingFailureException.class)
+    public void reportsConcurrentUserUpdate() {
+        Map<String, Object> fieldsToBeUpdated = new HashMap<>();
+        fieldsToBeUpdated.put("first_name", "Ranbir");
+        fieldsToBeUpdated.put("last_name", "Kapoor");
+        fieldsToBeUpdated.put("password", "Qwertyuiop1234@");
+
+        User dummyUser = new User();
+        dummyUser.setEmail("rohan_bharti@xyz.com");
+
+        when(mockUserRepository.findForUpdateById("1")).thenReturn(Optional.of(dummyUser));
+        when(mockUserRepository.save(dummyUser)).thenThrow(new ObjectOptimisticLockingFailureException(User.class, "1"));
+
+        userService.updateUser(fieldsToBeUpdated, "1");
+    }
+
     /**
      * Helper Method. Takes in the plain password and encrypts it using BCryptPasswordEncoder with BCrypt Salt.
      *
@@ -178,4 +221,20 @@ public class UserServiceTest {
         return encryptedPassword;
     }
 
+    /**
+     * Test to ensure the User's ETag changes with the User's version, without the User being loaded.
+     */
+    @Test
+    public void derivesUserETagFromVersion() {
+        when(mockUserRepository.findVersionById("user-1")).thenReturn(Optional.of(0L));
+        String eTag = userService.getUserETag("user-1");
+        Assert.assertNotNull(eTag);
+
+        when(mockUserRepository.findVersionById("user-1")).thenReturn(Optional.of(1L));
+        Assert.assertNotEquals(userService.getUserETag("user-1"), eTag);
+
+        when(mockUserRepository.findVersionById("user-2")).thenReturn(Optional.empty());
+        Assert.assertNull(userService.getUserETag("user-2"));
+        verify(mockUserRepository, never()).findById(any());
+    }
 }
@@ -0,0 +1,68 @@
+package com.rohan.cloudProject.trace;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test class for the Flight Recorder event factory.
+ *
+ * @author rohan_bharti
+ */
+public class FlightEventsTest {
+
+    /**
+     * Test to ensure a runtime without the jdk.jfr classes is detected, so no-op events are handed out instead.
+     */
+    @Test
+    public void detectsRuntimeWithoutFlightRecorder() {
+        ClassLoader withoutFlightRecorder = new ClassLoader(FlightEventsTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                if (name.startsWith("jdk.jfr.")) {
+                    throw new ClassNotFoundException(name);
+                }
+                return super.loadClass(name, resolve);
+            }
+        };
+
+        Assert.assertFalse(FlightEvents.isFlightRecorderAvailable(withoutFlightRecorder));
+    }
+
+    /**
+     * Test to ensure the no-op events can be used like the recorded ones.
+     */
+    @Test
+    public void disabledEventsRecordNothing() {
+        AuthorizationEvent event = DisabledFlightEvent.INSTANCE;
+        event.begin();
+        event.setUserId("123");
+        event.setOutcome(FlightEvents.OUTCOME_SUCCESS);
+        event.commit();
+
+        Assert.assertFalse(DisabledFlightEvent.INSTANCE.shouldCommit());
+    }
+
+    /**
+     * Test to ensure the events handed out are recorded on a runtime with the Flight Recorder.
+     */
+    @Test
+    public void recordsEventsWhenFlightRecorderIsAvailable() throws Exception {
+        Assume.assumeTrue(FlightEvents.isFlightRecorderAvailable(getClass().getClassLoader()));
+
+        List<Map<String, Object>> events = FlightRecordings.record("com.rohan.cloudProject.Authorization", () -> {
+            AuthorizationEvent event = FlightEvents.authorization();
+            event.begin();
+            event.setUserId("123");
+            event.setOutcome(FlightEvents.OUTCOME_SUCCESS);
+            event.commit();
+        });
+
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals("123", events.get(0).get("userId"));
+        Assert.assertEquals(FlightEvents.OUTCOME_SUCCESS, events.get(0).get("outcome"));
+    }
+}
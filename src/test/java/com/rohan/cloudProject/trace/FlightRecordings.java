@@ -0,0 +1,56 @@
+package com.rohan.cloudProject.trace;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records Flight Recorder events for the tests. The only test class using the jdk.jfr classes, it must only be
+ * loaded once FlightEvents.isFlightRecorderAvailable has been assumed.
+ *
+ * @author rohan_bharti
+ */
+public class FlightRecordings {
+
+    private FlightRecordings() {
+    }
+
+    /**
+     * Runs the action while the event supplied is recorded, and returns the fields of each event recorded.
+     *
+     * @param eventName
+     * @param action
+     * @return List<Map<String, Object>>
+     * @throws IOException
+     */
+    public static List<Map<String, Object>> record(String eventName, Runnable action) throws IOException {
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(eventName);
+            recording.start();
+            action.run();
+            recording.stop();
+
+            Path recordingFile = Files.createTempFile("recording", ".jfr");
+            recording.dump(recordingFile);
+            events = RecordingFile.readAllEvents(recordingFile);
+            Files.delete(recordingFile);
+        }
+
+        List<Map<String, Object>> eventFields = new ArrayList<>();
+        for (RecordedEvent event : events) {
+            Map<String, Object> fields = new HashMap<>();
+            event.getFields().forEach(field -> fields.put(field.getName(), event.getValue(field.getName())));
+            eventFields.add(fields);
+        }
+        return eventFields;
+    }
+}
@@ -0,0 +1,74 @@
+package com.rohan.cloudProject.trace;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+/**
+ * Test class for the slow request flight recorder.
+ *
+ * @author rohan_bharti
+ */
+public class SlowRequestRecorderTest {
+
+    private SlowRequestRecorder slowRequestRecorder;
+
+    @Before
+    public void init() {
+        slowRequestRecorder = new SlowRequestRecorder();
+        ReflectionTestUtils.setField(slowRequestRecorder, "thresholdMillis", 0L);
+        ReflectionTestUtils.setField(slowRequestRecorder, "capacity", 3);
+        slowRequestRecorder.init();
+    }
+
+    @After
+    public void shutdown() {
+        RequestTrace.end();
+    }
+
+    /**
+     * Test to ensure the ring buffer keeps the most recent slow requests, newest first.
+     */
+    @Test
+    public void keepsMostRecentSlowRequests() {
+        for (int i = 0; i < 5; i++) {
+            slowRequestRecorder.record(RequestTrace.begin(), "GET", "/v1/bill/{id}", 200 + i);
+        }
+
+        List<SlowRequest> slowRequests = slowRequestRecorder.getSlowRequests();
+        Assert.assertEquals(slowRequests.size(), 3);
+        Assert.assertEquals(slowRequests.get(0).getStatus(), 204);
+        Assert.assertEquals(slowRequests.get(0).getRoute(), "/v1/bill/{id}");
+        Assert.assertEquals(slowRequests.get(2).getStatus(), 202);
+    }
+
+    /**
+     * Test to ensure requests under the threshold aren't recorded, and the breakdown of slow ones is kept.
+     */
+    @Test
+    public void recordsPhaseBreakdownOfSlowRequestsOnly() throws Exception {
+        ReflectionTestUtils.setField(slowRequestRecorder, "thresholdMillis", 50L);
+        slowRequestRecorder.record(RequestTrace.begin(), "GET", "/v1/bills", 200);
+        Assert.assertTrue(slowRequestRecorder.getSlowRequests().isEmpty());
+
+        RequestTrace trace = RequestTrace.begin();
+        try (RequestTrace.Phase auth = RequestTrace.phase(RequestTrace.PHASE_AUTH)) {
+            try (RequestTrace.Phase db = RequestTrace.phase(RequestTrace.PHASE_DB)) {
+                RequestTrace.countSqlStatement();
+                Thread.sleep(60);
+            }
+        }
+        slowRequestRecorder.record(trace, "GET", "/v1/bills", 200);
+
+        SlowRequest slowRequest = slowRequestRecorder.getSlowRequests().get(0);
+        Assert.assertEquals(slowRequest.getSqlStatements(), 1);
+        Assert.assertTrue(slowRequest.getPhaseMillis().get(RequestTrace.PHASE_DB) >= 60);
+        Assert.assertTrue(slowRequest.getPhaseMillis().get(RequestTrace.PHASE_AUTH) >= 60);
+        //The nested db phase is part of the auth phase, so it isn't subtracted twice from the remaining time
+        Assert.assertTrue(slowRequest.getPhaseMillis().get(RequestTrace.PHASE_APP) < 50);
+    }
+}